@@ -0,0 +1,64 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.AsyncEventDispatcher;
+import com.cpbonnell.cards.PlayingCards.BackpressurePolicy;
+import com.cpbonnell.cards.PlayingCards.BasePlayingDeck;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of dealing with a slow listener attached, with synchronous and
+ * asynchronous event delivery.
+ *
+ * <p>
+ *     The listener burns a fixed amount of CPU on every event, standing in
+ *     for an audit log or similar observer. With "SYNC" the deck waits for
+ *     it on every draw and discard; with the other modes the events go
+ *     through an AsyncEventDispatcher using that backpressure policy.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncEventBenchmark {
+
+    @Param({"SYNC", "BLOCK", "DROP", "COALESCE"})
+    public String mode;
+
+    @Param({"100"})
+    public int listenerTokens;
+
+    private BasePlayingDeck deck;
+    private AsyncEventDispatcher dispatcher;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.deck = (BasePlayingDeck) BasePlayingDeck.newStandardFrenchDeck();
+        int tokens = this.listenerTokens;
+        DeckFixtures.addListeners(this.deck, 1, d -> Blackhole.consumeCPU(tokens));
+
+        if( ! this.mode.equals("SYNC") ){
+            this.dispatcher = new AsyncEventDispatcher(4096, BackpressurePolicy.valueOf(this.mode));
+            this.deck.setAsyncEventDispatcher(this.dispatcher);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        if(this.dispatcher != null){
+            this.dispatcher.close();
+        }
+    }
+
+    @Benchmark
+    public boolean drawCardThenDiscard(){
+        IPlayingCard c = this.deck.drawCard();
+        return this.deck.discardCard(c);
+    }
+}
@@ -0,0 +1,112 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.PokerHands.BatchClassifier;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of classifying a large batch of five card hands.
+ *
+ * <p>
+ *     The same random hands are held as a list of card lists, an int[], a
+ *     byte[] and a direct ByteBuffer. "classifyHandLists" is the baseline of
+ *     calling PokerHandClass.classifyHand once per hand; the other methods go
+ *     through the BatchClassifier. Scores are batches per second, so
+ *     multiply by the "hands" parameter for hands per second.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchClassificationBenchmark {
+
+    @Param({"1000000"})
+    public int hands;
+
+    private List<List<IPlayingCard>> handLists;
+    private int[] ints;
+    private byte[] bytes;
+    private ByteBuffer buffer;
+    private int[] strengths;
+    private byte[] classes;
+    private PokerHandClass[] listClasses;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        SplittableRandom random = new SplittableRandom(42);
+        int[] deck = new int[52];
+        for(int i = 0; i < deck.length; i++) deck[i] = i;
+
+        this.handLists = new ArrayList<>(this.hands);
+        this.ints = new int[this.hands * 5];
+        this.bytes = new byte[this.hands * 5];
+        this.buffer = ByteBuffer.allocateDirect(this.hands * 5);
+        for(int h = 0; h < this.hands; h++){
+            List<IPlayingCard> hand = new ArrayList<>(5);
+            for(int i = 0; i < 5; i++){
+                int j = i + random.nextInt(deck.length - i);
+                int c = deck[j];
+                deck[j] = deck[i];
+                deck[i] = c;
+                hand.add(PlayingCard.valueOf(c));
+                this.ints[h * 5 + i] = c;
+                this.bytes[h * 5 + i] = (byte) c;
+                this.buffer.put(h * 5 + i, (byte) c);
+            }
+            this.handLists.add(hand);
+        }
+
+        this.strengths = new int[this.hands];
+        this.classes = new byte[this.hands];
+        this.listClasses = new PokerHandClass[this.hands];
+    }
+
+    @Benchmark
+    public PokerHandClass[] classifyHandLists(){
+        for(int h = 0; h < this.hands; h++){
+            this.listClasses[h] = PokerHandClass.classifyHand(this.handLists.get(h));
+        }
+        return this.listClasses;
+    }
+
+    @Benchmark
+    public byte[] batchInts(){
+        BatchClassifier.classify(this.ints, 5, this.strengths, this.classes);
+        return this.classes;
+    }
+
+    @Benchmark
+    public byte[] batchBytes(){
+        BatchClassifier.classify(this.bytes, 5, this.strengths, this.classes);
+        return this.classes;
+    }
+
+    @Benchmark
+    public byte[] batchDirectBuffer(){
+        BatchClassifier.classify(this.buffer, 5, this.strengths, this.classes);
+        return this.classes;
+    }
+
+    @Benchmark
+    public byte[] batchBytesParallel(){
+        BatchClassifier.classifyParallel(this.bytes, 5, this.strengths, this.classes);
+        return this.classes;
+    }
+
+    @Benchmark
+    public byte[] handClassesOnly(){
+        BatchClassifier.handClasses(this.strengths, this.classes);
+        return this.classes;
+    }
+}
@@ -0,0 +1,36 @@
+package com.cpbonnell.cards.Bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for running the benchmark suite.
+ *
+ * <p>
+ *     Runs every benchmark whose name matches the first argument (all of them
+ *     if there is no argument) with the GC profiler attached, so that the
+ *     report shows allocation rate per operation next to the throughput and
+ *     the latency percentiles of each benchmark. Results are also written to
+ *     jmh-result.json, which can be kept as a baseline and compared with the
+ *     results of later changes.
+ * </p>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "com\\.cpbonnell\\.cards\\.Bench\\..*";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.ConcurrentPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of dealing a bridge hand to four players and taking it back,
+ * one card at a time against the bulk methods.
+ *
+ * <p>
+ *     The deck is a French deck of either type, with the given number of
+ *     listeners on every event, so the single card path raises 104 events
+ *     per deal and the bulk path two.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkDealBenchmark {
+
+    private static final int PLAYERS = 4;
+    private static final int CARDS_PER_PLAYER = 13;
+
+    @Param({"FRENCH", "CONCURRENT"})
+    public String deckType;
+
+    @Param({"0", "1", "8"})
+    public int listeners;
+
+    private IPlayingDeck deck;
+    private IPlayingCard[][] hands;
+    private long events;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.deck = this.deckType.equals("CONCURRENT")
+                ? ConcurrentPlayingDeck.newStandardFrenchDeck()
+                : DeckFixtures.newDeck(this.deckType);
+        DeckFixtures.addListeners(this.deck, this.listeners, d -> this.events++);
+        this.hands = new IPlayingCard[PLAYERS][CARDS_PER_PLAYER];
+    }
+
+    @Benchmark
+    public int dealOneAtATime(){
+        for(int k = 0; k < CARDS_PER_PLAYER; k++){
+            for(int p = 0; p < PLAYERS; p++){
+                this.hands[p][k] = this.deck.drawCard();
+            }
+        }
+        int discarded = 0;
+        for(IPlayingCard[] hand : this.hands){
+            for(IPlayingCard c : hand){
+                if(this.deck.discardCard(c)) discarded++;
+            }
+        }
+        return discarded;
+    }
+
+    @Benchmark
+    public int dealInBulk(){
+        this.deck.dealRound(this.hands, CARDS_PER_PLAYER);
+        int discarded = 0;
+        for(IPlayingCard[] hand : this.hands){
+            discarded += this.deck.discardCards(hand, 0, hand.length);
+        }
+        return discarded;
+    }
+}
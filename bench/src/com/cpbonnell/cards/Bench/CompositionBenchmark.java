@@ -0,0 +1,77 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.ConcurrentPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.DeckComposition;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.Ranks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of reading a deck's composition, on its own and from a card
+ * drawn listener, as a player keeping a count would.
+ *
+ * <p>
+ *     The deck is a French deck of either type, or an eight deck
+ *     PlayingShoe (see DeckFixtures), with a quarter of its cards held so
+ *     that every pile has cards in it.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompositionBenchmark {
+
+    @Param({"FRENCH", "CONCURRENT", "PLAYING_SHOE_8"})
+    public String deckType;
+
+    private IPlayingDeck deck;
+    private IPlayingDeck countedDeck;
+    private double tens;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.deck = this.newDeck();
+        this.countedDeck = this.newDeck();
+        this.countedDeck.getEventManager().addCardDrawnListener(d -> {
+            DeckComposition c = d.composition();
+            this.tens = c.drawProbability(Ranks.TEN) + c.hiLoCount();
+        });
+    }
+
+    @Benchmark
+    public double drawProbability(){
+        return this.deck.composition().drawProbability(Ranks.ACE);
+    }
+
+    @Benchmark
+    public int hiLoCount(){
+        return this.deck.composition().hiLoCount();
+    }
+
+    @Benchmark
+    public boolean drawCardThenDiscard(){
+        IPlayingCard c = this.deck.drawCard();
+        return this.deck.discardCard(c);
+    }
+
+    @Benchmark
+    public boolean drawCardThenDiscardCounting(){
+        IPlayingCard c = this.countedDeck.drawCard();
+        return this.countedDeck.discardCard(c);
+    }
+
+    private IPlayingDeck newDeck(){
+        IPlayingDeck d = this.deckType.equals("CONCURRENT")
+                ? ConcurrentPlayingDeck.newStandardFrenchDeck()
+                : DeckFixtures.newDeck(this.deckType);
+        IPlayingCard[] held = new IPlayingCard[d.totalSize() / 4];
+        d.drawCards(held);
+        return d;
+    }
+}
@@ -0,0 +1,86 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.BasePlayingDeck;
+import com.cpbonnell.cards.PlayingCards.ConcurrentPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of many threads dealing from one shared shoe.
+ *
+ * <p>
+ *     "CONCURRENT" is a ConcurrentPlayingDeck, and "SYNCHRONIZED" is a
+ *     BasePlayingDeck behind a single monitor, the simplest way to share the
+ *     unsynchronized deck. Every thread draws a card and discards it again.
+ *     Run the main method to measure both at 1, 2, 4 ... threads up to the
+ *     number of processors and print the scaling of each.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentDeckBenchmark {
+
+    @Param({"CONCURRENT", "SYNCHRONIZED"})
+    public String deckType;
+
+    @Param({"8"})
+    public int decks;
+
+    private IPlayingDeck deck;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        if(this.deckType.equals("CONCURRENT")){
+            this.deck = new ConcurrentPlayingDeck(DeckFixtures.frenchCards(this.decks));
+        } else {
+            this.deck = new BasePlayingDeck(DeckFixtures.frenchCards(this.decks));
+        }
+        this.deck.shuffle();
+    }
+
+    @Benchmark
+    public boolean drawCardThenDiscard(){
+        if(this.deck instanceof ConcurrentPlayingDeck){
+            IPlayingCard c = this.deck.drawCard();
+            return this.deck.discardCard(c);
+        }
+        synchronized(this.deck){
+            IPlayingCard c = this.deck.drawCard();
+            return this.deck.discardCard(c);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        StringBuilder report = new StringBuilder(String.format("%8s %17s %17s%n", "threads", "CONCURRENT", "SYNCHRONIZED"));
+
+        for(int threads = 1; ; threads = Math.min(threads * 2, processors)){
+            report.append(String.format("%8d", threads));
+            for(String type : new String[]{"CONCURRENT", "SYNCHRONIZED"}){
+                Options options = new OptionsBuilder()
+                        .include(ConcurrentDeckBenchmark.class.getName())
+                        .param("deckType", type)
+                        .threads(threads)
+                        .build();
+                for(RunResult r : new Runner(options).run()){
+                    report.append(String.format(" %10.2f ops/us", r.getPrimaryResult().getScore()));
+                }
+            }
+            report.append(System.lineSeparator());
+            if(threads == processors) break;
+        }
+        System.out.print(report);
+    }
+}
@@ -0,0 +1,152 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.ConcurrentPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress test of the ConcurrentPlayingDeck.
+ *
+ * <p>
+ *     A number of threads (the first argument, by default twice the number of
+ *     processors) hammer one shoe (the second argument, by default 2 decks)
+ *     for a number of seconds (the third argument, by default 5) with a
+ *     random mix of draws, draws from the discard pile, shuffles and
+ *     discards. Every card drawn is put on a shared queue twice, and whichever
+ *     threads take the two copies both try to discard it, so that each card
+ *     is raced for by two threads. The test fails if any card is discarded
+ *     more or less than once, if any discard of a card that should be valid
+ *     is refused, or if the deck does not hold exactly the cards it started
+ *     with when the threads have finished.
+ * </p>
+ */
+public class ConcurrentDeckStress {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 2 * Runtime.getRuntime().availableProcessors();
+        int decks = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+        IPlayingDeck deck = new ConcurrentPlayingDeck(DeckFixtures.frenchCards(decks));
+        deck.shuffle();
+
+        AtomicLong drawn = new AtomicLong();
+        AtomicLong discarded = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        AtomicLong shuffled = new AtomicLong();
+        AtomicLong invalidEvents = new AtomicLong();
+        deck.getEventManager().addDeckShuffledListener(d -> shuffled.incrementAndGet());
+        deck.getEventManager().addInvalidDiscardListener(d -> invalidEvents.incrementAndGet());
+
+        // Each drawn card is queued twice; both copies are raced to the deck
+        ConcurrentLinkedQueue<IPlayingCard> returns = new ConcurrentLinkedQueue<>();
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        SplittableRandom seeds = new SplittableRandom();
+        for(int t = 0; t < threads; t++){
+            SplittableRandom random = seeds.split();
+            workers[t] = new Thread(() -> {
+                awaitQuietly(start);
+                while(System.nanoTime() < deadline){
+                    int action = random.nextInt(100);
+                    if(action < 45){
+                        IPlayingCard c = action < 40 ? deck.drawCard() : deck.drawDiscard();
+                        if(c != null){
+                            drawn.incrementAndGet();
+                            returns.offer(c);
+                            returns.offer(c);
+                        }
+                    } else if(action < 99){
+                        IPlayingCard c = returns.poll();
+                        if(c != null){
+                            if(deck.discardCard(c)){
+                                discarded.incrementAndGet();
+                            } else {
+                                refused.incrementAndGet();
+                            }
+                        }
+                    } else {
+                        deck.shuffle(random.nextInt(4));
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for(Thread w : workers){
+            w.join();
+        }
+
+        // Return what is still queued, then account for every card
+        for(IPlayingCard c; (c = returns.poll()) != null; ){
+            if(deck.discardCard(c)){
+                discarded.incrementAndGet();
+            } else {
+                refused.incrementAndGet();
+            }
+        }
+
+        long failures = 0;
+        if(discarded.get() != drawn.get()){
+            System.out.printf("Drawn %,d cards but discarded %,d%n", drawn.get(), discarded.get());
+            failures++;
+        }
+        if(refused.get() != drawn.get() || invalidEvents.get() != refused.get()){
+            System.out.printf("Expected %,d refused discards and events, saw %,d and %,d%n",
+                    drawn.get(), refused.get(), invalidEvents.get());
+            failures++;
+        }
+        if(deck.outstandingSize() != 0 || deck.drawPileSize() + deck.discardPileSize() != deck.totalSize()){
+            System.out.printf("Pile sizes do not add up: draw %d, discard %d, outstanding %d, total %d%n",
+                    deck.drawPileSize(), deck.discardPileSize(), deck.outstandingSize(), deck.totalSize());
+            failures++;
+        }
+
+        // Draw the whole deck and check that each card is present once per deck
+        int[] counts = new int[BitmaskOperations.NUMBER_OF_CARDS];
+        IPlayingCard[] all = new IPlayingCard[deck.totalSize()];
+        for(int i = 0; i < all.length; i++){
+            all[i] = deck.drawCard();
+            if(all[i] == null){
+                System.out.println("The deck ran out after " + i + " cards");
+                failures++;
+                break;
+            }
+            counts[BitmaskOperations.cardNumber(all[i])]++;
+        }
+        for(int n = 0; n < counts.length; n++){
+            if(counts[n] != decks){
+                System.out.printf("Card %d is present %d times%n", n, counts[n]);
+                failures++;
+            }
+        }
+        if(deck.drawCard() != null){
+            System.out.println("The deck issued more cards than it holds");
+            failures++;
+        }
+        for(IPlayingCard c : all){
+            if(c != null) deck.discardCard(c);
+        }
+
+        System.out.printf("%d threads, %d seconds: %,d draws, %,d shuffles, %,d refused double discards%n",
+                threads, seconds, drawn.get(), shuffled.get(), refused.get());
+        System.out.println(failures == 0 ? "PASSED" : "FAILED with " + failures + " failures");
+        if(failures != 0) System.exit(1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch){
+        try {
+            latch.await();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the basic deck operations.
+ *
+ * <p>
+ *     The deck is parameterized by type (see DeckFixtures) and by the number
+ *     of listeners attached to each deck event. Draw and discard are measured
+ *     as pairs so that the deck returns to the same state after every call.
+ *     The validate benchmark holds all but a few of the cards, which is the
+ *     state of a shoe late in play. Shuffling is measured in ShuffleBenchmark.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+
+    @Param({"FRENCH", "PINOCHLE", "SHOE_2", "SHOE_8", "PLAYING_SHOE_8"})
+    public String deckType;
+
+    @Param({"0", "1", "8"})
+    public int listeners;
+
+    private static final IPlayingCard FOREIGN_CARD = DeckFixtures.frenchCards(1).get(0);
+
+    private IPlayingDeck deck;
+    private IPlayingCard[] held;
+    private int next;
+    private long events;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.deck = DeckFixtures.newDeck(this.deckType);
+        DeckFixtures.addListeners(this.deck, this.listeners, d -> this.events++);
+
+        // Hold all but a handful of cards, so validation has a full outstanding list to search
+        this.held = new IPlayingCard[this.deck.totalSize() - 4];
+        for(int i = 0; i < this.held.length; i++){
+            this.held[i] = this.deck.drawCard();
+        }
+    }
+
+    @Benchmark
+    public boolean drawCardThenDiscard(){
+        IPlayingCard c = this.deck.drawCard();
+        return this.deck.discardCard(c);
+    }
+
+    @Benchmark
+    public boolean discardThenDrawDiscard(){
+        // Return one of the held cards, then take it straight back
+        int i = this.nextHeld();
+        this.deck.discardCard(this.held[i]);
+        this.held[i] = this.deck.drawDiscard();
+        return this.held[i] != null;
+    }
+
+    @Benchmark
+    public boolean validateOutstandingCard(){
+        return this.deck.validateOutstandingCard(this.held[this.nextHeld()]);
+    }
+
+    @Benchmark
+    public boolean invalidDiscard(){
+        // A card that was never issued by the deck
+        return this.deck.discardCard(FOREIGN_CARD);
+    }
+
+    private int nextHeld(){
+        this.next = this.next + 1 == this.held.length ? 0 : this.next + 1;
+        return this.next;
+    }
+}
@@ -0,0 +1,81 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.BasePlayingDeck;
+import com.cpbonnell.cards.PlayingCards.IDeckEventRegistrar;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.PlayingCards.PlayingShoe;
+import com.cpbonnell.cards.PlayingCards.Ranks;
+import com.cpbonnell.cards.PlayingCards.Suits;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Builds the decks that the benchmarks are parameterized over.
+ *
+ * <p>
+ *     Deck types are named by strings so they can be used directly as JMH
+ *     parameters: "FRENCH" is the standard 52 card deck, "PINOCHLE" is the 48
+ *     card Pinochle deck, "SHOE_n" is a BasePlayingDeck of n French decks and
+ *     "PLAYING_SHOE_n" is a PlayingShoe of n decks with its cut card three
+ *     quarters of the way in.
+ * </p>
+ */
+public abstract class DeckFixtures {
+
+    // Make non-instantiable
+    private DeckFixtures() {
+
+    }
+
+    public static IPlayingDeck newDeck(String deckType){
+        if(deckType.equals("FRENCH")){
+            return BasePlayingDeck.newStandardFrenchDeck();
+        }
+        if(deckType.equals("PINOCHLE")){
+            return BasePlayingDeck.newPinochleDeck();
+        }
+        if(deckType.startsWith("SHOE_")){
+            IPlayingDeck deck = new BasePlayingDeck(frenchCards(Integer.parseInt(deckType.substring(5))));
+            deck.shuffle();
+            return deck;
+        }
+        if(deckType.startsWith("PLAYING_SHOE_")){
+            return new PlayingShoe(Integer.parseInt(deckType.substring(13)), 0.75);
+        }
+        throw new IllegalArgumentException("Unknown deck type: " + deckType);
+    }
+
+    public static List<IPlayingCard> frenchCards(int decks){
+        List<IPlayingCard> cards = new ArrayList<>();
+        for(int d = 0; d < decks; d++){
+            for(Suits s : Suits.values()){
+                for(Ranks r : Ranks.values()){
+                    cards.add(PlayingCard.valueOf(r, s));
+                }
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * Registers the given number of listeners on every event of the deck.
+     * @param deck The deck to listen to.
+     * @param count The number of listeners per event.
+     * @param listener The listener to register. It is wrapped once per
+     *                 registration so that each registration is distinct.
+     */
+    public static void addListeners(IPlayingDeck deck, int count, Consumer<IPlayingDeck> listener){
+        IDeckEventRegistrar events = deck.getEventManager();
+        for(int i = 0; i < count; i++){
+            events.addCardDrawnListener(d -> listener.accept(d));
+            events.addDiscardDrawnListener(d -> listener.accept(d));
+            events.addCardDiscardedListener(d -> listener.accept(d));
+            events.addDeckShuffledListener(d -> listener.accept(d));
+            events.addInvalidDiscardListener(d -> listener.accept(d));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.BasePlayingDeck;
+import com.cpbonnell.cards.PlayingCards.ConcurrentPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.DeckMetrics;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the cost of recording DeckMetrics.
+ *
+ * <p>
+ *     A draw and discard pair is measured on each deck type with metrics
+ *     off, which should cost nothing beyond a null check, and on, with and
+ *     without a listener attached to every event, since every listener call
+ *     is timed when metrics are on.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckMetricsBenchmark {
+
+    @Param({"BASE", "CONCURRENT"})
+    public String deckType;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    @Param({"0", "1"})
+    public int listeners;
+
+    private IPlayingDeck deck;
+    private long events;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        DeckMetrics m = this.metrics ? new DeckMetrics() : null;
+        if(this.deckType.equals("BASE")){
+            BasePlayingDeck d = (BasePlayingDeck) BasePlayingDeck.newStandardFrenchDeck();
+            d.setMetrics(m);
+            this.deck = d;
+        } else {
+            ConcurrentPlayingDeck d = (ConcurrentPlayingDeck) ConcurrentPlayingDeck.newStandardFrenchDeck();
+            d.setMetrics(m);
+            this.deck = d;
+        }
+        DeckFixtures.addListeners(this.deck, this.listeners, d -> this.events++);
+    }
+
+    @Benchmark
+    public boolean drawCardThenDiscard(){
+        IPlayingCard c = this.deck.drawCard();
+        return this.deck.discardCard(c);
+    }
+}
@@ -0,0 +1,68 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.BasePlayingDeck;
+import com.cpbonnell.cards.PlayingCards.ConcurrentPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.DeckPool;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks of starting a game on a new deck against one reset from a pool.
+ *
+ * <p>
+ *     Each game gets a deck, attaches nothing, deals a hold'em hand to six
+ *     players with a board, and is done with the deck. Run with "-prof gc"
+ *     to see the bytes allocated per game, most of which are otherwise the
+ *     arrays and helpers of a new deck.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckPoolBenchmark {
+
+    @Param({"BASE", "CONCURRENT"})
+    public String deckType;
+
+    @Param({"17"})
+    public int cardsPerGame;
+
+    private Supplier<IPlayingDeck> factory;
+    private DeckPool<IPlayingDeck> pool;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.factory = this.deckType.equals("BASE")
+                ? BasePlayingDeck::newStandardFrenchDeck
+                : ConcurrentPlayingDeck::newStandardFrenchDeck;
+        this.pool = new DeckPool<>(this.factory, 1);
+        this.pool.prefill(1);
+    }
+
+    @Benchmark
+    public int newDeckPerGame(){
+        return this.deal(this.factory.get());
+    }
+
+    @Benchmark
+    public int pooledDeckPerGame(){
+        IPlayingDeck deck = this.pool.acquire();
+        int dealt = this.deal(deck);
+        this.pool.release(deck);
+        return dealt;
+    }
+
+    private int deal(IPlayingDeck deck){
+        int dealt = 0;
+        for(int i = 0; i < this.cardsPerGame; i++){
+            if(deck.drawCard() != null) dealt++;
+        }
+        return dealt;
+    }
+}
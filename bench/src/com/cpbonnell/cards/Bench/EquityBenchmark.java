@@ -0,0 +1,70 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.Ranks;
+import com.cpbonnell.cards.PlayingCards.Suits;
+import com.cpbonnell.cards.PokerHands.EquityCalculator;
+import com.cpbonnell.cards.PokerHands.EquityResult;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of exact equity enumeration.
+ *
+ * <p>
+ *     Each call enumerates every runout of the spot: 1,712,304 for the
+ *     preflop heads-up spot and 903 for the three-way flop spot. Divide the
+ *     number of runouts by the time per call for runouts per second. The
+ *     "threads" parameter is the parallelism of the fork-join pool used.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EquityBenchmark {
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private static final int[][] HEADS_UP = {
+            {card(Ranks.ACE, Suits.SPADES), card(Ranks.KING, Suits.SPADES)},
+            {card(Ranks.QUEEN, Suits.HEARTS), card(Ranks.QUEEN, Suits.CLUBS)}};
+    private static final int[][] THREE_WAY = {
+            {card(Ranks.ACE, Suits.SPADES), card(Ranks.KING, Suits.SPADES)},
+            {card(Ranks.QUEEN, Suits.HEARTS), card(Ranks.QUEEN, Suits.CLUBS)},
+            {card(Ranks.JACK, Suits.DIAMONDS), card(Ranks.TEN, Suits.DIAMONDS)}};
+    private static final int[] FLOP = {
+            card(Ranks.QUEEN, Suits.SPADES), card(Ranks.NINE, Suits.DIAMONDS), card(Ranks.TWO, Suits.SPADES)};
+
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        // Zero threads means all processors
+        this.pool = new ForkJoinPool(this.threads > 0 ? this.threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        this.pool.shutdown();
+    }
+
+    @Benchmark
+    public EquityResult exactPreflopHeadsUp(){
+        return EquityCalculator.exact(HEADS_UP, new int[0], this.pool);
+    }
+
+    @Benchmark
+    public EquityResult exactFlopThreeWay(){
+        return EquityCalculator.exact(THREE_WAY, FLOP, this.pool);
+    }
+
+    private static int card(Ranks r, Suits s){
+        return BitmaskOperations.cardNumber(r, s);
+    }
+}
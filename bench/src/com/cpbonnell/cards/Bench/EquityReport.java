@@ -0,0 +1,62 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.Ranks;
+import com.cpbonnell.cards.PlayingCards.Suits;
+import com.cpbonnell.cards.PokerHands.EquityCalculator;
+import com.cpbonnell.cards.PokerHands.EquityResult;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Prints Monte Carlo equity estimates for a few well known spots, with the
+ * rate at which trials were run on one core and on all of them.
+ *
+ * <p>
+ *     The preflop spots have well known equities to compare against: aces
+ *     against kings is about 82% to 18%, and the classic coin flip of a pair
+ *     of twos against ace-king offsuit is close to 52% to 48%.
+ * </p>
+ */
+public class EquityReport {
+
+    public static void main(String[] args){
+        double target = args.length > 0 ? Double.parseDouble(args[0]) : 0.0005;
+        Duration budget = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 5);
+
+        int[][] acesKings = {
+                {card(Ranks.ACE, Suits.SPADES), card(Ranks.ACE, Suits.HEARTS)},
+                {card(Ranks.KING, Suits.CLUBS), card(Ranks.KING, Suits.DIAMONDS)}};
+        int[][] coinFlip = {
+                {card(Ranks.TWO, Suits.SPADES), card(Ranks.TWO, Suits.HEARTS)},
+                {card(Ranks.ACE, Suits.CLUBS), card(Ranks.KING, Suits.DIAMONDS)}};
+        int[][] threeWay = {
+                {card(Ranks.ACE, Suits.SPADES), card(Ranks.KING, Suits.SPADES)},
+                {card(Ranks.QUEEN, Suits.HEARTS), card(Ranks.QUEEN, Suits.CLUBS)},
+                {card(Ranks.JACK, Suits.DIAMONDS), card(Ranks.TEN, Suits.DIAMONDS)}};
+        int[] flop = {card(Ranks.QUEEN, Suits.SPADES), card(Ranks.NINE, Suits.DIAMONDS), card(Ranks.TWO, Suits.SPADES)};
+
+        report("AA vs KK, one core", acesKings, new int[0], target, budget, new ForkJoinPool(1));
+        report("AA vs KK", acesKings, new int[0], target, budget, ForkJoinPool.commonPool());
+        report("22 vs AKo", coinFlip, new int[0], target, budget, ForkJoinPool.commonPool());
+        report("AKs vs QQ vs JTs on Qs9d2s", threeWay, flop, target, budget, ForkJoinPool.commonPool());
+    }
+
+    private static void report(String name, int[][] holeCards, int[] board, double target, Duration budget,
+                               ForkJoinPool pool){
+        EquityResult r = EquityCalculator.monteCarlo(holeCards, board, target, budget,
+                pool, new SplittableRandom());
+        System.out.printf("%s: %,d trials in %.2f s, %,.0f trials per second%n",
+                name, r.trials(), r.elapsedNanos() / 1e9, r.trialsPerSecond());
+        for(int p = 0; p < r.players(); p++){
+            System.out.printf("  player %d: equity %.4f +/- %.4f (win %.4f, tie %.4f)%n",
+                    p, r.equity(p), r.standardError(p), r.winProbability(p), r.tieProbability(p));
+        }
+    }
+
+    private static int card(Ranks r, Suits s){
+        return BitmaskOperations.cardNumber(r, s);
+    }
+}
@@ -0,0 +1,134 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.PokerHands.EquityCalculator;
+import com.cpbonnell.cards.PokerHands.EquityResult;
+import com.cpbonnell.cards.PokerHands.PokerHandMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks exact equity against a slow enumeration built on PokerHandMetadata.
+ *
+ * <p>
+ *     For a number of random spots (the first argument, by default 20), with
+ *     two or three players and a random flop, every turn and river is dealt
+ *     and each player's best five cards are picked from their seven with
+ *     PokerHandMetadata.compareTo, which also decides the winner. The
+ *     equities found this way must equal those of EquityCalculator.exact.
+ *     The exact preflop equity of one heads-up spot is then timed.
+ * </p>
+ */
+public class ExactEquityCheck {
+
+    public static void main(String[] args){
+        int spots = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        SplittableRandom random = new SplittableRandom(7);
+
+        long mismatches = 0;
+        for(int s = 0; s < spots; s++){
+            int players = 2 + random.nextInt(2);
+            int[] cards = dealDistinct(random, 2 * players + 3);
+            int[][] holeCards = new int[players][];
+            for(int p = 0; p < players; p++){
+                holeCards[p] = new int[]{cards[2 * p], cards[2 * p + 1]};
+            }
+            int[] flop = {cards[2 * players], cards[2 * players + 1], cards[2 * players + 2]};
+
+            EquityResult exact = EquityCalculator.exact(holeCards, flop);
+            double[] expected = equityByMetadata(holeCards, flop);
+            for(int p = 0; p < players; p++){
+                if(Math.abs(exact.equity(p) - expected[p]) > 1e-12){
+                    System.out.printf("Spot %d player %d: exact %.6f, metadata %.6f%n",
+                            s, p, exact.equity(p), expected[p]);
+                    mismatches++;
+                }
+            }
+        }
+        System.out.println(spots + " flop spots checked, mismatches: " + mismatches);
+
+        int[][] headsUp = {dealDistinct(random, 2), null};
+        do {
+            headsUp[1] = dealDistinct(random, 2);
+        } while(headsUp[1][0] == headsUp[0][0] || headsUp[1][0] == headsUp[0][1]
+                || headsUp[1][1] == headsUp[0][0] || headsUp[1][1] == headsUp[0][1]);
+        for(int i = 0; i < 3; i++){
+            EquityResult r = EquityCalculator.exact(headsUp, new int[0]);
+            System.out.printf("Preflop heads-up: %,d runouts in %.1f ms, %,.0f runouts per second, equity %.5f%n",
+                    r.trials(), r.elapsedNanos() / 1e6, r.trialsPerSecond(), r.equity(0));
+        }
+
+        System.out.println(mismatches == 0 ? "PASSED" : "FAILED with " + mismatches + " mismatches");
+        if(mismatches != 0) System.exit(1);
+    }
+
+    private static double[] equityByMetadata(int[][] holeCards, int[] flop){
+        int players = holeCards.length;
+        long used = 0;
+        for(int[] h : holeCards) used |= (1L << h[0]) | (1L << h[1]);
+        for(int c : flop) used |= 1L << c;
+
+        double[] shares = new double[players];
+        long runouts = 0;
+        for(int turn = 0; turn < 52; turn++){
+            if((used & (1L << turn)) != 0) continue;
+            for(int river = turn + 1; river < 52; river++){
+                if((used & (1L << river)) != 0) continue;
+
+                PokerHandMetadata[] best = new PokerHandMetadata[players];
+                for(int p = 0; p < players; p++){
+                    int[] seven = {holeCards[p][0], holeCards[p][1], flop[0], flop[1], flop[2], turn, river};
+                    best[p] = bestFive(seven);
+                }
+                PokerHandMetadata top = best[0];
+                for(PokerHandMetadata m : best){
+                    if(m.compareTo(top) > 0) top = m;
+                }
+                int winners = 0;
+                for(PokerHandMetadata m : best){
+                    if(m.compareTo(top) == 0) winners++;
+                }
+                for(int p = 0; p < players; p++){
+                    if(best[p].compareTo(top) == 0) shares[p] += 1.0 / winners;
+                }
+                runouts++;
+            }
+        }
+        for(int p = 0; p < players; p++){
+            shares[p] /= runouts;
+        }
+        return shares;
+    }
+
+    private static PokerHandMetadata bestFive(int[] seven){
+        PokerHandMetadata best = null;
+        for(int skip1 = 0; skip1 < 7; skip1++){
+            for(int skip2 = skip1 + 1; skip2 < 7; skip2++){
+                List<IPlayingCard> hand = new ArrayList<>(5);
+                for(int i = 0; i < 7; i++){
+                    if(i != skip1 && i != skip2) hand.add(PlayingCard.valueOf(seven[i]));
+                }
+                PokerHandMetadata meta = new PokerHandMetadata(hand);
+                if(best == null || meta.compareTo(best) > 0) best = meta;
+            }
+        }
+        return best;
+    }
+
+    private static int[] dealDistinct(SplittableRandom random, int n){
+        int[] deck = new int[52];
+        for(int i = 0; i < deck.length; i++) deck[i] = i;
+        for(int i = 0; i < n; i++){
+            int j = i + random.nextInt(deck.length - i);
+            int c = deck[j];
+            deck[j] = deck[i];
+            deck[i] = c;
+        }
+        int[] dealt = new int[n];
+        System.arraycopy(deck, 0, dealt, 0, n);
+        return dealt;
+    }
+}
@@ -0,0 +1,91 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.PlayingCards.Ranks;
+import com.cpbonnell.cards.PlayingCards.Suits;
+import com.cpbonnell.cards.PokerHands.HandCensus;
+import com.cpbonnell.cards.PokerHands.HandEnumerator;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Prints the hand class census of several decks, and checks the counts
+ * built into PokerHandClass against the census of a standard French deck.
+ *
+ * <p>
+ *     The French deck is enumerated both on one core and on the common
+ *     pool, so the report shows the speedup of the parallel enumeration.
+ *     The other decks are a Pinochle deck, with its duplicate cards, and a
+ *     36 card "short deck" stripped of the ranks TWO to FIVE.
+ * </p>
+ */
+public class HandCensusReport {
+
+    public static void main(String[] args){
+        List<IPlayingCard> french = DeckFixtures.frenchCards(1);
+
+        long start = System.nanoTime();
+        HandCensus single = HandEnumerator.enumerate(french, new ForkJoinPool(1));
+        double singleMs = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        HandCensus census = HandEnumerator.enumerate(french);
+        double parallelMs = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("French deck: %.1f ms on 1 core, %.1f ms on %d cores%n",
+                singleMs, parallelMs, ForkJoinPool.getCommonPoolParallelism());
+        print(census);
+
+        long mismatches = 0;
+        for(PokerHandClass c : PokerHandClass.values()){
+            if(census.count(c) != single.count(c) || census.probability(c) != c.probability()){
+                System.out.printf("Mismatch for %s: built in %.8f, enumerated %.8f%n",
+                        c, c.probability(), census.probability(c));
+                mismatches++;
+            }
+        }
+
+        System.out.println("Pinochle deck:");
+        print(HandEnumerator.enumerate(pinochleCards()));
+        System.out.println("Short deck (SIX to ACE):");
+        print(HandEnumerator.enumerate(strippedCards(Ranks.SIX)));
+
+        System.out.println(mismatches == 0 ? "PASSED" : "FAILED with " + mismatches + " mismatches");
+        if(mismatches != 0) System.exit(1);
+    }
+
+    private static void print(HandCensus census){
+        System.out.printf("  %-15s %12s %12s %8s%n", "class", "hands", "probability", "classes");
+        for(PokerHandClass c : PokerHandClass.values()){
+            System.out.printf("  %-15s %,12d %12.8f %8d%n",
+                    c, census.count(c), census.probability(c), census.equivalenceClasses(c));
+        }
+        System.out.printf("  %-15s %,12d %12s %8d%n", "total", census.totalHands(), "", census.equivalenceClasses());
+    }
+
+    private static List<IPlayingCard> pinochleCards(){
+        Ranks[] ranks = {Ranks.ACE, Ranks.KING, Ranks.QUEEN, Ranks.JACK, Ranks.TEN, Ranks.NINE};
+        List<IPlayingCard> cards = new ArrayList<>();
+        for(Suits s : Suits.values()){
+            for(Ranks r : ranks){
+                cards.add(PlayingCard.valueOf(r, s));
+                cards.add(PlayingCard.valueOf(r, s));
+            }
+        }
+        return cards;
+    }
+
+    private static List<IPlayingCard> strippedCards(Ranks lowest){
+        List<IPlayingCard> cards = new ArrayList<>();
+        for(Suits s : Suits.values()){
+            for(Ranks r : Ranks.values()){
+                if(r.compareTo(lowest) >= 0) cards.add(PlayingCard.valueOf(r, s));
+            }
+        }
+        return cards;
+    }
+}
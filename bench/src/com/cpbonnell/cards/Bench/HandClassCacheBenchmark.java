@@ -0,0 +1,112 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.PokerHands.HandClassCache;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+import com.cpbonnell.cards.PokerHands.SevenCardEvaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of classifying hands with and without a HandClassCache.
+ *
+ * <p>
+ *     The workload is a stream of hands drawn from a fixed pool with a
+ *     skewed, roughly Zipf distribution, the way replays and re-scoring
+ *     revisit the same hands. "classifyFive" classifies five card hands
+ *     through PokerHandClass.classifyHand with the given cache installed, or
+ *     none; "strengthSeven" ranks seven card hands through the cache, or
+ *     straight through the SevenCardEvaluator. The cache holds "capacity"
+ *     entries. Scores are batches per second, so multiply by the "hands"
+ *     parameter for hands per second.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandClassCacheBenchmark {
+
+    private static final int POOL = 200000;
+
+    @Param({"NONE", "LRU", "TINY_LFU"})
+    public String eviction;
+
+    @Param({"4096"})
+    public int capacity;
+
+    @Param({"100000"})
+    public int hands;
+
+    private HandClassCache cache;
+    private List<List<IPlayingCard>> fives;
+    private int[] sevens;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        if( ! this.eviction.equals("NONE")){
+            this.cache = new HandClassCache(this.capacity, HandClassCache.Eviction.valueOf(this.eviction));
+        }
+        PokerHandClass.setClassificationCache(this.cache);
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] deck = new int[52];
+        for(int i = 0; i < deck.length; i++) deck[i] = i;
+
+        this.fives = new ArrayList<>(this.hands);
+        this.sevens = new int[this.hands * 7];
+        for(int h = 0; h < this.hands; h++){
+            // Pick a hand of the pool, favouring low numbered hands, and deal it from its own seed
+            long rank = (long) Math.floor(Math.pow(POOL, random.nextDouble()));
+            SplittableRandom dealer = new SplittableRandom(rank);
+            for(int i = 0; i < 7; i++){
+                int j = i + dealer.nextInt(deck.length - i);
+                int c = deck[j];
+                deck[j] = deck[i];
+                deck[i] = c;
+                this.sevens[h * 7 + i] = c;
+            }
+            List<IPlayingCard> hand = new ArrayList<>(5);
+            for(int i = 0; i < 5; i++){
+                hand.add(PlayingCard.valueOf(deck[i]));
+            }
+            this.fives.add(hand);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        PokerHandClass.setClassificationCache(null);
+        if(this.cache != null){
+            System.out.println();
+            System.out.println(this.cache);
+        }
+    }
+
+    @Benchmark
+    public int classifyFive(){
+        int sum = 0;
+        for(List<IPlayingCard> hand : this.fives){
+            sum += PokerHandClass.classifyHand(hand).ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int strengthSeven(){
+        int sum = 0;
+        for(int h = 0; h < this.hands; h++){
+            sum += this.cache == null
+                    ? SevenCardEvaluator.evaluate(this.sevens, h * 7, 7)
+                    : this.cache.strength(this.sevens, h * 7, 7);
+        }
+        return sum;
+    }
+}
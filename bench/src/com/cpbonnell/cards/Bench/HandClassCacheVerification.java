@@ -0,0 +1,180 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.PlayingCards.Ranks;
+import com.cpbonnell.cards.PlayingCards.Suits;
+import com.cpbonnell.cards.PokerHands.HandClassCache;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+import com.cpbonnell.cards.PokerHands.SevenCardEvaluator;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that a HandClassCache gives the same answers as evaluating each hand.
+ *
+ * <p>
+ *     The check runs in three stages. First, for each eviction policy and
+ *     capacities from a single entry to more than the hands looked up, random
+ *     hands of five to seven distinct cards are ranked through the cache and
+ *     by the SevenCardEvaluator, which must agree, and the cache must never
+ *     hold more entries than its capacity. The hands are dealt from the front
+ *     of the deck, so that they recur and entries are both hit and evicted.
+ *     Then random five card hands from a French deck and from a Pinochle deck
+ *     are classified with PokerHandClass.classifyHand, with and without a
+ *     cache installed, which must give the same classes; Pinochle hands that
+ *     repeat a card must not reach the cache. Last, the cache must refuse
+ *     hands that repeat a card.
+ * </p>
+ */
+public class HandClassCacheVerification {
+
+    private static final int[] CAPACITIES = {1, 7, 64, 200, 5000};
+    private static final int LOOKUPS = 500_000;
+    private static final int HANDS = 20_000;
+
+    public static void main(String[] args){
+        long mismatches = checkStrengths();
+        mismatches += checkClassifyHand("French", frenchCardNumbers());
+        mismatches += checkClassifyHand("Pinochle", pinochleCardNumbers());
+        mismatches += checkRepeatedCards();
+
+        System.out.println(mismatches == 0 ? "PASSED" : "FAILED with " + mismatches + " mismatches");
+        if(mismatches != 0) System.exit(1);
+    }
+
+    private static long checkStrengths(){
+        long total = 0;
+        for(HandClassCache.Eviction eviction : HandClassCache.Eviction.values()){
+            for(int capacity : CAPACITIES){
+                HandClassCache cache = new HandClassCache(capacity, eviction);
+                SplittableRandom random = new SplittableRandom(capacity);
+                int[] deck = frenchCardNumbers();
+
+                long mismatches = 0;
+                for(int t = 0; t < LOOKUPS; t++){
+                    int length = 5 + random.nextInt(3);
+                    Arrays.sort(deck);
+                    deal(random, deck, length, 20 + random.nextInt(deck.length - 19));
+                    if(cache.strength(deck, 0, length) != SevenCardEvaluator.evaluate(deck, 0, length)){
+                        mismatches++;
+                    }
+                    if(cache.size() > cache.capacity()) mismatches++;
+                }
+                System.out.printf("%s, capacity %d: %,d lookups, mismatches: %d, %s%n",
+                        eviction, capacity, LOOKUPS, mismatches, cache);
+                total += mismatches;
+            }
+        }
+        return total;
+    }
+
+    private static long checkClassifyHand(String name, int[] deck){
+        SplittableRandom random = new SplittableRandom(deck.length);
+        List<List<IPlayingCard>> hands = new ArrayList<>(HANDS + 1);
+        for(int h = 0; h < HANDS; h++){
+            deal(random, deck, 5, deck.length);
+            List<IPlayingCard> hand = new ArrayList<>(5);
+            for(int i = 0; i < 5; i++){
+                hand.add(PlayingCard.valueOf(deck[i]));
+            }
+            hands.add(hand);
+        }
+        if(name.equals("Pinochle")){
+            hands.add(List.of(
+                    PlayingCard.valueOf(Ranks.ACE, Suits.SPADES), PlayingCard.valueOf(Ranks.ACE, Suits.SPADES),
+                    PlayingCard.valueOf(Ranks.KING, Suits.SPADES), PlayingCard.valueOf(Ranks.QUEEN, Suits.SPADES),
+                    PlayingCard.valueOf(Ranks.JACK, Suits.SPADES)));
+        }
+
+        HandClassCache previous = PokerHandClass.getClassificationCache();
+        PokerHandClass[] expected = new PokerHandClass[hands.size()];
+        HandClassCache cache = new HandClassCache(1024);
+        long mismatches = 0;
+        try {
+            PokerHandClass.setClassificationCache(null);
+            for(int h = 0; h < hands.size(); h++){
+                expected[h] = PokerHandClass.classifyHand(hands.get(h));
+            }
+            PokerHandClass.setClassificationCache(cache);
+            for(int h = 0; h < hands.size(); h++){
+                if(PokerHandClass.classifyHand(hands.get(h)) != expected[h]) mismatches++;
+            }
+        } finally {
+            PokerHandClass.setClassificationCache(previous);
+        }
+
+        long distinct = hands.stream().filter(HandClassCacheVerification::hasDistinctCards).count();
+        if(cache.hitCount() + cache.missCount() != distinct) mismatches++;
+        System.out.printf("%s hands classified with and without a cache: %,d, %,d of them looked up, mismatches: %d%n",
+                name, hands.size(), cache.hitCount() + cache.missCount(), mismatches);
+        return mismatches;
+    }
+
+    private static long checkRepeatedCards(){
+        HandClassCache cache = new HandClassCache(64);
+        int[] cards = {48, 48, 44, 40, 36, 20, 0};
+        List<IPlayingCard> hand = new ArrayList<>();
+        for(int i = 0; i < 5; i++){
+            hand.add(PlayingCard.valueOf(cards[i]));
+        }
+
+        long mismatches = 0;
+        for(int length = 5; length <= 7; length++){
+            try {
+                cache.strength(cards, 0, length);
+                mismatches++;
+            } catch(IllegalArgumentException e){
+                // Refused, as it should be
+            }
+        }
+        try {
+            cache.strength(hand);
+            mismatches++;
+        } catch(IllegalArgumentException e){
+            // Refused, as it should be
+        }
+        if(cache.size() != 0) mismatches++;
+        System.out.println("Hands that repeat a card refused by the cache, mismatches: " + mismatches);
+        return mismatches;
+    }
+
+    // Moves a random selection of count cards from the first span cards of the deck to its front
+    private static void deal(SplittableRandom random, int[] deck, int count, int span){
+        for(int i = 0; i < count; i++){
+            int j = i + random.nextInt(span - i);
+            int c = deck[j];
+            deck[j] = deck[i];
+            deck[i] = c;
+        }
+    }
+
+    private static boolean hasDistinctCards(List<IPlayingCard> hand){
+        return hand.stream().mapToInt(BitmaskOperations::cardNumber).distinct().count() == hand.size();
+    }
+
+    private static int[] frenchCardNumbers(){
+        int[] deck = new int[BitmaskOperations.NUMBER_OF_CARDS];
+        for(int i = 0; i < deck.length; i++){
+            deck[i] = i;
+        }
+        return deck;
+    }
+
+    // Two of each card from nine to ace, as in BasePlayingDeck.newPinochleDeck
+    private static int[] pinochleCardNumbers(){
+        int[] deck = new int[48];
+        int i = 0;
+        for(Suits s : Suits.values()){
+            for(int r = Ranks.NINE.ordinal(); r <= Ranks.ACE.ordinal(); r++){
+                deck[i++] = BitmaskOperations.cardNumber(Ranks.values()[r], s);
+                deck[i++] = BitmaskOperations.cardNumber(Ranks.values()[r], s);
+            }
+        }
+        return deck;
+    }
+}
@@ -0,0 +1,85 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+import com.cpbonnell.cards.PokerHands.PokerHandMetadata;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of poker hand classification and comparison.
+ *
+ * <p>
+ *     A fixed set of random five card hands is dealt once per trial, and
+ *     each invocation works on the next hand in the set, so that branch
+ *     prediction sees a realistic mix of hand classes.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandClassificationBenchmark {
+
+    private static final int HANDS = 1024;
+
+    private List<List<IPlayingCard>> hands;
+    private PokerHandMetadata[] metadata;
+    private int[] masks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Random rng = new Random(42);
+        List<IPlayingCard> deck = DeckFixtures.frenchCards(1);
+
+        this.hands = new ArrayList<>(HANDS);
+        this.metadata = new PokerHandMetadata[HANDS];
+        this.masks = new int[HANDS * 5];
+        for(int h = 0; h < HANDS; h++){
+            Collections.shuffle(deck, rng);
+            List<IPlayingCard> hand = new ArrayList<>(deck.subList(0, 5));
+            this.hands.add(hand);
+            this.metadata[h] = new PokerHandMetadata(hand);
+            for(int i = 0; i < 5; i++){
+                this.masks[h * 5 + i] = BitmaskOperations.cardMask(hand.get(i));
+            }
+        }
+    }
+
+    private int nextHand(){
+        this.next = (this.next + 1) & (HANDS - 1);
+        return this.next;
+    }
+
+    @Benchmark
+    public PokerHandMetadata metadataConstruction(){
+        return new PokerHandMetadata(this.hands.get(this.nextHand()));
+    }
+
+    @Benchmark
+    public PokerHandClass classifyHandList(){
+        return PokerHandClass.classifyHand(this.hands.get(this.nextHand()));
+    }
+
+    @Benchmark
+    public int compareTo(){
+        int h = this.nextHand();
+        return this.metadata[h].compareTo(this.metadata[(h + 1) & (HANDS - 1)]);
+    }
+
+    @Benchmark
+    public int evaluateFiveMasks(){
+        int i = this.nextHand() * 5;
+        int[] m = this.masks;
+        return BitmaskOperations.evaluateFive(m[i], m[i + 1], m[i + 2], m[i + 3], m[i + 4]);
+    }
+}
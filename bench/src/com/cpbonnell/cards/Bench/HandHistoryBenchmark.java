@@ -0,0 +1,161 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.HandHistory.HandHistoryReader;
+import com.cpbonnell.cards.HandHistory.HandHistoryWriter;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.PokerHands.BatchClassifier;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+import com.cpbonnell.cards.Utils.CardNotation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of scanning a file of hands and counting their classes.
+ *
+ * <p>
+ *     The same random five card hands are written once per trial to a binary
+ *     hand history file and to a text file holding one hand per line in
+ *     toChars notation. "scanBinary" reads the binary file through a
+ *     HandHistoryReader; "scanChars" reads the text file line by line as
+ *     Strings, and "scanCharBytes" reads it in large byte chunks and parses
+ *     the lines in place with CardNotation.parseHandLine. All of them
+ *     classify the hands in blocks with the BatchClassifier, so the
+ *     difference is the cost of the format and of the parsing. The "hands"
+ *     and "bytes" counters are reported as rates, giving hands per second
+ *     and file bytes per second.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandHistoryBenchmark {
+
+    private static final int BLOCK = 1 << 16;
+
+    @Param({"4000000"})
+    public int hands;
+
+    private Path binaryFile;
+    private Path charFile;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long hands;
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.binaryFile = Files.createTempFile("hands", ".pchh");
+        this.charFile = Files.createTempFile("hands", ".txt");
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] deck = new int[52];
+        for(int i = 0; i < deck.length; i++) deck[i] = i;
+
+        try(HandHistoryWriter binary = new HandHistoryWriter(this.binaryFile, 5);
+            BufferedWriter text = Files.newBufferedWriter(this.charFile, StandardCharsets.US_ASCII)){
+            for(int h = 0; h < this.hands; h++){
+                for(int i = 0; i < 5; i++){
+                    int j = i + random.nextInt(deck.length - i);
+                    int c = deck[j];
+                    deck[j] = deck[i];
+                    deck[i] = c;
+                    text.write(PlayingCard.valueOf(c).toChars());
+                }
+                text.newLine();
+                binary.writeHand(deck, 0);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.binaryFile);
+        Files.deleteIfExists(this.charFile);
+    }
+
+    @Benchmark
+    public long[] scanBinary(Throughput t) throws IOException {
+        try(HandHistoryReader reader = new HandHistoryReader(this.binaryFile)){
+            long[] counts = reader.classCounts();
+            t.hands += reader.handsRead();
+            t.bytes += reader.fileSize();
+            return counts;
+        }
+    }
+
+    @Benchmark
+    public long[] scanChars(Throughput t) throws IOException {
+        int[] cards = new int[BLOCK * 5];
+        int[] strengths = new int[BLOCK];
+        byte[] classes = new byte[BLOCK];
+        long[] counts = new long[PokerHandClass.values().length];
+
+        try(BufferedReader reader = Files.newBufferedReader(this.charFile, StandardCharsets.US_ASCII)){
+            int n = 0;
+            for(String line; (line = reader.readLine()) != null; ){
+                CardNotation.parseHand(line, 0, 5, cards, n * 5);
+                if(++n == BLOCK){
+                    count(cards, n, strengths, classes, counts);
+                    n = 0;
+                }
+                t.hands++;
+            }
+            count(cards, n, strengths, classes, counts);
+        }
+        t.bytes += Files.size(this.charFile);
+        return counts;
+    }
+
+    @Benchmark
+    public long[] scanCharBytes(Throughput t) throws IOException {
+        int[] cards = new int[BLOCK * 5];
+        int[] strengths = new int[BLOCK];
+        byte[] classes = new byte[BLOCK];
+        long[] counts = new long[PokerHandClass.values().length];
+        byte[] chunk = new byte[1 << 20];
+
+        try(InputStream in = Files.newInputStream(this.charFile)){
+            int n = 0;
+            int limit = 0;
+            for(int read; (read = in.read(chunk, limit, chunk.length - limit)) > 0; ){
+                limit += read;
+                int offset = 0;
+                for(int next; (next = CardNotation.parseHandLine(chunk, offset, limit, 5, cards, n * 5)) >= 0; ){
+                    offset = next;
+                    if(++n == BLOCK){
+                        count(cards, n, strengths, classes, counts);
+                        n = 0;
+                    }
+                    t.hands++;
+                }
+                System.arraycopy(chunk, offset, chunk, 0, limit - offset);
+                limit -= offset;
+            }
+            count(cards, n, strengths, classes, counts);
+        }
+        t.bytes += Files.size(this.charFile);
+        return counts;
+    }
+
+    private static void count(int[] cards, int n, int[] strengths, byte[] classes, long[] counts){
+        BatchClassifier.classify(cards, 5, n, strengths, classes);
+        for(int i = 0; i < n; i++){
+            counts[classes[i]]++;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.HandHistory.HandHistoryFormat;
+import com.cpbonnell.cards.HandHistory.HandHistoryReader;
+import com.cpbonnell.cards.HandHistory.HandHistoryWriter;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+import com.cpbonnell.cards.PokerHands.SevenCardEvaluator;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Round trip check of the binary hand history format.
+ *
+ * <p>
+ *     For every number of cards per hand from 1 to 9, and several block
+ *     sizes, files of random hands are written with a HandHistoryWriter: an
+ *     empty file, one hand, one full block, two full blocks and one hand, and
+ *     a few thousand hands. Each file must match, byte for byte, the file
+ *     laid out by a slow encoder here that follows the description in
+ *     HandHistoryFormat bit by bit, so a change to the format that is not
+ *     also made to its description (and its VERSION) fails the check. The
+ *     file is then read back with a HandHistoryReader, twice with a rewind in
+ *     between, and must give back the same hands. Files of five to seven
+ *     distinct cards are also classified with classCounts, which must agree
+ *     with classifying each hand on its own. Last, files laid out by the slow
+ *     encoder with a six bit field that is not a card number, from 52 to 63,
+ *     must be refused by the reader with an IOException.
+ * </p>
+ */
+public class HandHistoryVerification {
+
+    private static final int[] BLOCK_SIZES = {1, 3, 64, 1000};
+
+    public static void main(String[] args) throws IOException {
+        SplittableRandom random = new SplittableRandom(3);
+        Path file = Files.createTempFile("hand-history", ".bin");
+
+        long mismatches = 0;
+        try {
+            for(int cardsPerHand = 1; cardsPerHand <= HandHistoryFormat.MAX_CARDS_PER_HAND; cardsPerHand++){
+                long before = mismatches;
+                int files = 0;
+                for(int blockSize : BLOCK_SIZES){
+                    int[] handCounts = {0, 1, blockSize, 2 * blockSize + 1, 2500 + random.nextInt(100)};
+                    for(int hands : handCounts){
+                        int[] cards = randomHands(random, hands, cardsPerHand);
+                        mismatches += checkFile(file, cards, hands, cardsPerHand, blockSize);
+                        files++;
+                    }
+                }
+                System.out.printf("%d cards per hand: %d files checked, mismatches: %d%n",
+                        cardsPerHand, files, mismatches - before);
+            }
+            mismatches += checkCorrupt(file, random);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        System.out.println(mismatches == 0 ? "PASSED" : "FAILED with " + mismatches + " mismatches");
+        if(mismatches != 0) System.exit(1);
+    }
+
+    private static long checkFile(Path file, int[] cards, int hands, int cardsPerHand, int blockSize)
+            throws IOException {
+        try(HandHistoryWriter writer = new HandHistoryWriter(file, cardsPerHand, blockSize)){
+            for(int h = 0; h < hands; h++){
+                writer.writeHand(cards, h * cardsPerHand);
+            }
+        }
+
+        long mismatches = 0;
+        if( ! Arrays.equals(Files.readAllBytes(file), encode(cards, hands, cardsPerHand, blockSize)) ){
+            System.out.printf("%d cards per hand, blocks of %d, %d hands: the file is not laid out as described%n",
+                    cardsPerHand, blockSize, hands);
+            mismatches++;
+        }
+
+        try(HandHistoryReader reader = new HandHistoryReader(file)){
+            if(reader.cardsPerHand() != cardsPerHand || reader.maxHandsPerBlock() != blockSize){
+                mismatches++;
+            }
+            for(int pass = 0; pass < 2; pass++){
+                mismatches += readBack(reader, cards, hands, cardsPerHand);
+                reader.rewind();
+            }
+        }
+
+        if(cardsPerHand >= 5 && cardsPerHand <= 7){
+            int[] distinct = new int[cards.length];
+            SplittableRandom random = new SplittableRandom(hands);
+            for(int h = 0; h < hands; h++){
+                dealDistinct(random, distinct, h * cardsPerHand, cardsPerHand);
+            }
+            mismatches += checkClassCounts(file, distinct, hands, cardsPerHand, blockSize);
+        }
+        return mismatches;
+    }
+
+    private static long readBack(HandHistoryReader reader, int[] cards, int hands, int cardsPerHand)
+            throws IOException {
+        long mismatches = 0;
+        int[] block = new int[reader.maxHandsPerBlock() * cardsPerHand];
+        int read = 0;
+        for(int n; (n = reader.nextBlock(block)) >= 0; ){
+            for(int i = 0; i < n * cardsPerHand; i++){
+                if(read * cardsPerHand + i >= cards.length || block[i] != cards[read * cardsPerHand + i]){
+                    mismatches++;
+                }
+            }
+            read += n;
+        }
+        if(read != hands || reader.handsRead() != hands){
+            mismatches++;
+        }
+        return mismatches;
+    }
+
+    private static long checkClassCounts(Path file, int[] cards, int hands, int cardsPerHand, int blockSize)
+            throws IOException {
+        try(HandHistoryWriter writer = new HandHistoryWriter(file, cardsPerHand, blockSize)){
+            for(int h = 0; h < hands; h++){
+                writer.writeHand(cards, h * cardsPerHand);
+            }
+        }
+
+        long[] expected = new long[PokerHandClass.values().length];
+        for(int h = 0; h < hands; h++){
+            int strength = SevenCardEvaluator.evaluate(cards, h * cardsPerHand, cardsPerHand);
+            expected[PokerHandClass.fromStrength(strength).ordinal()]++;
+        }
+        try(HandHistoryReader reader = new HandHistoryReader(file)){
+            return Arrays.equals(reader.classCounts(), expected) ? 0 : 1;
+        }
+    }
+
+    // Files that hold one value from 52 to 63 among valid cards, which both
+    // nextBlock and classCounts must refuse
+    private static long checkCorrupt(Path file, SplittableRandom random) throws IOException {
+        long mismatches = 0;
+        int files = 0;
+        for(int value = BitmaskOperations.NUMBER_OF_CARDS; value < 1 << HandHistoryFormat.BITS_PER_CARD; value++){
+            for(int cardsPerHand = 5; cardsPerHand <= 7; cardsPerHand++){
+                int hands = 1 + random.nextInt(200);
+                int[] cards = randomHands(random, hands, cardsPerHand);
+                cards[random.nextInt(cards.length)] = value;
+                Files.write(file, encode(cards, hands, cardsPerHand, 64));
+
+                try(HandHistoryReader reader = new HandHistoryReader(file)){
+                    int[] block = new int[reader.maxHandsPerBlock() * cardsPerHand];
+                    if(accepted(() -> { while(reader.nextBlock(block) >= 0); })) mismatches++;
+                    reader.rewind();
+                    if(accepted(reader::classCounts)) mismatches++;
+                }
+                files++;
+            }
+        }
+        System.out.printf("Files with values that are not cards: %d checked, accepted: %d%n", files, mismatches);
+        return mismatches;
+    }
+
+    private interface Read {
+        void run() throws IOException;
+    }
+
+    // Tells whether the read went through without an IOException
+    private static boolean accepted(Read read){
+        try {
+            read.run();
+            return true;
+        } catch(IOException e){
+            return false;
+        }
+    }
+
+    // Lays out a file as HandHistoryFormat describes it, one bit at a time
+    private static byte[] encode(int[] cards, int hands, int cardsPerHand, int blockSize){
+        int blocks = (hands + blockSize - 1) / blockSize;
+        int size = HandHistoryFormat.HEADER_BYTES;
+        for(int b = 0; b < blocks; b++){
+            int n = Math.min(blockSize, hands - b * blockSize);
+            size += HandHistoryFormat.BLOCK_HEADER_BYTES + HandHistoryFormat.payloadBytes(n, cardsPerHand);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(HandHistoryFormat.MAGIC)
+                .putShort(HandHistoryFormat.VERSION)
+                .putShort((short) cardsPerHand)
+                .putInt(blockSize)
+                .putInt(0);
+
+        for(int b = 0; b < blocks; b++){
+            int first = b * blockSize;
+            int n = Math.min(blockSize, hands - first);
+            int payload = HandHistoryFormat.payloadBytes(n, cardsPerHand);
+            out.putInt(n).putInt(payload);
+
+            // The payload is little endian words, so bit k of the stream is bit
+            // k % 8 of byte k / 8
+            byte[] bytes = new byte[payload];
+            long bit = 0;
+            for(int i = first * cardsPerHand; i < (first + n) * cardsPerHand; i++){
+                for(int j = 0; j < HandHistoryFormat.BITS_PER_CARD; j++, bit++){
+                    if((cards[i] >>> j & 1) != 0){
+                        bytes[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+                    }
+                }
+            }
+            out.put(bytes);
+        }
+        return out.array();
+    }
+
+    private static int[] randomHands(SplittableRandom random, int hands, int cardsPerHand){
+        int[] cards = new int[hands * cardsPerHand];
+        for(int i = 0; i < cards.length; i++){
+            cards[i] = random.nextInt(BitmaskOperations.NUMBER_OF_CARDS);
+        }
+        return cards;
+    }
+
+    private static void dealDistinct(SplittableRandom random, int[] cards, int offset, int count){
+        long dealt = 0;
+        for(int i = 0; i < count; i++){
+            int c;
+            do {
+                c = random.nextInt(BitmaskOperations.NUMBER_OF_CARDS);
+            } while((dealt & (1L << c)) != 0);
+            dealt |= 1L << c;
+            cards[offset + i] = c;
+        }
+    }
+}
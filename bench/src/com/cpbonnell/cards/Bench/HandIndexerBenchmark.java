@@ -0,0 +1,87 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PokerHands.HandIndexer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of indexing hands by suit isomorphism class.
+ *
+ * <p>
+ *     Random hands are indexed with an indexer for the given rounds, such as
+ *     "2,5" for Hold'em hole cards and a full board, and random indices of
+ *     the last round are turned back into canonical hands. Scores are
+ *     batches per second, so multiply by the "hands" parameter for hands per
+ *     second.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandIndexerBenchmark {
+
+    @Param({"5", "2,3", "2,5"})
+    public String rounds;
+
+    @Param({"100000"})
+    public int hands;
+
+    private HandIndexer indexer;
+    private HandIndexer.State state;
+    private int cardsPerHand;
+    private int[] cards;
+    private long[] indices;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        String[] parts = this.rounds.split(",");
+        int[] cardsPerRound = new int[parts.length];
+        for(int i = 0; i < parts.length; i++){
+            cardsPerRound[i] = Integer.parseInt(parts[i].trim());
+        }
+        this.indexer = new HandIndexer(cardsPerRound);
+        this.state = this.indexer.newState();
+        this.cardsPerHand = this.indexer.cardsThrough(this.indexer.rounds() - 1);
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] deck = new int[52];
+        for(int i = 0; i < deck.length; i++) deck[i] = i;
+
+        this.cards = new int[this.hands * this.cardsPerHand];
+        this.indices = new long[this.hands];
+        long size = this.indexer.size(this.indexer.rounds() - 1);
+        for(int h = 0; h < this.hands; h++){
+            for(int i = 0; i < this.cardsPerHand; i++){
+                int j = i + random.nextInt(deck.length - i);
+                int c = deck[j];
+                deck[j] = deck[i];
+                deck[i] = c;
+                this.cards[h * this.cardsPerHand + i] = c;
+            }
+            this.indices[h] = random.nextLong(size);
+        }
+    }
+
+    @Benchmark
+    public long index(){
+        long sum = 0;
+        for(int h = 0; h < this.hands; h++){
+            sum += this.indexer.index(this.cards, h * this.cardsPerHand, this.state);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] unindex(){
+        int last = this.indexer.rounds() - 1;
+        for(int h = 0; h < this.hands; h++){
+            this.indexer.unindex(last, this.indices[h], this.cards, h * this.cardsPerHand);
+        }
+        return this.cards;
+    }
+}
@@ -0,0 +1,170 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PokerHands.HandIndexer;
+import com.cpbonnell.cards.PokerHands.SevenCardEvaluator;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Checks the HandIndexer against the known sizes of the index spaces and
+ * against itself.
+ *
+ * <p>
+ *     The check runs in four stages. First the size of every round of a
+ *     number of deals is compared with the published counts of suit
+ *     isomorphism classes. Then every index of {5}, {2, 3} and {6} is
+ *     unindexed and indexed again, and must come back unchanged. Every five
+ *     card hand is then indexed under all 24 permutations of the suits, which
+ *     must give the same index, and together the hands must cover the index
+ *     space. Last, random hold'em hands dealt as {2, 3, 1, 1} (one million,
+ *     or the number given as the first argument) are indexed round by round
+ *     and as a whole, which must agree, and their canonical hands must be
+ *     given the same index and evaluate to the same strength.
+ * </p>
+ */
+public class HandIndexerVerification {
+
+    // Deals and the published sizes of each of their rounds
+    private static final int[][] DEALS = {
+            {5}, {7}, {2}, {2, 3}, {2, 5}, {2, 3, 1, 1}
+    };
+    private static final long[][] SIZES = {
+            {134_459},
+            {6_009_159},
+            {169},
+            {169, 1_286_792},
+            {169, 123_156_254},
+            {169, 1_286_792, 55_190_538, 2_428_287_420L}
+    };
+
+    public static void main(String[] args){
+        int hands = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long mismatches = checkSizes();
+        mismatches += checkRoundTrip(5);
+        mismatches += checkRoundTrip(2, 3);
+        mismatches += checkRoundTrip(6);
+        mismatches += checkSuitPermutations();
+        mismatches += checkHoldemHands(hands);
+
+        System.out.println(mismatches == 0 ? "PASSED" : "FAILED with " + mismatches + " mismatches");
+        if(mismatches != 0) System.exit(1);
+    }
+
+    private static long checkSizes(){
+        long mismatches = 0;
+        for(int d = 0; d < DEALS.length; d++){
+            HandIndexer indexer = new HandIndexer(DEALS[d]);
+            for(int r = 0; r < indexer.rounds(); r++){
+                if(indexer.size(r) != SIZES[d][r]){
+                    System.out.printf("%s round %d: size %,d, expected %,d%n",
+                            Arrays.toString(DEALS[d]), r, indexer.size(r), SIZES[d][r]);
+                    mismatches++;
+                }
+            }
+        }
+        System.out.println("Index space sizes checked, mismatches: " + mismatches);
+        return mismatches;
+    }
+
+    private static long checkRoundTrip(int... cardsPerRound){
+        HandIndexer indexer = new HandIndexer(cardsPerRound);
+        HandIndexer.State state = indexer.newState();
+        int last = indexer.rounds() - 1;
+        int[] cards = new int[indexer.cardsThrough(last)];
+
+        long mismatches = 0;
+        long start = System.nanoTime();
+        for(long i = 0; i < indexer.size(last); i++){
+            indexer.unindex(last, i, cards, 0);
+            if(indexer.index(cards, 0, state) != i) mismatches++;
+        }
+        System.out.printf("%s round trip of %,d indices in %.1f s, mismatches: %d%n",
+                Arrays.toString(cardsPerRound), indexer.size(last), (System.nanoTime() - start) / 1e9, mismatches);
+        return mismatches;
+    }
+
+    private static long checkSuitPermutations(){
+        HandIndexer indexer = new HandIndexer(5);
+        HandIndexer.State state = indexer.newState();
+        int[][] permutations = suitPermutations();
+        BitSet seen = new BitSet((int) indexer.size(0));
+
+        long mismatches = 0;
+        int[] h = new int[5];
+        int[] p = new int[5];
+        for(h[0] = 0; h[0] < 52; h[0]++)
+        for(h[1] = h[0] + 1; h[1] < 52; h[1]++)
+        for(h[2] = h[1] + 1; h[2] < 52; h[2]++)
+        for(h[3] = h[2] + 1; h[3] < 52; h[3]++)
+        for(h[4] = h[3] + 1; h[4] < 52; h[4]++){
+            long index = indexer.index(h, 0, state);
+            seen.set((int) index);
+            for(int[] suits : permutations){
+                for(int k = 0; k < 5; k++){
+                    p[k] = (h[k] & ~3) | suits[h[k] & 3];
+                }
+                if(indexer.index(p, 0, state) != index) mismatches++;
+            }
+        }
+        if(seen.cardinality() != indexer.size(0)){
+            System.out.printf("Five card hands reach %,d of %,d indices%n", seen.cardinality(), indexer.size(0));
+            mismatches++;
+        }
+        System.out.println("Five card hands checked under every suit permutation, mismatches: " + mismatches);
+        return mismatches;
+    }
+
+    private static long checkHoldemHands(int hands){
+        HandIndexer indexer = new HandIndexer(2, 3, 1, 1);
+        HandIndexer.State whole = indexer.newState();
+        HandIndexer.State byRound = indexer.newState();
+        SplittableRandom random = new SplittableRandom(7);
+        int[] deck = new int[BitmaskOperations.NUMBER_OF_CARDS];
+        for(int i = 0; i < deck.length; i++){
+            deck[i] = i;
+        }
+        int[] canonical = new int[7];
+
+        long mismatches = 0;
+        for(int t = 0; t < hands; t++){
+            for(int i = 0; i < 7; i++){
+                int j = i + random.nextInt(deck.length - i);
+                int c = deck[j];
+                deck[j] = deck[i];
+                deck[i] = c;
+            }
+
+            long index = indexer.canonicalize(deck, 0, whole, canonical, 0);
+            byRound.reset();
+            long incremental = 0;
+            for(int r = 0; r < indexer.rounds(); r++){
+                incremental = indexer.indexNextRound(deck, 0, byRound);
+            }
+            if(incremental != index
+                    || indexer.index(canonical, 0, whole) != index
+                    || SevenCardEvaluator.evaluate(canonical, 0, 7) != SevenCardEvaluator.evaluate(deck, 0, 7)){
+                mismatches++;
+            }
+        }
+        System.out.printf("%,d hold'em hands checked, mismatches: %d%n", hands, mismatches);
+        return mismatches;
+    }
+
+    private static int[][] suitPermutations(){
+        int[][] permutations = new int[24][];
+        int n = 0;
+        for(int a = 0; a < 4; a++)
+        for(int b = 0; b < 4; b++)
+        for(int c = 0; c < 4; c++)
+        for(int d = 0; d < 4; d++){
+            if(a != b && a != c && a != d && b != c && b != d && c != d){
+                permutations[n++] = new int[]{a, b, c, d};
+            }
+        }
+        return permutations;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.Utils.CardNotation;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of writing and parsing a batch of five card hands in card notation.
+ *
+ * <p>
+ *     "writeToChars" builds each hand's notation as a String from the cards'
+ *     toChars, the way a text log would usually be written, and
+ *     "writeNotation" writes the same hands into one byte[] with
+ *     CardNotation. "parseStrings" parses each hand from its own String, and
+ *     "parseBytes" parses the whole batch in place from the byte[]. Scores
+ *     are batches per second, so multiply by the "hands" parameter for hands
+ *     per second.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotationBenchmark {
+
+    private static final int CHARS_PER_HAND = 5 * CardNotation.CHARS_PER_CARD;
+
+    @Param({"100000"})
+    public int hands;
+
+    private int[] cards;
+    private IPlayingCard[] cardObjects;
+    private String[] strings;
+    private byte[] text;
+    private int[] parsed;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        SplittableRandom random = new SplittableRandom(42);
+        int[] deck = new int[52];
+        for(int i = 0; i < deck.length; i++) deck[i] = i;
+
+        this.cards = new int[this.hands * 5];
+        this.cardObjects = new IPlayingCard[this.hands * 5];
+        for(int h = 0; h < this.hands; h++){
+            for(int i = 0; i < 5; i++){
+                int j = i + random.nextInt(deck.length - i);
+                int c = deck[j];
+                deck[j] = deck[i];
+                deck[i] = c;
+                this.cards[h * 5 + i] = c;
+                this.cardObjects[h * 5 + i] = PlayingCard.valueOf(c);
+            }
+        }
+
+        this.text = new byte[this.hands * CHARS_PER_HAND];
+        CardNotation.writeHand(this.cards, 0, this.cards.length, this.text, 0);
+        this.strings = new String[this.hands];
+        for(int h = 0; h < this.hands; h++){
+            this.strings[h] = new String(this.text, h * CHARS_PER_HAND, CHARS_PER_HAND, StandardCharsets.US_ASCII);
+        }
+        this.parsed = new int[this.hands * 5];
+    }
+
+    @Benchmark
+    public int writeToChars(){
+        int length = 0;
+        for(int h = 0; h < this.hands; h++){
+            StringBuilder hand = new StringBuilder(CHARS_PER_HAND);
+            for(int i = h * 5; i < h * 5 + 5; i++){
+                hand.append(this.cardObjects[i].toChars());
+            }
+            length += hand.toString().length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public byte[] writeNotation(){
+        int offset = 0;
+        for(int h = 0; h < this.hands; h++){
+            offset = CardNotation.writeHand(this.cards, h * 5, 5, this.text, offset);
+        }
+        return this.text;
+    }
+
+    @Benchmark
+    public int[] parseStrings(){
+        for(int h = 0; h < this.hands; h++){
+            CardNotation.parseHand(this.strings[h], 0, 5, this.parsed, h * 5);
+        }
+        return this.parsed;
+    }
+
+    @Benchmark
+    public int[] parseBytes(){
+        for(int h = 0; h < this.hands; h++){
+            CardNotation.parseHand(this.text, h * CHARS_PER_HAND, 5, this.parsed, h * 5);
+        }
+        return this.parsed;
+    }
+}
@@ -0,0 +1,89 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.BasePlayingDeck;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Benchmark of deck shuffling with each kind of random number generator.
+ *
+ * <p>
+ *     Every benchmark thread owns its own deck, as a table would, and runs
+ *     complete deal, discard and shuffle cycles. The "SharedRandom" case gives
+ *     every deck the same java.util.Random, which shows the cost of the
+ *     contended compare-and-set in its nextInt. The other cases give each deck
+ *     its own generator. The benchmark runs with one thread and with as many
+ *     threads as there are processors, to show how throughput scales with
+ *     concurrent decks.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomGeneratorBenchmark {
+
+    private static final Random SHARED_RANDOM = new Random();
+
+    @Param({"SplittableRandom", "L64X128MixRandom", "Xoshiro256PlusPlus", "ThreadLocalRandom",
+            "SecureRandom", "SharedRandom"})
+    public String generator;
+
+    @Param({"FRENCH", "SHOE_8"})
+    public String deckType;
+
+    private IPlayingDeck deck;
+    private IPlayingCard[] held;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        int decks = this.deckType.equals("FRENCH") ? 1 : Integer.parseInt(this.deckType.substring(5));
+        this.deck = new BasePlayingDeck(DeckFixtures.frenchCards(decks), newGenerator(this.generator));
+        this.deck.shuffle();
+        this.held = new IPlayingCard[this.deck.totalSize()];
+    }
+
+    private static RandomGenerator newGenerator(String name){
+        switch(name){
+            case "SplittableRandom": return new SplittableRandom();
+            case "ThreadLocalRandom": return ThreadLocalRandom.current();
+            case "SecureRandom": return new SecureRandom();
+            case "SharedRandom": return SHARED_RANDOM;
+            default: return RandomGeneratorFactory.of(name).create();
+        }
+    }
+
+    private int cycle(){
+        for(int i = 0; i < this.held.length; i++){
+            this.held[i] = this.deck.drawCard();
+        }
+        for(IPlayingCard c : this.held){
+            this.deck.discardCard(c);
+        }
+        this.deck.shuffle();
+        return this.deck.drawPileSize();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int dealAndShuffleSingleThread(){
+        return this.cycle();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int dealAndShuffleAllThreads(){
+        return this.cycle();
+    }
+}
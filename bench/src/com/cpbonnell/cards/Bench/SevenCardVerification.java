@@ -0,0 +1,171 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.PlayingCard;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+import com.cpbonnell.cards.PokerHands.PokerHandMetadata;
+import com.cpbonnell.cards.PokerHands.SevenCardEvaluator;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exhaustive check and report for the SevenCardEvaluator.
+ *
+ * <p>
+ *     The check runs in two stages. First the five card evaluator is compared
+ *     with PokerHandMetadata over all 2,598,960 five card hands. Then every one
+ *     of the 133,784,560 seven card hands is ranked by the SevenCardEvaluator
+ *     and compared with the best of its 21 five card subsets. Passing the
+ *     argument "--metadata" makes the second stage pick the best subset with
+ *     PokerHandMetadata.compareTo instead, which is far slower.
+ * </p>
+ * <p>
+ *     The table generation time, table footprint and the evaluation rate
+ *     are printed along the way.
+ * </p>
+ */
+public class SevenCardVerification {
+
+    private static final int[][] SUBSETS = fiveCardSubsets();
+
+    public static void main(String[] args){
+
+        boolean useMetadata = Arrays.asList(args).contains("--metadata");
+        List<IPlayingCard> deck = new ArrayList<>();
+        for(int n = 0; n < BitmaskOperations.NUMBER_OF_CARDS; n++){
+            deck.add(new PlayingCard(BitmaskOperations.rankOf(n), BitmaskOperations.suitOf(n)));
+        }
+
+        // Touch the evaluator to generate the tables, then report on them
+        SevenCardEvaluator.evaluate(0, 1, 2, 3, 4, 5, 6);
+        System.out.printf("Table generation: %.1f ms%n", SevenCardEvaluator.generationNanos() / 1e6);
+        System.out.printf("Table footprint:  %,d bytes%n", SevenCardEvaluator.footprintBytes());
+
+        long mismatches = checkFiveCardHands(deck);
+        mismatches += checkSevenCardHands(deck, useMetadata);
+        measureRate();
+
+        System.out.println(mismatches == 0 ? "PASSED" : "FAILED with " + mismatches + " mismatches");
+        if(mismatches != 0) System.exit(1);
+    }
+
+    private static long checkFiveCardHands(List<IPlayingCard> deck){
+        long mismatches = 0;
+        int[] h = new int[5];
+        for(h[0] = 0; h[0] < 52; h[0]++)
+        for(h[1] = h[0] + 1; h[1] < 52; h[1]++)
+        for(h[2] = h[1] + 1; h[2] < 52; h[2]++)
+        for(h[3] = h[2] + 1; h[3] < 52; h[3]++)
+        for(h[4] = h[3] + 1; h[4] < 52; h[4]++){
+            int strength = BitmaskOperations.evaluateFiveCards(h[0], h[1], h[2], h[3], h[4]);
+            PokerHandMetadata meta = new PokerHandMetadata(handOf(deck, h, 0, 1, 2, 3, 4));
+            if(meta.getHandClassification() != PokerHandClass.fromStrength(strength)
+                    || SevenCardEvaluator.evaluate(h, 0, 5) != strength){
+                mismatches++;
+            }
+        }
+        System.out.println("Five card hands checked, mismatches: " + mismatches);
+        return mismatches;
+    }
+
+    private static long checkSevenCardHands(List<IPlayingCard> deck, boolean useMetadata){
+        long mismatches = 0;
+        long hands = 0;
+        long start = System.nanoTime();
+        int[] h = new int[7];
+        for(h[0] = 0; h[0] < 52; h[0]++)
+        for(h[1] = h[0] + 1; h[1] < 52; h[1]++)
+        for(h[2] = h[1] + 1; h[2] < 52; h[2]++)
+        for(h[3] = h[2] + 1; h[3] < 52; h[3]++)
+        for(h[4] = h[3] + 1; h[4] < 52; h[4]++)
+        for(h[5] = h[4] + 1; h[5] < 52; h[5]++)
+        for(h[6] = h[5] + 1; h[6] < 52; h[6]++){
+            int strength = SevenCardEvaluator.evaluate(h[0], h[1], h[2], h[3], h[4], h[5], h[6]);
+            boolean match = useMetadata
+                    ? bestByMetadata(deck, h) == PokerHandClass.fromStrength(strength)
+                    : bestByFiveCardEvaluator(h) == strength;
+            if(!match) mismatches++;
+            hands++;
+        }
+        System.out.printf("Seven card hands checked: %,d in %.1f s, mismatches: %d%n",
+                hands, (System.nanoTime() - start) / 1e9, mismatches);
+        return mismatches;
+    }
+
+    private static int bestByFiveCardEvaluator(int[] h){
+        int best = 0;
+        for(int[] s : SUBSETS){
+            int strength = BitmaskOperations.evaluateFiveCards(h[s[0]], h[s[1]], h[s[2]], h[s[3]], h[s[4]]);
+            if(strength > best) best = strength;
+        }
+        return best;
+    }
+
+    private static PokerHandClass bestByMetadata(List<IPlayingCard> deck, int[] h){
+        PokerHandMetadata best = null;
+        for(int[] s : SUBSETS){
+            PokerHandMetadata meta = new PokerHandMetadata(handOf(deck, h, s));
+            if(best == null || meta.compareTo(best) > 0) best = meta;
+        }
+        return best.getHandClassification();
+    }
+
+    private static void measureRate(){
+        // Sweep a fixed pseudo-random sequence of hands, folding the results so
+        // the JIT can not discard the evaluations.
+        int[] cards = new int[1 << 16];
+        long seed = 42;
+        for(int i = 0; i < cards.length; i++){
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            cards[i] = (int) ((seed >>> 33) % 52);
+        }
+
+        long sink = 0;
+        long evaluations = 0;
+        long start = System.nanoTime();
+        while(System.nanoTime() - start < 2_000_000_000L){
+            for(int i = 0; i + 7 <= cards.length; i += 7){
+                if(distinct(cards, i)){
+                    sink += SevenCardEvaluator.evaluate(cards, i, 7);
+                    evaluations++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Seven card evaluations: %,.0f per second (checksum %d)%n", evaluations / seconds, sink);
+    }
+
+    private static boolean distinct(int[] cards, int offset){
+        long seen = 0;
+        for(int i = offset; i < offset + 7; i++){
+            if((seen & (1L << cards[i])) != 0) return false;
+            seen |= 1L << cards[i];
+        }
+        return true;
+    }
+
+    private static List<IPlayingCard> handOf(List<IPlayingCard> deck, int[] h, int... positions){
+        List<IPlayingCard> hand = new ArrayList<>(positions.length);
+        for(int p : positions) hand.add(deck.get(h[p]));
+        return hand;
+    }
+
+    private static int[][] fiveCardSubsets(){
+        int[][] subsets = new int[21][];
+        int n = 0;
+        for(int skip1 = 0; skip1 < 7; skip1++){
+            for(int skip2 = skip1 + 1; skip2 < 7; skip2++){
+                int[] s = new int[5];
+                int k = 0;
+                for(int i = 0; i < 7; i++){
+                    if(i != skip1 && i != skip2) s[k++] = i;
+                }
+                subsets[n++] = s;
+            }
+        }
+        return subsets;
+    }
+}
@@ -0,0 +1,71 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import com.cpbonnell.cards.PlayingCards.PlayingShoe;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a multi-deck shoe made as a BasePlayingDeck against a
+ * PlayingShoe, from one to eight decks.
+ *
+ * <p>
+ *     A round deals two cards each to seven players and a dealer, takes
+ *     them all back, and reshuffles once three quarters of the shoe has been
+ *     dealt: the PlayingShoe by its cut card, and the BasePlayingDeck by
+ *     checking the size of its draw pile. The last benchmark makes a new shoe.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoeBenchmark {
+
+    private static final int SEATS = 8;
+
+    @Param({"SHOE", "PLAYING_SHOE"})
+    public String shoeType;
+
+    @Param({"1", "2", "6", "8"})
+    public int decks;
+
+    private IPlayingDeck shoe;
+    private IPlayingCard[][] hands;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.shoe = this.newShoe();
+        this.hands = new IPlayingCard[SEATS][2];
+    }
+
+    @Benchmark
+    public boolean drawCardThenDiscard(){
+        IPlayingCard c = this.shoe.drawCard();
+        return this.shoe.discardCard(c);
+    }
+
+    @Benchmark
+    public int playRound(){
+        int dealt = this.shoe.dealRound(this.hands, 2);
+        for(IPlayingCard[] hand : this.hands){
+            this.shoe.discardCards(hand, 0, hand.length);
+        }
+
+        if(this.shoe instanceof PlayingShoe){
+            ((PlayingShoe) this.shoe).endRound();
+        } else if(this.shoe.drawPileSize() <= this.shoe.totalSize() / 4){
+            this.shoe.shuffle();
+        }
+        return dealt;
+    }
+
+    @Benchmark
+    public IPlayingDeck newShoe(){
+        return DeckFixtures.newDeck(this.shoeType + "_" + this.decks);
+    }
+}
@@ -0,0 +1,58 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of shuffling a full discard pile back into the deck.
+ *
+ * <p>
+ *     Every shuffle needs a full discard pile to work on, so the pile is
+ *     rebuilt before each invocation, outside of the measured time. Only
+ *     SampleTime mode is used, since the per-invocation setup makes
+ *     throughput figures meaningless.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShuffleBenchmark {
+
+    @Param({"FRENCH", "PINOCHLE", "SHOE_2", "SHOE_8"})
+    public String deckType;
+
+    @Param({"0", "1", "8"})
+    public int listeners;
+
+    private IPlayingDeck deck;
+    private IPlayingCard[] held;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.deck = DeckFixtures.newDeck(this.deckType);
+        DeckFixtures.addListeners(this.deck, this.listeners, d -> { });
+        this.held = new IPlayingCard[this.deck.totalSize()];
+    }
+
+    @Setup(Level.Invocation)
+    public void fillDiscardPile(){
+        for(int i = 0; i < this.held.length; i++){
+            this.held[i] = this.deck.drawCard();
+        }
+        for(IPlayingCard c : this.held){
+            this.deck.discardCard(c);
+        }
+    }
+
+    @Benchmark
+    public int shuffle(){
+        this.deck.shuffle();
+        return this.deck.drawPileSize();
+    }
+}
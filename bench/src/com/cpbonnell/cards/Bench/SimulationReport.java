@@ -0,0 +1,94 @@
+package com.cpbonnell.cards.Bench;
+
+import com.cpbonnell.cards.PlayingCards.BasePlayingDeck;
+import com.cpbonnell.cards.PlayingCards.DeckPool;
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+import com.cpbonnell.cards.PokerHands.SevenCardEvaluator;
+import com.cpbonnell.cards.Simulation.ITableSimulation;
+import com.cpbonnell.cards.Simulation.SimulationResult;
+import com.cpbonnell.cards.Simulation.SimulationRunner;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * Prints the rate at which SimulationRunner plays hold'em tables, on one
+ * worker and on one worker per core.
+ *
+ * <p>
+ *     Each table deals a number of hands to six players: hole cards, burns
+ *     and a board are drawn, every player's hand is ranked, and all the cards
+ *     are discarded and shuffled back before the next hand. Every deck has a
+ *     listener counting its draws attached, as an observer would be in a
+ *     rule test. The last runs take their decks from a pool, so the second
+ *     of them makes no decks at all. The arguments are the number of tables
+ *     and the hands per table.
+ * </p>
+ */
+public class SimulationReport {
+
+    private static final int PLAYERS = 6;
+
+    public static void main(String[] args){
+        long tables = args.length > 0 ? Long.parseLong(args[0]) : 20_000;
+        int handsPerTable = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        LongAdder draws = new LongAdder();
+        Function<RandomGenerator, IPlayingDeck> deckFactory = random -> {
+            IPlayingDeck deck = BasePlayingDeck.newStandardFrenchDeck(random);
+            deck.getEventManager().addCardDrawnListener(d -> draws.increment());
+            return deck;
+        };
+        ITableSimulation holdem = (deck, random) -> playHoldem(deck, handsPerTable);
+
+        // Warm up, then report
+        SimulationRunner.run(tables / 4, deckFactory, holdem);
+        report("one worker", SimulationRunner.run(tables, deckFactory, holdem,
+                new ForkJoinPool(1), new SplittableRandom(1)));
+        report("all cores", SimulationRunner.run(tables, deckFactory, holdem));
+
+        // Decks from a pool are kept, listeners and all, from one run to the next
+        DeckPool<IPlayingDeck> pool = new DeckPool<>(() -> deckFactory.apply(new SplittableRandom()),
+                Runtime.getRuntime().availableProcessors());
+        report("all cores, pooled decks", SimulationRunner.run(tables, pool, holdem));
+        report("all cores, pooled decks", SimulationRunner.run(tables, pool, holdem));
+        System.out.printf("cards drawn: %,d, %s%n", draws.sum(), pool);
+    }
+
+    private static void report(String name, SimulationResult r){
+        System.out.printf("%s: %s%n", name, r);
+    }
+
+    // Deals hands at one table, returning the number of hands dealt
+    private static int playHoldem(IPlayingDeck deck, int hands){
+        IPlayingCard[] dealt = new IPlayingCard[PLAYERS * 2 + 8];
+        int[] numbers = new int[dealt.length];
+        long checksum = 0;
+
+        for(int h = 0; h < hands; h++){
+            for(int i = 0; i < dealt.length; i++){
+                dealt[i] = deck.drawCard();
+                numbers[i] = BitmaskOperations.cardNumber(dealt[i].rank(), dealt[i].suit());
+            }
+
+            // Hole cards are the first two per player; three burns precede the
+            // flop, turn and river at the end of the array.
+            int b = PLAYERS * 2;
+            for(int p = 0; p < PLAYERS; p++){
+                checksum += SevenCardEvaluator.evaluate(numbers[2 * p], numbers[2 * p + 1],
+                        numbers[b + 1], numbers[b + 2], numbers[b + 3], numbers[b + 5], numbers[b + 7]);
+            }
+
+            for(IPlayingCard c : dealt){
+                deck.discardCard(c);
+            }
+            deck.shuffle();
+        }
+        return checksum == Long.MIN_VALUE ? 0 : hands;
+    }
+}
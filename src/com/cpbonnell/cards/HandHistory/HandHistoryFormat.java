@@ -0,0 +1,56 @@
+package com.cpbonnell.cards.HandHistory;
+
+/**
+ * Constants describing the binary hand history file format.
+ *
+ * <p>
+ *     A hand history file holds a sequence of hands that all have the same
+ *     number of cards, from 1 to 9, each card stored as its 6 bit card
+ *     number (see BitmaskOperations.cardNumber). All values are little
+ *     endian. The file starts with a header of HEADER_BYTES:
+ * </p>
+ * <pre>
+ *     int   MAGIC
+ *     short VERSION
+ *     short cards per hand
+ *     int   the most hands in any block
+ *     int   reserved, zero
+ * </pre>
+ * <p>
+ *     The hands follow in blocks. Each block has a header of
+ *     BLOCK_HEADER_BYTES, holding the number of hands in the block and the
+ *     length of its payload in bytes. The payload is a stream of 64 bit words
+ *     in which the hands are packed back to back, 6 * cardsPerHand bits per
+ *     hand, starting from the lowest bit of the first word; within a hand the
+ *     first card is in the lowest bits. A payload always ends with one word
+ *     of padding beyond the last hand, so that any hand can be read with a
+ *     single unaligned 64 bit load. A five card hand takes 30 bits, or a
+ *     little under 4 bytes, where its toChars notation takes 10 characters.
+ * </p>
+ */
+public abstract class HandHistoryFormat {
+
+    public static final int MAGIC = 0x48484350;          // "PCHH"
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int BLOCK_HEADER_BYTES = 8;
+    public static final int BITS_PER_CARD = 6;
+    public static final int MAX_CARDS_PER_HAND = 9;
+    public static final int DEFAULT_HANDS_PER_BLOCK = 1 << 16;
+
+    // Make non-instantiable
+    private HandHistoryFormat() {
+
+    }
+
+    /**
+     * The length of the payload of a block.
+     * @param hands The number of hands in the block.
+     * @param cardsPerHand The number of cards in each hand.
+     * @return The payload length in bytes, including the padding word.
+     */
+    public static int payloadBytes(int hands, int cardsPerHand){
+        long bits = (long) hands * cardsPerHand * BITS_PER_CARD;
+        return (int) (((bits + 63) >>> 6) + 1) * 8;
+    }
+}
@@ -0,0 +1,219 @@
+package com.cpbonnell.cards.HandHistory;
+
+import com.cpbonnell.cards.PokerHands.BatchClassifier;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a binary hand history file through a memory mapping.
+ *
+ * <p>
+ *     The file is mapped with FileChannel.map in windows of up to a gigabyte,
+ *     so files of any size can be read, and blocks are decoded straight from
+ *     the mapping into a caller's int[] of card numbers, one block per call
+ *     to nextBlock. Nothing is copied through a heap buffer and no card
+ *     objects are created, so a packed block can be handed directly to the
+ *     BatchClassifier. classCounts does exactly that for a whole file.
+ * </p>
+ */
+public class HandHistoryReader implements Closeable {
+
+    private static final long MAX_WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int cardsPerHand;
+    private final int bitsPerHand;
+    private final int maxHandsPerBlock;
+
+    // The mapped part of the file, and the file position of the next block
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private long handsRead;
+
+    /**
+     * Opens a hand history file and reads its header.
+     * @param path The file to read.
+     * @throws IOException If the file can not be read or is not a hand history file.
+     */
+    public HandHistoryReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.fileSize = this.channel.size();
+
+            ByteBuffer header = ByteBuffer.allocate(HandHistoryFormat.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while(header.hasRemaining()){
+                if(this.channel.read(header, header.position()) < 0){
+                    throw new IOException("The file is too short to be a hand history: " + path);
+                }
+            }
+            header.flip();
+            if(header.getInt() != HandHistoryFormat.MAGIC){
+                throw new IOException("Not a hand history file: " + path);
+            }
+            short version = header.getShort();
+            if(version != HandHistoryFormat.VERSION){
+                throw new IOException("Unsupported hand history version " + version + ": " + path);
+            }
+            this.cardsPerHand = header.getShort();
+            this.maxHandsPerBlock = header.getInt();
+            if(this.cardsPerHand < 1 || this.cardsPerHand > HandHistoryFormat.MAX_CARDS_PER_HAND
+                    || this.maxHandsPerBlock < 1){
+                throw new IOException("Corrupt hand history header: " + path);
+            }
+        } catch (IOException | RuntimeException e){
+            this.channel.close();
+            throw e;
+        }
+
+        this.bitsPerHand = this.cardsPerHand * HandHistoryFormat.BITS_PER_CARD;
+        this.position = HandHistoryFormat.HEADER_BYTES;
+    }
+
+    public int cardsPerHand(){
+        return this.cardsPerHand;
+    }
+
+    public int maxHandsPerBlock(){
+        return this.maxHandsPerBlock;
+    }
+
+    public long handsRead(){
+        return this.handsRead;
+    }
+
+    public long fileSize(){
+        return this.fileSize;
+    }
+
+    /**
+     * Decodes the next block of hands.
+     * @param cards Receives the card numbers of the hands, back to back. It
+     *              must hold maxHandsPerBlock() * cardsPerHand() elements.
+     * @return The number of hands decoded, or -1 at the end of the file.
+     * @throws IOException If the block is truncated or corrupt, or holds a
+     *         value that is not a card number.
+     */
+    public int nextBlock(int[] cards) throws IOException {
+        if(this.position >= this.fileSize){
+            return -1;
+        }
+        if(this.position + HandHistoryFormat.BLOCK_HEADER_BYTES > this.fileSize){
+            throw new IOException("Truncated block header at " + this.position);
+        }
+
+        this.map(this.position, HandHistoryFormat.BLOCK_HEADER_BYTES);
+        int offset = (int) (this.position - this.windowStart);
+        int hands = this.window.getInt(offset);
+        int payload = this.window.getInt(offset + 4);
+        if(hands < 0 || hands > this.maxHandsPerBlock
+                || payload != HandHistoryFormat.payloadBytes(hands, this.cardsPerHand)){
+            throw new IOException("Corrupt block header at " + this.position);
+        }
+        long end = this.position + HandHistoryFormat.BLOCK_HEADER_BYTES + payload;
+        if(end > this.fileSize){
+            throw new IOException("Truncated block at " + this.position);
+        }
+
+        this.map(this.position, HandHistoryFormat.BLOCK_HEADER_BYTES + payload);
+        if( ! this.decode(this.window, (int) (this.position - this.windowStart) + HandHistoryFormat.BLOCK_HEADER_BYTES,
+                hands, cards) ){
+            throw new IOException("Block at " + this.position + " holds a value that is not a card number");
+        }
+
+        this.position = end;
+        this.handsRead += hands;
+        return hands;
+    }
+
+    /**
+     * Counts the hands of each class in the rest of the file.
+     * <p>
+     *     Every block is decoded and classified with the BatchClassifier,
+     *     reusing the same arrays throughout. Hands must hold 5 to 7 cards.
+     * </p>
+     * @return The number of hands of each class, indexed by PokerHandClass ordinal.
+     * @throws IOException If a block is truncated or corrupt.
+     */
+    public long[] classCounts() throws IOException {
+        if(this.cardsPerHand < 5 || this.cardsPerHand > 7){
+            throw new IllegalStateException("Only hands of 5 to 7 cards can be classified");
+        }
+
+        int[] cards = new int[this.maxHandsPerBlock * this.cardsPerHand];
+        int[] strengths = new int[this.maxHandsPerBlock];
+        byte[] classes = new byte[this.maxHandsPerBlock];
+        long[] counts = new long[PokerHandClass.values().length];
+
+        for(int n; (n = this.nextBlock(cards)) >= 0; ){
+            BatchClassifier.classify(cards, this.cardsPerHand, n, strengths, classes);
+            for(int i = 0; i < n; i++){
+                counts[classes[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns to the first block of the file.
+     */
+    public void rewind(){
+        this.position = HandHistoryFormat.HEADER_BYTES;
+        this.handsRead = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.window = null;
+        this.channel.close();
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    // Makes sure the given range of the file is inside the mapped window
+    private void map(long start, int length) throws IOException {
+        if(this.window != null && start >= this.windowStart
+                && start + length <= this.windowStart + this.window.capacity()){
+            return;
+        }
+        long size = Math.min(this.fileSize - start, Math.max(MAX_WINDOW, length));
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        this.window.order(ByteOrder.LITTLE_ENDIAN);
+        this.windowStart = start;
+    }
+
+    // Each hand is read with one unaligned 64 bit load at the byte holding its
+    // first bit; the padding word at the end of the payload keeps the load of
+    // the last hand inside the block. A six bit field of 52 or more is not a
+    // card, and sets bit 6 once 12 is added to it, so those bits are gathered
+    // without a branch and checked once the block is decoded. Returns false
+    // if the block holds such a field.
+    private boolean decode(ByteBuffer b, int payloadStart, int hands, int[] cards){
+        int bits = this.bitsPerHand;
+        int n = this.cardsPerHand;
+        int out = 0;
+        int invalid = 0;
+        long bit = 0;
+        for(int h = 0; h < hands; h++, bit += bits){
+            long w = b.getLong(payloadStart + (int) (bit >>> 3)) >>> (bit & 7);
+            for(int i = 0; i < n; i++){
+                int c = (int) w & 63;
+                invalid |= c + (64 - BitmaskOperations.NUMBER_OF_CARDS);
+                cards[out++] = c;
+                w >>>= HandHistoryFormat.BITS_PER_CARD;
+            }
+        }
+        return (invalid & 64) == 0;
+    }
+}
@@ -0,0 +1,166 @@
+package com.cpbonnell.cards.HandHistory;
+
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes hands to a binary hand history file.
+ *
+ * <p>
+ *     Hands are packed into a block in memory as they are written, and each
+ *     block is written to the file in one call once it is full, or when the
+ *     writer is closed. Writing a hand allocates nothing. The format is
+ *     described in HandHistoryFormat.
+ * </p>
+ */
+public class HandHistoryWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final int cardsPerHand;
+    private final int bitsPerHand;
+    private final int handsPerBlock;
+
+    // The block being filled, as 64 bit words, and the buffer it is written through
+    private final long[] words;
+    private final ByteBuffer buffer;
+    private int handsInBlock;
+    private long handsWritten;
+
+    /**
+     * Creates a file, replacing any existing file, with the default block size.
+     * @param path The file to write.
+     * @param cardsPerHand The number of cards in every hand.
+     * @throws IOException If the file can not be created.
+     */
+    public HandHistoryWriter(Path path, int cardsPerHand) throws IOException {
+        this(path, cardsPerHand, HandHistoryFormat.DEFAULT_HANDS_PER_BLOCK);
+    }
+
+    /**
+     * Creates a file, replacing any existing file.
+     * @param path The file to write.
+     * @param cardsPerHand The number of cards in every hand.
+     * @param handsPerBlock The number of hands in each full block.
+     * @throws IOException If the file can not be created.
+     */
+    public HandHistoryWriter(Path path, int cardsPerHand, int handsPerBlock) throws IOException {
+        if(cardsPerHand < 1 || cardsPerHand > HandHistoryFormat.MAX_CARDS_PER_HAND){
+            throw new IllegalArgumentException("A hand must hold from 1 to "
+                    + HandHistoryFormat.MAX_CARDS_PER_HAND + " cards, not " + cardsPerHand);
+        }
+        if(handsPerBlock < 1 || handsPerBlock > (1 << 24)){
+            throw new IllegalArgumentException("A block must hold from 1 to 2^24 hands, not " + handsPerBlock);
+        }
+
+        this.cardsPerHand = cardsPerHand;
+        this.bitsPerHand = cardsPerHand * HandHistoryFormat.BITS_PER_CARD;
+        this.handsPerBlock = handsPerBlock;
+
+        int payload = HandHistoryFormat.payloadBytes(handsPerBlock, cardsPerHand);
+        this.words = new long[payload / 8];
+        this.buffer = ByteBuffer.allocateDirect(HandHistoryFormat.BLOCK_HEADER_BYTES + payload)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        ByteBuffer header = ByteBuffer.allocate(HandHistoryFormat.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(HandHistoryFormat.MAGIC)
+                .putShort(HandHistoryFormat.VERSION)
+                .putShort((short) cardsPerHand)
+                .putInt(handsPerBlock)
+                .putInt(0)
+                .flip();
+        this.writeFully(header);
+    }
+
+    /**
+     * Appends a hand.
+     * @param cards The card numbers of the hand.
+     * @throws IOException If a full block can not be written.
+     */
+    public void writeHand(int... cards) throws IOException {
+        this.writeHand(cards, 0);
+    }
+
+    /**
+     * Appends a hand from a packed array of hands.
+     * @param cards An array of card numbers.
+     * @param offset The index of the first card of the hand.
+     * @throws IOException If a full block can not be written.
+     */
+    public void writeHand(int[] cards, int offset) throws IOException {
+        long hand = 0;
+        for(int i = this.cardsPerHand - 1; i >= 0; i--){
+            int c = cards[offset + i];
+            if(c < 0 || c >= BitmaskOperations.NUMBER_OF_CARDS){
+                throw new IllegalArgumentException("Not a card number: " + c);
+            }
+            hand = (hand << HandHistoryFormat.BITS_PER_CARD) | c;
+        }
+
+        long bit = (long) this.handsInBlock * this.bitsPerHand;
+        int word = (int) (bit >>> 6);
+        int shift = (int) bit & 63;
+        this.words[word] |= hand << shift;
+        if(shift + this.bitsPerHand > 64){
+            this.words[word + 1] |= hand >>> (64 - shift);
+        }
+
+        this.handsWritten++;
+        if(++this.handsInBlock == this.handsPerBlock){
+            this.flushBlock();
+        }
+    }
+
+    public long handsWritten(){
+        return this.handsWritten;
+    }
+
+    /**
+     * Writes the last, partly filled block and closes the file.
+     * @throws IOException If the block can not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if(this.handsInBlock > 0){
+                this.flushBlock();
+            }
+        } finally {
+            this.channel.close();
+        }
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    private void flushBlock() throws IOException {
+        int payload = HandHistoryFormat.payloadBytes(this.handsInBlock, this.cardsPerHand);
+
+        this.buffer.clear();
+        this.buffer.putInt(this.handsInBlock).putInt(payload);
+        for(int i = 0; i < payload / 8; i++){
+            this.buffer.putLong(this.words[i]);
+        }
+        this.buffer.flip();
+        this.writeFully(this.buffer);
+
+        Arrays.fill(this.words, 0, payload / 8, 0L);
+        this.handsInBlock = 0;
+    }
+
+    private void writeFully(ByteBuffer b) throws IOException {
+        while(b.hasRemaining()){
+            this.channel.write(b);
+        }
+    }
+}
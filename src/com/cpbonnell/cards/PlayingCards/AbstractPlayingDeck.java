@@ -0,0 +1,627 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * The piles, outstanding cards and events shared by the decks that are used
+ * by one thread at a time.
+ * <p>
+ *     The cards of the deck are one byte card numbers (see
+ *     BitmaskOperations.cardNumber), which move between a face-down draw
+ *     pile, a face-up discard pile kept as a stack, and the players' hands.
+ *     Outstanding cards are tracked by the SecurePlayingCard facades issued
+ *     for them, and every move raises its event, records its metrics and
+ *     commits its flight recorder events here. A subclass decides only how
+ *     the draw pile is kept: which card a draw takes from it, and how the
+ *     discards are put into it by a shuffle.
+ * </p>
+ */
+abstract class AbstractPlayingDeck implements IPlayingDeck {
+
+    // A private variable to allow the deck to be locked into a "read only"
+    // mode during event calls, so that its state may be observed by event
+    // handlers, but not modified. This both prevents cheating, and avoids
+    // infinite loops where an event handler generates new events.
+    boolean isReadOnly;
+
+    // Other variables that specify optional deck behaviors
+    boolean allowDrawFromDiscard;
+    boolean allowShuffle;
+
+    // A DeckEventCaller object to handle the relations with various event listeners
+    IDeckEventCaller eventCaller;
+
+    // A random number generator for all the shuffling and other randomization that
+    // is needed throughout the life of the deck. Like the rest of the deck it is
+    // only ever used by one thread at a time.
+    final RandomGenerator rng;
+
+    // This structure maintains the card numbers that represent the actual values of the
+    // deck. The piles below hold card numbers as well, rather than card objects.
+    private final byte[] cardValues;
+
+    // The draw pile is kept by the subclass, in this array. The discard pile is
+    // a stack whose top is its last element. Both are sized to hold every card,
+    // so they never grow.
+    final byte[] drawPile;
+    int drawCount;
+    final byte[] discardPile;
+    int discardCount;
+
+    // Outstanding cards are tracked by the facades issued for them. Each facade
+    // is filed in a slot of this array, and the slot number is stored in the
+    // facade, so that a card can be validated and returned without searching.
+    // The number of each outstanding card is kept alongside its facade, and
+    // unused slots are kept on a stack.
+    private final SecurePlayingCard[] outstandingSlots;
+    private final byte[] outstandingCards;
+    private final int[] freeSlots;
+    private int freeSlotCount;
+
+    // The counts of the cards in each pile, updated as each card moves
+    private final DeckComposition composition;
+
+    //============================== Constructors ==============================
+
+    /**
+     * Constructs a deck with every card on its discard pile.
+     * @param cardNumbers The card numbers of the deck's cards.
+     * @param rng The generator to use for all shuffling.
+     */
+    AbstractPlayingDeck(byte[] cardNumbers, RandomGenerator rng){
+
+        this.isReadOnly = false;
+        this.allowDrawFromDiscard = true;
+        this.allowShuffle = true;
+
+        this.rng = Objects.requireNonNull(rng, "rng");
+
+        this.cardValues = cardNumbers;
+        int n = this.cardValues.length;
+        if(n > DeckComposition.MAX_CARDS){
+            throw new IllegalArgumentException("A deck can hold at most " + DeckComposition.MAX_CARDS
+                    + " cards, not " + n);
+        }
+
+        // Every card could be outstanding at once, so there is one slot per card
+        this.drawPile = new byte[n];
+        this.discardPile = new byte[n];
+        this.outstandingSlots = new SecurePlayingCard[n];
+        this.outstandingCards = new byte[n];
+        this.freeSlots = new int[n];
+        this.composition = new DeckComposition(false);
+        this.gatherCards();
+
+        // Instantiate the helper classes, and pass it a reference to the the
+        // lock and unlock functions.
+        this.eventCaller = new BaseDeckEventCaller(this::lock, this::unlock);
+    }
+
+    //============================== Accessors ==============================
+    // Make the event manager and the deck state public
+
+    /**
+     * Get access to the deck manager to register or unregister event listeners.
+     * @return A reference to the Deck's event caller object.
+     */
+    @Override
+    public IDeckEventRegistrar getEventManager(){
+        return this.eventCaller;
+    }
+
+    /**
+     * Switches the deck between synchronous and asynchronous event delivery.
+     * <p>
+     *     With a dispatcher set, listeners are no longer run while the deck is
+     *     locked. They are run later on the dispatcher's threads, and receive a
+     *     DeckSnapshot of the deck's state at the time of the event in place
+     *     of the deck itself. Registered listeners are kept either way.
+     * </p>
+     * @param dispatcher The dispatcher to deliver events with, or null to
+     *                   deliver them synchronously again.
+     */
+    public void setAsyncEventDispatcher(AsyncEventDispatcher dispatcher){
+        this.eventCaller.setDispatcher(dispatcher);
+    }
+
+    /**
+     * Starts or stops recording the deck's activity.
+     * @param metrics The metrics to record into, which may be shared with
+     *                other decks, or null to stop recording.
+     */
+    public void setMetrics(DeckMetrics metrics){
+        this.eventCaller.setMetrics(metrics);
+    }
+
+    public DeckMetrics getMetrics(){
+        return this.eventCaller.metrics();
+    }
+
+    /**
+     * Shows the rank of the top card on the discard pile.
+     * @return The rank of the top card on the discard pile
+     */
+    @Override
+    public Ranks viewDiscardRank(){
+        if(this.discardCount > 0){
+            return BitmaskOperations.rankOf(this.discardPile[this.discardCount - 1]);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Shows the suit of the top card on the discard pile
+     * @return The suit of the top card on the discard pile.
+     */
+    @Override
+    public Suits viewDiscardSuit(){
+        if(this.discardCount > 0){
+            return BitmaskOperations.suitOf(this.discardPile[this.discardCount - 1]);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the number of cards available for the drawCard() method.
+     * @return The number of cards available in the draw pile.
+     */
+    @Override
+    public int drawPileSize() {
+        return this.drawCount;
+    }
+
+    /**
+     * Gets the number of cards available for the drawDiscard() method.
+     * @return The number of cards in the discard pile.
+     */
+    @Override
+    public int discardPileSize() {
+        return this.discardCount;
+    }
+
+    /**
+     * Gets the number of cards that have been issued via the two draw* methods.
+     * @return The number of cards outstanding.
+     */
+    @Override
+    public int outstandingSize() {
+        return this.outstandingSlots.length - this.freeSlotCount;
+    }
+
+    /**
+     * Gets the total number of distinct card objects belonging to the object.
+     * @return The number of card objects belonging to the deck.
+     */
+    @Override
+    public int totalSize(){
+        return this.cardValues.length;
+    }
+
+    /**
+     * Determines if the specified IPlayingCard object is a valid outstanding card from this deck.
+     * @param c An object implementing IPlayingCard whose authenticity is in question.
+     * @return true if the card is a valid outstanding card, false if it is not.
+     */
+    @Override
+    public boolean validateOutstandingCard(IPlayingCard c){
+
+        // Make sure that the parameter is of the proper class
+        if(c == null || c.getClass() != SecurePlayingCard.class){
+            return false;
+        }
+
+        //Cast the parameter to a concrete type to get the additional functionality
+        SecurePlayingCard s = (SecurePlayingCard) c;
+
+        // The card is valid only if this deck filed this very facade in the slot it
+        // names. Comparing identities rejects facades from other decks, and stale
+        // facades whose slot has been reissued since they were discarded.
+        int slot = s.slot();
+        return slot >= 0 && slot < this.outstandingSlots.length
+                && this.outstandingSlots[slot] == s && s.isValid();
+    }
+
+    /**
+     * Counts the cards of the deck by value in each pile.
+     * @return A read-only view of the deck's composition, which is exact
+     *         whenever the deck is not in the middle of a call.
+     */
+    @Override
+    public DeckComposition composition(){
+        return this.composition;
+    }
+
+    //============================== Action Methods ==============================
+    // Methods that change the state of the deck. All of these raise events,
+    // and are available only when the deck is NOT locked.
+
+    /**
+     * Shuffles the discard pile back into the draw pile, leaving some.
+     * <p>
+     *     The cards at the bottom of the discard pile are put into the draw
+     *     pile, in random order, and a specified number are left at the top
+     *     of the discard pile. If the number of cards specified is greater
+     *     than the total number of cards in the discard pile, then no cards
+     *     are moved to the deck.
+     * </p>
+     * @param leaveTopDiscards The number of cards to leave on top of the discard pile.
+     */
+    @Override
+    public void shuffle(int leaveTopDiscards){
+
+        if(leaveTopDiscards < 0){
+            throw new IllegalArgumentException("Can not leave " + leaveTopDiscards + " cards on the discard pile");
+        }
+
+        // Exit immediately if the deck is in read-only mode, or if shuffling is not allowed
+        if(this.isReadOnly || ! this.allowShuffle ){
+            return;
+        }
+
+        int moved = this.discardCount - leaveTopDiscards;
+        if(moved > 0){
+            DeckMetrics metrics = this.eventCaller.metrics();
+            long start = metrics == null ? 0 : System.nanoTime();
+            DeckShuffleEvent event = new DeckShuffleEvent();
+            event.begin();
+            int drawPileBefore = this.drawCount;
+
+            this.moveDiscards(moved);
+
+            if(metrics != null){
+                metrics.recordShuffleNanos(System.nanoTime() - start);
+            }
+            event.end();
+            if(event.shouldCommit()){
+                event.setDeck(this);
+                event.cardsShuffled = moved;
+                event.discardsLeft = leaveTopDiscards;
+                event.drawPileBefore = drawPileBefore;
+                event.drawPileAfter = this.drawCount;
+                event.commit();
+            }
+        }
+
+        // Raise the appropriate event...
+        this.eventCaller.onDeckShuffled(this);
+    }
+
+    /**
+     * Shuffles the whole discard pile back into the deck.
+     */
+    @Override
+    public void shuffle(){
+        this.shuffle(0);
+    }
+
+    /**
+     * Returns every card to the deck and shuffles it, ready for a new game.
+     * <p>
+     *     The facades of outstanding cards are invalidated, as if the cards had
+     *     been discarded, and will be refused if they are discarded later.
+     *     Every card is then gathered onto the discard pile and shuffled into
+     *     the draw pile, raising a deck shuffled event but no discard events.
+     *     Nothing is allocated, and the deck keeps its listeners, dispatcher,
+     *     metrics and generator, so a reset deck can stand in for a new one.
+     * </p>
+     */
+    @Override
+    public void reset(){
+
+        // Exit immediately if the deck is in read-only mode.
+        if(this.isReadOnly){
+            return;
+        }
+
+        for(SecurePlayingCard facade : this.outstandingSlots){
+            if(facade != null){
+                facade.invalidate();
+            }
+        }
+        this.gatherCards();
+        this.shuffle();
+    }
+
+    /**
+     * Issues a card from the draw pile.
+     * <p>
+     * Issues an object implementing IPlayingCard, but with no face value of his own. The
+     * card instead references a face value stored in the deck. When the object is
+     * returned to the deck via discardCard, the object is invalidated. The object
+     * is not destroyed by the method, but the link to its value is severed, and it will
+     * appear blank. The value of discarded card is then added to the discard pile.
+     * </p>
+     * @return a facade object implementing IPlayingCard, or null if every
+     *         card is outstanding.
+     */
+    @Override
+    public IPlayingCard drawCard() {
+
+        // Exit immediately if the deck is in read-only mode.
+        if(this.isReadOnly){
+            return null;
+        }
+
+        // Take a card, and raise the card drawn event if there was one
+        IPlayingCard f = this.takeCard();
+        if(f != null){
+            this.eventCaller.onCardDrawn(this);
+        }
+        return f;
+    }
+
+    /**
+     * Draws cards from the draw pile into an array, raising a single card
+     * drawn event for all of them.
+     * @param cards The array to fill.
+     * @param offset The index of the first card to fill in.
+     * @param count The number of cards to draw.
+     * @return The number of cards drawn.
+     */
+    @Override
+    public int drawCards(IPlayingCard[] cards, int offset, int count){
+        DeckArguments.checkBatch(cards.length, offset, count);
+        if(this.isReadOnly){
+            return 0;
+        }
+
+        int drawn = 0;
+        while(drawn < count){
+            IPlayingCard f = this.takeCard();
+            if(f == null){
+                break;
+            }
+            cards[offset + drawn++] = f;
+        }
+
+        if(drawn > 0){
+            this.eventCaller.onCardsDrawn(this, drawn);
+        }
+        return drawn;
+    }
+
+    /**
+     * Deals cards to several players in turn, raising a single card drawn
+     * event for the whole deal.
+     * @param hands The array to deal each player's cards into, one per player.
+     * @param cardsPerPlayer The number of cards to deal each player.
+     * @return The number of cards dealt.
+     */
+    @Override
+    public int dealRound(IPlayingCard[][] hands, int cardsPerPlayer){
+        DeckArguments.checkDeal(hands, cardsPerPlayer);
+        if(this.isReadOnly){
+            return 0;
+        }
+
+        int total = hands.length * cardsPerPlayer;
+        int dealt = 0;
+        while(dealt < total){
+            IPlayingCard f = this.takeCard();
+            if(f == null){
+                break;
+            }
+            hands[dealt % hands.length][dealt / hands.length] = f;
+            dealt++;
+        }
+
+        if(dealt > 0){
+            this.eventCaller.onCardsDrawn(this, dealt);
+        }
+        return dealt;
+    }
+
+    @Override
+    public IPlayingCard drawDiscard() {
+
+        // Exit immediately if the deck is in read-only mode, or if drawing from the
+        // discard pile is not enabled, or if there are no cards to be drawn.
+        if(this.isReadOnly || ! this.allowDrawFromDiscard || this.discardCount == 0){
+            return null;
+        }
+
+        // Pull the top card off the discard pile, and create a facade wrapper around it
+        byte actual = this.discardPile[--this.discardCount];
+        this.composition.discardDrawn(actual);
+        IPlayingCard facade = this.issueFacade(actual);
+
+        // Raise the appropriate event, and return the facade
+        this.eventCaller.onDiscardDrawn(this);
+        return facade;
+    }
+
+    @Override
+    public boolean discardCard(IPlayingCard c) {
+
+        // Exit immediately if the deck is in read-only mode.
+        if(this.isReadOnly){
+            return false;
+        }
+
+        // Take the card back, and raise a card discarded event if it was valid
+        if( ! this.returnCard(c) ){
+            return false;
+        }
+        this.eventCaller.onCardDiscarded(this);
+        return true;
+    }
+
+    /**
+     * Discards cards from an array onto the discard pile, raising a single
+     * card discarded event for all of those that were taken back.
+     * @param cards The array holding the cards.
+     * @param offset The index of the first card to discard.
+     * @param count The number of cards to discard.
+     * @return The number of cards taken back.
+     */
+    @Override
+    public int discardCards(IPlayingCard[] cards, int offset, int count){
+        DeckArguments.checkBatch(cards.length, offset, count);
+        if(this.isReadOnly){
+            return 0;
+        }
+
+        int discarded = 0;
+        for(int i = 0; i < count; i++){
+            if(this.returnCard(cards[offset + i])) discarded++;
+        }
+
+        if(discarded > 0){
+            this.eventCaller.onCardsDiscarded(this, discarded);
+        }
+        return discarded;
+    }
+
+    /**
+     * Discards cards onto the discard pile, raising a single card discarded
+     * event for all of those that were taken back.
+     * @param cards The cards to discard.
+     * @return The number of cards taken back.
+     */
+    @Override
+    public int discardCards(Collection<? extends IPlayingCard> cards){
+        if(this.isReadOnly){
+            return 0;
+        }
+
+        int discarded = 0;
+        for(IPlayingCard c : cards){
+            if(this.returnCard(c)) discarded++;
+        }
+
+        if(discarded > 0){
+            this.eventCaller.onCardsDiscarded(this, discarded);
+        }
+        return discarded;
+    }
+
+    //============================== Draw Pile ==============================
+    // How the subclass keeps its draw pile, in drawPile and drawCount
+
+    // Takes a card off the draw pile, which is not empty, and returns its number
+    abstract byte takeFromDrawPile();
+
+    // Adds the bottom cards of the discard pile, those at the front of its
+    // array, to the draw pile, leaving the discard pile as it is
+    abstract void addToDrawPile(int moved);
+
+    // Moves the bottom cards of the discard pile into the draw pile, and slides
+    // the cards left on top of them down to the bottom of the discard pile's array
+    final void moveDiscards(int moved){
+        for(int i = 0; i < moved; i++){
+            this.composition.shuffled(this.discardPile[i]);
+        }
+        this.addToDrawPile(moved);
+        System.arraycopy(this.discardPile, moved, this.discardPile, 0, this.discardCount - moved);
+        this.discardCount -= moved;
+    }
+
+    //==================== Private Helper Functions ====================
+
+    // Puts every card on the discard pile, with the first value on top, empties
+    // the draw pile, and frees every outstanding slot
+    private void gatherCards(){
+        int n = this.cardValues.length;
+        for(int i = 0; i < n; i++){
+            this.discardPile[i] = this.cardValues[n - 1 - i];
+            this.outstandingSlots[i] = null;
+            this.freeSlots[i] = n - 1 - i;
+        }
+        this.discardCount = n;
+        this.drawCount = 0;
+        this.freeSlotCount = n;
+        this.composition.gather(this.cardValues);
+    }
+
+    // Issues a facade for a card from the draw pile, shuffling the discard
+    // pile into the draw pile first if it is empty. Returns null if every card
+    // is outstanding. Raises no card drawn event.
+    private IPlayingCard takeCard(){
+
+        // Handle cases where there are no cards left in the draw pile
+        if(this.drawCount == 0){
+
+            DeckMetrics metrics = this.eventCaller.metrics();
+            if(this.discardCount == 0){
+                // All the cards are still in the hands of various users, and
+                // we can't do anything about it...
+                if(metrics != null) metrics.recordFailedDraw();
+                return null;
+            }
+
+            // Maybe the discard pile just needs to be shuffled...
+            if(metrics != null) metrics.recordImplicitShuffle();
+            ImplicitShuffleEvent event = new ImplicitShuffleEvent();
+            event.begin();
+            this.shuffle();
+            event.end();
+            if(event.shouldCommit()){
+                event.setPiles(this, this.drawCount > 0);
+                event.commit();
+            }
+            if(this.drawCount == 0){
+                return null;
+            }
+        }
+
+        // Take a card off the draw pile, and create a card facade to represent
+        // the value outside the deck, filed under a free outstanding slot
+        byte c = this.takeFromDrawPile();
+        this.composition.drawn(c);
+        return this.issueFacade(c);
+    }
+
+    // Puts an outstanding card on top of the discard pile and invalidates its
+    // facade, or raises an invalid discard event if it is not outstanding from
+    // this deck. Raises no card discarded event.
+    private boolean returnCard(IPlayingCard c){
+
+        // First make sure that the parameter is a valid card facade object, issued
+        // by this deck and still outstanding...
+        if( ! this.validateOutstandingCard(c) ){
+            InvalidDiscardEvent.record(this, c, "not outstanding from this deck");
+            this.eventCaller.onInvalidDiscard(this);
+            return false;
+        }
+
+        // We have verified that the parameter c is indeed a SecurePlayingCard, so
+        // it is safe to cast it and gain access to the object's additional functionality.
+        SecurePlayingCard facade = (SecurePlayingCard) c;
+        int slot = facade.slot();
+
+        // We now want to free the facade's outstanding slot, and put the card it
+        // held on top of the discard pile...
+        this.outstandingSlots[slot] = null;
+        this.freeSlots[this.freeSlotCount++] = slot;
+        this.discardPile[this.discardCount++] = this.outstandingCards[slot];
+        this.composition.discarded(this.outstandingCards[slot]);
+
+        // Lastly, we want to invalidate the card facade that was passed as a parameter
+        facade.invalidate();
+        return true;
+    }
+
+    private SecurePlayingCard issueFacade(byte card){
+        int slot = this.freeSlots[--this.freeSlotCount];
+        SecurePlayingCard facade = new SecurePlayingCard(PlayingCard.valueOf(card), slot);
+        this.outstandingSlots[slot] = facade;
+        this.outstandingCards[slot] = card;
+        return facade;
+    }
+
+    private int lock() {
+        this.isReadOnly = true;
+        return 1;
+    }
+
+    private int unlock() {
+        this.isReadOnly = false;
+        return 1;
+    }
+}
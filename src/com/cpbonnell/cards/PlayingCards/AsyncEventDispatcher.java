@@ -0,0 +1,300 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import com.cpbonnell.cards.Utils.BoundedRingBuffer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers deck events to their listeners on dedicated consumer threads.
+ *
+ * <p>
+ *     A deck that has been given a dispatcher (see
+ *     BasePlayingDeck.setAsyncEventDispatcher) no longer runs its listeners
+ *     itself. Instead it takes a DeckSnapshot of its state and publishes it
+ *     into a bounded lock-free ring buffer, then carries on. Consumer threads
+ *     take the snapshots off the buffer and hand them to the listeners, so a
+ *     slow listener holds up only the consumers and never the deck. One
+ *     dispatcher may be shared by any number of decks.
+ * </p>
+ * <p>
+ *     When the buffer is full, the BackpressurePolicy decides whether the
+ *     deck waits, the event is dropped, or the event is coalesced with the
+ *     previous pending event of its type. With one consumer thread, events
+ *     are delivered in the order they were published (apart from coalesced
+ *     events, which are delivered once the buffer has been drained). With
+ *     more than one, events from the same deck may be delivered out of order.
+ * </p>
+ * <p>
+ *     Consumers are created by a ThreadFactory. The default makes daemon
+ *     platform threads, but on Java 21 or later a virtual thread factory such
+ *     as Thread.ofVirtual().factory() may be passed instead. An exception
+ *     thrown by a listener is handed to the consumer thread's uncaught
+ *     exception handler, and the consumer carries on with the next event.
+ * </p>
+ */
+public class AsyncEventDispatcher implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    // The number of idle rounds a thread spins and yields before parking
+    private static final int PARK_AFTER = 128;
+
+    private final BoundedRingBuffer<DeckSnapshot> buffer;
+    private final BackpressurePolicy policy;
+    private final Thread[] consumers;
+    private volatile boolean running = true;
+
+    // Set once close() has joined the consumers and delivered what they left,
+    // after which nothing will take events off the buffer
+    private volatile boolean closed;
+
+    // The number of consumers that have parked, or are about to, with nothing
+    // to do. Publishers unpark them only when this is not zero.
+    private final AtomicInteger parked = new AtomicInteger();
+
+    // Snapshots that were coalesced while the buffer was full. Each entry only
+    // marks that its deck and event type have a pending snapshot; the latest
+    // snapshot itself is kept by the deck's event caller.
+    private final ConcurrentLinkedQueue<DeckSnapshot> coalescedMarkers = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Creates a dispatcher with a single daemon consumer thread.
+     * @param capacity The number of events the buffer can hold.
+     * @param policy What to do with events when the buffer is full.
+     */
+    public AsyncEventDispatcher(int capacity, BackpressurePolicy policy){
+        this(capacity, 1, policy, r -> {
+            Thread t = new Thread(r, "deck-events-" + THREAD_COUNT.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Creates a dispatcher.
+     * @param capacity The number of events the buffer can hold.
+     * @param consumerThreads The number of threads delivering events to listeners.
+     * @param policy What to do with events when the buffer is full.
+     * @param threadFactory The factory used to create the consumer threads.
+     */
+    public AsyncEventDispatcher(int capacity, int consumerThreads, BackpressurePolicy policy,
+                                ThreadFactory threadFactory){
+        if(consumerThreads < 1){
+            throw new IllegalArgumentException("There must be at least one consumer thread");
+        }
+
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.policy = policy;
+        this.consumers = new Thread[consumerThreads];
+        for(int i = 0; i < consumerThreads; i++){
+            this.consumers[i] = threadFactory.newThread(this::consume);
+            this.consumers[i].start();
+        }
+    }
+
+
+    //============================== Statistics ==============================
+
+    public long publishedEvents(){
+        return this.published.sum();
+    }
+
+    public long droppedEvents(){
+        return this.dropped.sum();
+    }
+
+    public long coalescedEvents(){
+        return this.coalesced.sum();
+    }
+
+    public int pendingEvents(){
+        return this.buffer.size();
+    }
+
+
+    //============================== Publishing ==============================
+
+    /**
+     * Queues a snapshot for delivery to the listeners of its deck.
+     * <p>
+     *     Events published after the dispatcher has been closed are dropped.
+     *     An event published while it is closing is either delivered by
+     *     close() or counted as dropped.
+     * </p>
+     * @param snapshot The snapshot to deliver.
+     */
+    void publish(DeckSnapshot snapshot){
+
+        if( ! this.running ){
+            this.dropped.increment();
+            return;
+        }
+
+        this.published.increment();
+        if(this.buffer.offer(snapshot)){
+            this.queued();
+            return;
+        }
+
+        switch(this.policy){
+            case BLOCK:
+                for(int idle = 0; ! this.buffer.offer(snapshot); idle++){
+                    if( ! this.running ){
+                        this.dropped.increment();
+                        return;
+                    }
+                    backOff(idle);
+                }
+                this.queued();
+                break;
+
+            case DROP:
+                this.dropped.increment();
+                break;
+
+            case COALESCE:
+                // Only the first pending snapshot of a type needs a marker; later
+                // ones just replace the snapshot the marker will pick up.
+                if(snapshot.caller.coalesce(snapshot) == null){
+                    this.coalescedMarkers.offer(snapshot);
+                    this.queued();
+                } else {
+                    this.coalesced.increment();
+                }
+                break;
+        }
+    }
+
+
+    //============================== Consuming ==============================
+
+    private void consume(){
+        int idle = 0;
+        for(;;){
+            DeckSnapshot s = this.next();
+            if(s != null){
+                this.deliver(s);
+                idle = 0;
+            } else if( ! this.running ){
+                return;
+            } else if(idle < PARK_AFTER){
+                backOff(idle++);
+            } else {
+                this.park();
+            }
+        }
+    }
+
+    // The next snapshot to deliver, or null if there is none
+    private DeckSnapshot next(){
+        DeckSnapshot s = this.buffer.poll();
+        if(s == null){
+            DeckSnapshot marker = this.coalescedMarkers.poll();
+            if(marker != null){
+                s = marker.caller.takeCoalesced(marker.eventType());
+            }
+        }
+        return s;
+    }
+
+    // Parks an idle consumer until a publisher or close() unparks it. The
+    // consumer counts itself as parked before looking for work one last time,
+    // and a publisher looks at the count after queueing its event, so either
+    // the consumer finds the event or the publisher finds the consumer.
+    private void park(){
+        this.parked.incrementAndGet();
+        try {
+            if(this.buffer.isEmpty() && this.coalescedMarkers.isEmpty() && this.running){
+                LockSupport.park(this);
+            }
+        } finally {
+            this.parked.decrementAndGet();
+        }
+    }
+
+    // Called after an event has been queued, to wake any parked consumers, or
+    // to drop the event if close() has finished and no consumer is left
+    private void queued(){
+        if(this.parked.get() > 0){
+            for(Thread t : this.consumers){
+                LockSupport.unpark(t);
+            }
+        }
+        if(this.closed){
+            for(DeckSnapshot s = this.next(); s != null; s = this.next()){
+                this.dropped.increment();
+            }
+        }
+    }
+
+    private void deliver(DeckSnapshot s){
+        try {
+            s.caller.dispatch(s);
+        } catch (RuntimeException e){
+            Thread t = Thread.currentThread();
+            t.getUncaughtExceptionHandler().uncaughtException(t, e);
+        }
+    }
+
+    // Spin briefly, then yield, then sleep in short naps while there is nothing
+    // to do. Consumers park instead of napping; a blocked publisher naps, as
+    // nothing unparks it when room is made.
+    private static void backOff(int idle){
+        if(idle < 64){
+            Thread.onSpinWait();
+        } else if(idle < PARK_AFTER){
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(100_000L);
+        }
+    }
+
+    /**
+     * Stops accepting events, delivers the events already queued, and waits
+     * for the consumer threads to finish. Events queued by publishers that
+     * were racing with close() are delivered on the calling thread.
+     */
+    @Override
+    public void close(){
+        this.running = false;
+        for(Thread t : this.consumers){
+            LockSupport.unpark(t);
+        }
+
+        boolean interrupted = false;
+        for(Thread t : this.consumers){
+            for(;;){
+                try {
+                    t.join();
+                    break;
+                } catch (InterruptedException e){
+                    interrupted = true;
+                }
+            }
+        }
+
+        // A publisher that saw the dispatcher running may have queued an event
+        // after the consumers left. Deliver what they left, then mark the
+        // dispatcher closed and look once more: a publisher that queues after
+        // this point sees the mark and drops its own event.
+        for(DeckSnapshot s = this.next(); s != null; s = this.next()){
+            this.deliver(s);
+        }
+        this.closed = true;
+        for(DeckSnapshot s = this.next(); s != null; s = this.next()){
+            this.deliver(s);
+        }
+
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
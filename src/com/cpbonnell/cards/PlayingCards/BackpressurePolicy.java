@@ -0,0 +1,18 @@
+package com.cpbonnell.cards.PlayingCards;
+
+/**
+ * What an AsyncEventDispatcher does with an event when its buffer is full.
+ */
+public enum BackpressurePolicy {
+    
+    // The deck waits until the listeners have caught up enough to make room.
+    BLOCK,
+    
+    // The event is thrown away, and counted by the dispatcher.
+    DROP,
+    
+    // The event replaces any event of the same type from the same deck that
+    // is still waiting for room, so listeners see the latest state of each
+    // deck once they catch up.
+    COALESCE
+}
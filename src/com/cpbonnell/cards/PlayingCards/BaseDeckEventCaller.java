@@ -2,8 +2,9 @@ package com.cpbonnell.cards.PlayingCards;
 
 import java.util.function.IntSupplier;
 import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
-import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class to manage the parent deck's relations with various event listeners.
@@ -17,20 +18,67 @@ import java.util.*;
  *     can then raise the events in this class without worrying about 
  *     maintaining the lists of listeners.
  * </p>
+ * <p>
+ *     By default listeners are run on the thread that raised the event,
+ *     while the parent deck is locked into read-only mode. If an
+ *     AsyncEventDispatcher has been set, the event is instead published to the
+ *     dispatcher as a DeckSnapshot, and the listeners are run later on one of
+ *     the dispatcher's threads, with the snapshot in place of the deck.
+ *     A deck that can not be locked, such as a ConcurrentPlayingDeck, may
+ *     ask for snapshots to be passed to synchronous listeners as well.
+ * </p>
+ * <p>
+ *     The listeners for each event are kept in a ListenerRegistry, with a
+ *     second registry for the listeners that are also passed the number of
+ *     cards a draw or discard event was raised for. The add methods return
+ *     a handle issued by the registry, which is what the remove methods
+ *     expect; removing a handle that is not registered simply returns false.
+ * </p>
+ * <p>
+ *     If DeckMetrics have been set, every event is counted, whether or not
+ *     it has listeners, with a batch of cards counted once per card, and
+ *     every listener call is timed.
+ * </p>
  */
 class BaseDeckEventCaller implements IDeckEventCaller {
     
-    // Lists of objects listening for events...
-    List< Consumer<IPlayingDeck> > cardDrawnListeners = new ArrayList<>();
-    List< Consumer<IPlayingDeck> > discardDrawnListeners = new ArrayList<>();
-    List< Consumer<IPlayingDeck> > cardDiscardedListeners = new ArrayList<>();
-    List< Consumer<IPlayingDeck> > deckShuffledListeners = new ArrayList<>();
-    List< Consumer<IPlayingDeck> > invalidDiscardListeners = new ArrayList<>();
+    // Registries of objects listening for events...
+    final ListenerRegistry<Consumer<IPlayingDeck>> cardDrawnListeners = ListenerRegistry.ofDeckListeners();
+    final ListenerRegistry<Consumer<IPlayingDeck>> discardDrawnListeners = ListenerRegistry.ofDeckListeners();
+    final ListenerRegistry<Consumer<IPlayingDeck>> cardDiscardedListeners = ListenerRegistry.ofDeckListeners();
+    final ListenerRegistry<Consumer<IPlayingDeck>> deckShuffledListeners = ListenerRegistry.ofDeckListeners();
+    final ListenerRegistry<Consumer<IPlayingDeck>> invalidDiscardListeners = ListenerRegistry.ofDeckListeners();
+    
+    // ...and of those that are also told how many cards an event was for
+    final ListenerRegistry<ObjIntConsumer<IPlayingDeck>> cardsDrawnListeners = ListenerRegistry.ofCountListeners();
+    final ListenerRegistry<ObjIntConsumer<IPlayingDeck>> cardsDiscardedListeners = ListenerRegistry.ofCountListeners();
+    
+    // Stands in for the count listeners of the events that have none
+    private static final ListenerRegistry<ObjIntConsumer<IPlayingDeck>> NO_COUNT_LISTENERS =
+            ListenerRegistry.ofCountListeners();
     
     IntSupplier entryCriticalSection;
     IntSupplier exitCriticalSection;
     
+    // Whether synchronous listeners are handed a snapshot instead of the deck
+    private final boolean snapshotListeners;
+    
+    // The dispatcher for asynchronous delivery, or null to deliver synchronously,
+    // and the latest snapshot of each event type that is waiting to be coalesced.
+    private volatile AsyncEventDispatcher dispatcher;
+    private final AtomicReferenceArray<DeckSnapshot> coalescedSnapshots =
+            new AtomicReferenceArray<>(DeckEventType.values().length);
+    
+    // The metrics to record events in, or null to record nothing
+    private volatile DeckMetrics metrics;
+    
     public BaseDeckEventCaller(IntSupplier entrySection, IntSupplier exitSection){
+        this(entrySection, exitSection, false);
+    }
+    
+    BaseDeckEventCaller(IntSupplier entrySection, IntSupplier exitSection, boolean snapshotListeners){
+        
+        this.snapshotListeners = snapshotListeners;
         
         // If no callback is supplied for the critical sections, we supply a default
         // method in the form of a lambda that does nothing. This makes later code
@@ -53,152 +101,253 @@ class BaseDeckEventCaller implements IDeckEventCaller {
     //==================== Functions for the CardDrawn Event ====================
     @Override
     public int addCardDrawnListener(Consumer<IPlayingDeck> listener){
-        
-        if( ! cardDrawnListeners.contains(listener) ){
-            cardDrawnListeners.add(listener);
-            return listener.hashCode();
-        }
-        return -1;
+        return this.cardDrawnListeners.add(listener);
     }
 
     @Override
-    public boolean removeCardDrawnListener(int listenerHash) {
-        // Find the specified object
-        Consumer<IPlayingDeck> obj = this.cardDrawnListeners.stream().
-                filter(o -> o.hashCode() == listenerHash).findFirst().get();
-        
-        // Remove the object from the collection, if it was found
-        return this.cardDrawnListeners.remove(obj);
+    public boolean removeCardDrawnListener(int handle) {
+        return this.cardDrawnListeners.remove(handle);
     }
 
     @Override
     public void onCardDrawn(IPlayingDeck d){
-        if( ! cardDrawnListeners.isEmpty() ){
-            this.entryCriticalSection.getAsInt();
-            cardDrawnListeners.stream().forEach(o -> o.accept(d));
-            this.exitCriticalSection.getAsInt();
-        }
+        this.onCardsDrawn(d, 1);
+    }
+
+    @Override
+    public int addCardsDrawnListener(ObjIntConsumer<IPlayingDeck> listener){
+        return this.cardsDrawnListeners.add(listener);
+    }
+
+    @Override
+    public boolean removeCardsDrawnListener(int handle) {
+        return this.cardsDrawnListeners.remove(handle);
+    }
+
+    @Override
+    public void onCardsDrawn(IPlayingDeck d, int count){
+        this.fire(this.cardDrawnListeners, this.cardsDrawnListeners, d, DeckEventType.CARD_DRAWN, count);
     }
 
     
     //==================== Functions for the DiscardDrawn Event ====================
     @Override
     public int addDiscardDrawnListener(Consumer<IPlayingDeck> listener){
-        if( ! discardDrawnListeners.contains(listener) ){
-            discardDrawnListeners.add(listener);
-            return listener.hashCode();
-        }
-        return -1;
+        return this.discardDrawnListeners.add(listener);
     }
     
     @Override
-    public boolean removeDiscardDrawnListener(int listenerHash) {
-        // Find the specified object
-        Consumer<IPlayingDeck> obj = this.discardDrawnListeners.stream().
-                filter(o -> o.hashCode() == listenerHash).findFirst().get();
-        
-        // Remove the object from the collection
-        return this.discardDrawnListeners.remove(obj);
+    public boolean removeDiscardDrawnListener(int handle) {
+        return this.discardDrawnListeners.remove(handle);
     }
 
     @Override
     public void onDiscardDrawn(IPlayingDeck d){
-        if( ! discardDrawnListeners.isEmpty() ){
-            this.entryCriticalSection.getAsInt();
-            discardDrawnListeners.stream().forEach(o -> o.accept(d));
-            this.exitCriticalSection.getAsInt();
-        }
+        this.fire(this.discardDrawnListeners, NO_COUNT_LISTENERS, d, DeckEventType.DISCARD_DRAWN, 1);
     }
     
     
     //==================== Functions for the CardDiscarded Event ====================
     @Override
     public int addCardDiscardedListener(Consumer<IPlayingDeck> listener){
-        if( ! cardDiscardedListeners.contains(listener) ){
-            cardDiscardedListeners.add(listener);
-            return listener.hashCode();
-        }
-        return -1;
+        return this.cardDiscardedListeners.add(listener);
     }
     
 
     @Override
-    public boolean removeCardDiscardedListener(int listenerHash) {
-        // Find the specified object
-        Consumer<IPlayingDeck> obj = this.cardDiscardedListeners.stream().
-                filter(o -> o.hashCode() == listenerHash).findFirst().get();
-
-        // Remove the object from the collection
-        return this.cardDiscardedListeners.remove(obj);
+    public boolean removeCardDiscardedListener(int handle) {
+        return this.cardDiscardedListeners.remove(handle);
     }
 
     @Override
     public void onCardDiscarded(IPlayingDeck d){
-        if( ! cardDiscardedListeners.isEmpty() ){
-            this.entryCriticalSection.getAsInt();
-            cardDiscardedListeners.stream().forEach(o -> o.accept(d));
-            this.exitCriticalSection.getAsInt();
-        }
+        this.onCardsDiscarded(d, 1);
+    }
+
+    @Override
+    public int addCardsDiscardedListener(ObjIntConsumer<IPlayingDeck> listener){
+        return this.cardsDiscardedListeners.add(listener);
+    }
+
+    @Override
+    public boolean removeCardsDiscardedListener(int handle) {
+        return this.cardsDiscardedListeners.remove(handle);
+    }
+
+    @Override
+    public void onCardsDiscarded(IPlayingDeck d, int count){
+        this.fire(this.cardDiscardedListeners, this.cardsDiscardedListeners, d, DeckEventType.CARD_DISCARDED, count);
     }
 
     //==================== Functions for the Deck Shuffled Event ====================
     @Override
     public int addDeckShuffledListener(Consumer<IPlayingDeck> listener){
-        if( ! deckShuffledListeners.contains(listener) ){
-            deckShuffledListeners.add(listener);
-            return listener.hashCode();
-        }
-        return -1;
+        return this.deckShuffledListeners.add(listener);
     }
     
 
     @Override
-    public boolean removeDeckShuffledListener(int listenerHash) {
-        // Find the specified object
-        Consumer<IPlayingDeck> obj = this.deckShuffledListeners.stream().
-                filter(o -> o.hashCode() == listenerHash).findFirst().get();
-
-        // Remove the object from the collection
-        return this.deckShuffledListeners.remove(obj);
+    public boolean removeDeckShuffledListener(int handle) {
+        return this.deckShuffledListeners.remove(handle);
     }
 
     @Override
     public void onDeckShuffled(IPlayingDeck d){
-        if( ! deckShuffledListeners.isEmpty() ){
-            this.entryCriticalSection.getAsInt();
-            deckShuffledListeners.stream().forEach(o -> o.accept(d));
-            this.exitCriticalSection.getAsInt();
-        }
+        this.fire(this.deckShuffledListeners, NO_COUNT_LISTENERS, d, DeckEventType.DECK_SHUFFLED, 1);
     }
 
     //==================== Functions for the Invalid Discard Event ====================
     @Override
     public int addInvalidDiscardListener(Consumer<IPlayingDeck> listener){
-        if( ! invalidDiscardListeners.contains(listener) ){
-            invalidDiscardListeners.add(listener);
-            return listener.hashCode();
-        }
-        return -1;
+        return this.invalidDiscardListeners.add(listener);
     }
     
 
     @Override
-    public boolean removeInvalidDiscardListener(int listenerHash) {
-        // Find the specified object
-        Consumer<IPlayingDeck> obj = this.invalidDiscardListeners.stream().
-                filter(o -> o.hashCode() == listenerHash).findFirst().get();
-
-        // Remove the object from the collection
-        return this.invalidDiscardListeners.remove(obj);
+    public boolean removeInvalidDiscardListener(int handle) {
+        return this.invalidDiscardListeners.remove(handle);
     }
 
     @Override
     public void onInvalidDiscard(IPlayingDeck d){
-        if( ! invalidDiscardListeners.isEmpty() ){
-            this.entryCriticalSection.getAsInt();
-            invalidDiscardListeners.stream().forEach(o -> o.accept(d));
+        this.fire(this.invalidDiscardListeners, NO_COUNT_LISTENERS, d, DeckEventType.INVALID_DISCARD, 1);
+    }
+    
+    
+    //==================== Event Delivery ====================
+    
+    @Override
+    public void setDispatcher(AsyncEventDispatcher dispatcher){
+        this.dispatcher = dispatcher;
+    }
+    
+    @Override
+    public void setMetrics(DeckMetrics metrics){
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public DeckMetrics metrics(){
+        return this.metrics;
+    }
+    
+    private void fire(ListenerRegistry<Consumer<IPlayingDeck>> registry,
+                      ListenerRegistry<ObjIntConsumer<IPlayingDeck>> counted,
+                      IPlayingDeck d, DeckEventType type, int count){
+        DeckMetrics m = this.metrics;
+        if(m != null){
+            m.recordEvent(type, count);
+        }
+        
+        if( registry.isEmpty() && counted.isEmpty() ){
+            return;
+        }
+        
+        AsyncEventDispatcher async = this.dispatcher;
+        if(async != null){
+            async.publish(new DeckSnapshot(d, type, this, count));
+            return;
+        }
+        
+        IPlayingDeck source = d;
+        if(this.snapshotListeners){
+            d = new DeckSnapshot(d, type, this, count);
+        }
+        
+        this.entryCriticalSection.getAsInt();
+        try {
+            callListeners(registry, counted, d, source, type, count, m, false);
+        } finally {
             this.exitCriticalSection.getAsInt();
         }
     }
     
+    // Called on a dispatcher thread to run the listeners for an asynchronous event
+    void dispatch(DeckSnapshot s){
+        DeckEventType type = s.eventType();
+        callListeners(this.listenersFor(type), this.countListenersFor(type), s, s.source, type, s.count(),
+                this.metrics, true);
+    }
+    
+    // Runs the listeners, timing each one if there are metrics to record into or a
+    // flight recording that wants ListenerInvocation events. The source is the deck
+    // that raised the event, which d may be a snapshot of.
+    private static void callListeners(ListenerRegistry<Consumer<IPlayingDeck>> registry,
+                                      ListenerRegistry<ObjIntConsumer<IPlayingDeck>> counted,
+                                      IPlayingDeck d, IPlayingDeck source, DeckEventType type, int count,
+                                      DeckMetrics m, boolean asynchronous){
+        if(m == null && ! ListenerInvocationEvent.enabled()){
+            for(Consumer<IPlayingDeck> listener : registry.listeners()){
+                listener.accept(d);
+            }
+            for(ObjIntConsumer<IPlayingDeck> listener : counted.listeners()){
+                listener.accept(d, count);
+            }
+            return;
+        }
+        
+        for(Consumer<IPlayingDeck> listener : registry.listeners()){
+            ListenerInvocationEvent event = new ListenerInvocationEvent();
+            event.begin();
+            long start = m == null ? 0 : System.nanoTime();
+            try {
+                listener.accept(d);
+            } finally {
+                finishInvocation(event, start, m, listener, source, type, asynchronous);
+            }
+        }
+        for(ObjIntConsumer<IPlayingDeck> listener : counted.listeners()){
+            ListenerInvocationEvent event = new ListenerInvocationEvent();
+            event.begin();
+            long start = m == null ? 0 : System.nanoTime();
+            try {
+                listener.accept(d, count);
+            } finally {
+                finishInvocation(event, start, m, listener, source, type, asynchronous);
+            }
+        }
+    }
+    
+    private static void finishInvocation(ListenerInvocationEvent event, long start, DeckMetrics m, Object listener,
+                                         IPlayingDeck source, DeckEventType type, boolean asynchronous){
+        if(m != null){
+            m.recordListenerNanos(type, System.nanoTime() - start);
+        }
+        event.end();
+        if(event.shouldCommit()){
+            event.setDeck(source);
+            event.eventType = type.name();
+            event.listener = listener.getClass();
+            event.asynchronous = asynchronous;
+            event.commit();
+        }
+    }
+    
+    // Stores the latest snapshot of its type, returning the one it replaced
+    DeckSnapshot coalesce(DeckSnapshot s){
+        return this.coalescedSnapshots.getAndSet(s.eventType().ordinal(), s);
+    }
+    
+    DeckSnapshot takeCoalesced(DeckEventType type){
+        return this.coalescedSnapshots.getAndSet(type.ordinal(), null);
+    }
+    
+    private ListenerRegistry<Consumer<IPlayingDeck>> listenersFor(DeckEventType type){
+        switch(type){
+            case CARD_DRAWN: return this.cardDrawnListeners;
+            case DISCARD_DRAWN: return this.discardDrawnListeners;
+            case CARD_DISCARDED: return this.cardDiscardedListeners;
+            case DECK_SHUFFLED: return this.deckShuffledListeners;
+            default: return this.invalidDiscardListeners;
+        }
+    }
+    
+    private ListenerRegistry<ObjIntConsumer<IPlayingDeck>> countListenersFor(DeckEventType type){
+        switch(type){
+            case CARD_DRAWN: return this.cardsDrawnListeners;
+            case CARD_DISCARDED: return this.cardsDiscardedListeners;
+            default: return NO_COUNT_LISTENERS;
+        }
+    }
+    
 }
@@ -1,6 +1,10 @@
 package com.cpbonnell.cards.PlayingCards;
 
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Workhorse class, providing most of the functionality of the package.
@@ -18,64 +22,46 @@ import java.util.*;
  * <p>
  *     The BasePlayingDeck class simulates the behavior of a physical playing
  *     deck (namely, the uniqueness of cards) by keeping an internal set of
- *     PlayingCard objects that determine the values present in the deck.
- *     When a card is "drawn" a new object of type SecurePlayingCard is
- *     created, with an internal reference pointing to one of the
- *     PlayingCard objects internal to the deck. This SecurePlayingCard
- *     has no values stored internally, but implements the IPlayingCard
- *     interface by mirroring the values of the playing card it points to.
+ *     card values that determine the values present in the deck. Values are
+ *     stored as one byte card numbers (see BitmaskOperations.cardNumber), and
+ *     the piles are byte arrays of card numbers, so a deck holds no card
+ *     objects of its own. When a card is "drawn" a new object of type
+ *     SecurePlayingCard is created, pointing to the shared PlayingCard for
+ *     the drawn value. This SecurePlayingCard has no values stored internally,
+ *     but implements the IPlayingCard interface by mirroring the values of the
+ *     playing card it points to.
  * </p>
  */
-public class BasePlayingDeck implements IPlayingDeck {
-    
-    // A private variable to allow the deck to be locked into a "read only"
-    // mode during event calls, so that its state may be observed by event
-    // handlers, but not modified. This both prevents cheating, and avoids
-    // infinite loops where an event handler generates new events.
-    private boolean isReadOnly;
-    
-    // Other variables that specify optional deck behaviors
-    private boolean allowDrawFromDiscard;
-    private boolean allowShuffle;
-    
-    // A DeckEventCaller object to handle the relations with various event listeners
-    IDeckEventCaller eventCaller;
-    
-    // A random number generator for all the shuffling and other randomization that
-    // is needed throughout the life of the deck.
-    private Random rng;
+public class BasePlayingDeck extends AbstractPlayingDeck {
 
-    // This structure maintains the card objects that represent the actual values of the
-    // deck. The other three collections maintain reverence to these objects.
-    private List<IPlayingCard> cardValues;
+    // The draw pile is a ring buffer, read from drawHead, with shuffled cards
+    // added at the tail
+    private int drawHead;
 
-    // The names of these collections should be fairly intuitive...
-    private List<IPlayingCard> outstandingCards;
-    private Queue<IPlayingCard> drawPile;
-    private Deque<IPlayingCard> discardPile;
-    
     //============================== Constructors ==============================
     public BasePlayingDeck(List<IPlayingCard> values){
-        
-        this.isReadOnly = false;
-        this.allowDrawFromDiscard = true;
-        this.allowShuffle = true;
-        
-        // Instantiate the random number generator, seeding it based on the
-        // current time to keep things from progressing the same way every game.
-        this.rng = new Random(System.currentTimeMillis());
-        
-        // Copy the items into the list of values
-        this.cardValues = new ArrayList<>(values);
-        
-        // Instantiate the other collection objects
-        this.drawPile = new ArrayDeque<>();
-        this.discardPile = new ArrayDeque<>(this.cardValues);
-        this.outstandingCards = new ArrayList<>();
-        
-        // Instantiate the helper classes, and pass it a reference to the the
-        // lock and unlock functions.
-        this.eventCaller = new BaseDeckEventCaller(this::lock, this::unlock);
+        this(values, newDefaultGenerator());
+    }
+
+    /**
+     * Constructs a deck that shuffles with the given random number generator.
+     * <p>
+     *     Any RandomGenerator may be used, such as a SplittableRandom or an
+     *     L64X128MixRandom for simulations, or a SecureRandom for games played
+     *     for real money. ThreadLocalRandom.current() may also be passed, and
+     *     will use the generator of whichever thread is shuffling. Generators
+     *     that are not thread safe must not be shared between decks that are
+     *     used by different threads.
+     * </p>
+     * @param values The cards that make up the deck.
+     * @param rng The generator to use for all shuffling.
+     */
+    public BasePlayingDeck(List<IPlayingCard> values, RandomGenerator rng){
+        this(toCardNumbers(values), rng);
+    }
+
+    private BasePlayingDeck(byte[] cardNumbers, RandomGenerator rng){
+        super(cardNumbers, rng);
     }
 
     /**
@@ -83,20 +69,18 @@ public class BasePlayingDeck implements IPlayingDeck {
      * @return An object implementing IPlayingCard.
      */
     public static IPlayingDeck newStandardFrenchDeck(){
-        
-        // Make a list to hold the card values
-        List<IPlayingCard> cards = new ArrayList<>();
-        
-        // Populate the list with the appropriate values
-        for(Suits s: Suits.values()){
-            for(Ranks r: Ranks.values()){
-                cards.add(new PlayingCard(r, s));
-            }
-        }
-        
+        return newStandardFrenchDeck(newDefaultGenerator());
+    }
+
+    /**
+     * Static method to construct a standard 52 card French deck.
+     * @param rng The generator to use for all shuffling.
+     * @return An object implementing IPlayingCard.
+     */
+    public static IPlayingDeck newStandardFrenchDeck(RandomGenerator rng){
         
         // Construct the deck object
-        BasePlayingDeck deck = new BasePlayingDeck(cards);
+        BasePlayingDeck deck = new BasePlayingDeck(frenchCardNumbers(), rng);
         
         // Set the default values
         deck.allowShuffle = true;
@@ -112,23 +96,18 @@ public class BasePlayingDeck implements IPlayingDeck {
      * @return An object implementing IPlayingCard.
      */
     public static IPlayingDeck newPinochleDeck(){
+        return newPinochleDeck(newDefaultGenerator());
+    }
 
-        // Make a list to hold the card values
-        List<IPlayingCard> cards = new ArrayList<>();
-
-        // Populate the list with the appropriate values
-        Ranks[] desiredRanks = {Ranks.ACE, Ranks.KING, Ranks.QUEEN, Ranks.JACK, Ranks.TEN, Ranks.NINE};
-        
-        for(Suits s: Suits.values()){
-            for(Ranks r: desiredRanks){
-                cards.add(new PlayingCard(r, s));
-                cards.add(new PlayingCard(r, s));
-            }
-        }
-
+    /**
+     * Static method to construct a standard 48 card Pinochle deck.
+     * @param rng The generator to use for all shuffling.
+     * @return An object implementing IPlayingCard.
+     */
+    public static IPlayingDeck newPinochleDeck(RandomGenerator rng){
 
         // Construct the deck object
-        BasePlayingDeck deck = new BasePlayingDeck(cards);
+        BasePlayingDeck deck = new BasePlayingDeck(pinochleCardNumbers(), rng);
 
         // Set the default values
         deck.allowShuffle = true;
@@ -138,285 +117,95 @@ public class BasePlayingDeck implements IPlayingDeck {
         deck.shuffle();
         return deck;
     }
-    
-    
-    
-    //============================== Accessors ==============================
-    // Make the event manager and the deck state public
-
-    /**
-     * Get access to the deck manager to register or unregister event listeners.
-     * @return A reference to the Deck's event caller object.
-     */
-    public IDeckEventRegistrar getEventManager(){
-        return this.eventCaller;
-    }
-
-    /**
-     * Shows the rank of the top card on the discard pile.
-     * @return The rank of the top card on the discard pile
-     */
-    @Override
-    public Ranks viewDiscardRank(){
-        if(this.discardPile.size() > 0){
-            return this.discardPile.peek().rank();
-        } else {
-            return null;
-        }
-    }
-
-    /**
-     * Shows the suit of the top card on the discard pile
-     * @return The suit of the top card on the discard pile.
-     */
-    @Override
-    public Suits viewDiscardSuit(){
-        if( ! this.discardPile.isEmpty() ){
-            return this.discardPile.peek().suit();
-        } else {
-            return null;
-        }
-    }
 
-    /**
-     * Gets the number of cards available for the drawCard() method.
-     * @return The number of cards available in the draw pile.
-     */
-    @Override
-    public int drawPileSize() {
-        return this.drawPile.size();
-    }
 
-    /**
-     * Gets the number of cards available for the drawDiscard() method.
-     * @return The number of cards in the discard pile.
-     */
-    @Override
-    public int discardPileSize() {
-        return this.discardPile.size();
-    }
 
-    /**
-     * Gets the number of cards that have been issued via the two draw* methods.
-     * @return The number of cards outstanding.
-     */
-    @Override
-    public int outstandingSize() {
-        return this.outstandingCards.size();
-    }
+    //============================== Draw Pile ==============================
 
-    /**
-     * Gets the total number of distinct card objects belonging to the object.
-     * @return The number of card objects belonging to the deck.
-     */
+    // Takes the top card of the draw pile
     @Override
-    public int totalSize(){
-        return this.cardValues.size();
+    byte takeFromDrawPile(){
+        byte c = this.drawPile[this.drawHead];
+        this.drawHead = this.drawHead + 1 == this.drawPile.length ? 0 : this.drawHead + 1;
+        this.drawCount--;
+        return c;
     }
 
-    /**
-     * Determines if the specified IPlayingCard object is a valid outstanding card from this deck.
-     * @param c An objectimplementing IPlayingCard whose authenticity is in question.
-     * @return true if the card is a valid outstanding card, false if it is not.
-     */
+    // Fisher-Yates shuffles the bottom of the discard pile in place, and places
+    // the shuffled cards on the bottom of the draw pile
     @Override
-    public boolean validateOutstandingCard(IPlayingCard c){
-        
-        // Make sure that the parameter is of the proper class
-        if(c.getClass() != SecurePlayingCard.class){
-            return false;
+    void addToDrawPile(int moved){
+
+        // NOTE: nextInt returns a number between 0 (inclusive) and i + 1 (exclusive),
+        // so every position up to and including i may be picked.
+        for(int i = moved - 1; i > 0; i--){
+            int j = this.rng.nextInt(i + 1);
+            byte c = this.discardPile[i];
+            this.discardPile[i] = this.discardPile[j];
+            this.discardPile[j] = c;
         }
-        
-        //Cast the parameter to a concrete type to get the additional functionality
-        SecurePlayingCard s = (SecurePlayingCard) c;
-        
-        // Scan through the BasePlayingCards in the list of outstanding cards, and
-        // if the item is found, return true. Otherwise, return false.
-         return this.outstandingCards.stream().anyMatch( s::pointsAt );
-    }
 
-    //============================== Action Methods ==============================
-    // Methods that change the state of the deck. All of these raise events,
-    // and are available only when the deck is NOT locked. 
-    
-    /**
-     * Shuffles the discard pile back into the deck, leaving some.
-     * <p>
-     *     This function randomizes the cards in the discard pile, and places
-     *     them at the bottom of the deck. A specified number are left at the
-     *     top of the discard pile, and not randomized or moved back into the
-     *     deck. If the number of cards specified is greater than the total
-     *     number of cards in the discard pile, then no cards are moved to
-     *     the deck.
-     * </p>
-     * @param leaveTopDiscards The number of cards to leave on top of the discard pile.
-     */
-    @Override
-    public void shuffle(int leaveTopDiscards){
-        
-        // Exit immediately if the deck is in read-only mode, or if shuffling is not allowed
-        if(this.isReadOnly || ! this.allowShuffle ){
-            return;
+        int tail = this.drawHead + this.drawCount;
+        for(int i = 0; i < moved; i++, tail++){
+            if(tail >= this.drawPile.length) tail -= this.drawPile.length;
+            this.drawPile[tail] = this.discardPile[i];
         }
-        
-        // The deque collection does not allow random access, so we need to put the cards from
-        // the discard pile into a collection that will allow us to split them how we like.
-        List<IPlayingCard> replacementDiscardPile = new ArrayList<>(this.discardPile);
-
-        // Pull remaining cards from the discard pile at random and place them in the
-        // facedown pile.
-        while(replacementDiscardPile.size() > leaveTopDiscards){
-            
-            // NOTE: nextInt returns a number between 0 (inclusive) and i (exclusive), so no -1 is needed
-            // at the end to keep the index in balance
-            
-            // Pick an index at random from the range to be sorted
-            int i = this.rng.nextInt(replacementDiscardPile.size() - leaveTopDiscards);
-            i += leaveTopDiscards;
-            
-            // Place the card corresponding to that index on the bottom of the draw pile,
-            // and remove it from the discard pile
-            IPlayingCard c = replacementDiscardPile.remove(i);
-            this.drawPile.add(c);
-        }// END while
-        
-        // We are done shuffling the discard pile, and need only replace the cards that
-        // we left at the top of the discard pile.
-        this.discardPile = new ArrayDeque<>(replacementDiscardPile);
-        
-        // Raise the appropriate event...
-        this.eventCaller.onDeckShuffled(this);
-    }
-
-    /**
-     * Shuffles the whole discard pile back into the deck.
-     */
-    @Override
-    public void shuffle(){
-        this.shuffle(0);
+        this.drawCount += moved;
     }
 
-    
 
-    /**
-     * Issues a card from the dop of the draw pile.
-     * <p>
-     * Issues an object implementing IPlayingCard, but with no face value of his own. The
-     * card instead references a face value stored in the deck. When the object is
-     * returned to the deck via discardCard, the object is invalidated. The object
-     * is not destroyed by the method, but the link to its value is severed, and it will
-     * appear blank. The value of discarded card is then added to the discard pile.
-     * </p>
-     * @return a facade object implementing IPlayingCard.
-     */
-    @Override
-    public IPlayingCard drawCard() {
+    //==================== Private Helper Functions ====================
 
-        // Exit immediately if the deck is in read-only mode.
-        if(this.isReadOnly){
-            return null;
-        }
+    // The card numbers of a standard 52 card French deck
+    static byte[] frenchCardNumbers(){
         
-        // Handle cases where there are no cards left in the draw pile
-        if(this.drawPile.isEmpty()){
-            
-            if( ! this.discardPile.isEmpty() ){
-                // Maybe the discard pile just needs to be shuffled...
-                
-                this.shuffle();
-                
-            } else if(this.outstandingCards.size() == this.cardValues.size()){
-                // Maybe all the available cards are still in the hands of various users, and
-                // we can't do anything about it...
-                return null;
+        // Make an array to hold the card values
+        byte[] cards = new byte[Suits.values().length * Ranks.values().length];
+        int i = 0;
+        
+        // Populate the array with the appropriate values
+        for(Suits s: Suits.values()){
+            for(Ranks r: Ranks.values()){
+                cards[i++] = (byte) BitmaskOperations.cardNumber(r, s);
             }
         }
-        
-        // Get the top card off the draw pile
-        IPlayingCard c = this.drawPile.remove();
-        
-        // Create a card facade to represent the value outside the deck
-        IPlayingCard f = new SecurePlayingCard(c);
-        
-        // Move the actual card into the list of outstanding cards
-        this.outstandingCards.add(c);
-        
-        // Raise the card drawn event, and return the facade to the caller
-        this.eventCaller.onCardDrawn(this);
-        return f;
+        return cards;
     }
 
-    @Override
-    public IPlayingCard drawDiscard() {
+    // The card numbers of a standard 48 card Pinochle deck
+    static byte[] pinochleCardNumbers(){
+
+        // Make an array to hold the card values
+        Ranks[] desiredRanks = {Ranks.ACE, Ranks.KING, Ranks.QUEEN, Ranks.JACK, Ranks.TEN, Ranks.NINE};
+        byte[] cards = new byte[Suits.values().length * desiredRanks.length * 2];
+        int i = 0;
 
-        // Exit immediately if the deck is in read-only mode, or if drawing from the
-        // discard pile is not enabled, or if there are no cards to be drawn.
-        if(this.isReadOnly || ! this.allowDrawFromDiscard || this.discardPile.isEmpty()){
-            return null;
+        // Populate the array with the appropriate values
+        for(Suits s: Suits.values()){
+            for(Ranks r: desiredRanks){
+                cards[i++] = (byte) BitmaskOperations.cardNumber(r, s);
+                cards[i++] = (byte) BitmaskOperations.cardNumber(r, s);
+            }
         }
-        
-        // Pull the top card off the discard pile, and create a facade wrapper around it
-        IPlayingCard actual = this.discardPile.pop();
-        IPlayingCard facade = new SecurePlayingCard(actual);
-        
-        // Put the actual card into the list of outstanding cards
-        this.outstandingCards.add(actual);
-        
-        // Raise the appropriate event, and return the facade
-        this.eventCaller.onDiscardDrawn(this);
-        return facade;
+        return cards;
     }
 
-    @Override
-    public boolean discardCard(IPlayingCard c) {
-
-        // Exit immediately if the deck is in read-only mode.
-        if(this.isReadOnly){
-            return false;
-        }
-        
-        // First make sure that the parameter is a valid card facade object...
-        if(c.getClass() != SecurePlayingCard.class){
-            //DONE(cpb): Raise an invalid discard event here
-            this.eventCaller.onInvalidDiscard(this);
-            return false;
+    static byte[] toCardNumbers(List<IPlayingCard> values){
+        byte[] cards = new byte[values.size()];
+        int i = 0;
+        for(IPlayingCard c : values){
+            if(c.rank() == null || c.suit() == null){
+                throw new IllegalArgumentException("A deck can not contain blank cards");
+            }
+            cards[i++] = (byte) BitmaskOperations.cardNumber(c);
         }
-        
-        // We have verified that the parameter c is indeed a SecurePlayingCard, so
-        // it is safe to cast it and gain access to the object's additional functionality.
-        SecurePlayingCard facade = (SecurePlayingCard) c;
-        
-        
-        // Find the corresponding valued card in the outstanding cards list...
-        //NOTE: The method reference may be replaced with the lambda "o -> facade.pointsAt(o)" ...
-        // not sure which is clearer, and may swap them out later.
-        IPlayingCard target = this.outstandingCards.stream().filter( facade::pointsAt ).findFirst().get();
-        
-        // We now want to remove the target card from the list of outstanding cards,
-        // and put it on top of the discard pile...
-        this.outstandingCards.remove(target);
-        this.discardPile.push(target);
-        
-        // Lastly, we want to invalidate the card facade that was passed as a parameter,
-        // raise a card discarded event, and return true to indicate that the
-        // operation was successful.
-        facade.invalidate();
-        this.eventCaller.onCardDiscarded(this);
-        return true;
+        return cards;
     }
 
-
-    //==================== Private Helper Functions ====================
-
-    
-    private int lock() {
-        this.isReadOnly = true;
-        return 1;
-    }
-    
-    private int unlock() {
-        this.isReadOnly = false;
-        return 1;
+    // Each deck gets its own unsynchronized generator. Seeding from the creating
+    // thread's ThreadLocalRandom gives every deck a distinct 64 bit seed, even
+    // when thousands of decks are created in the same millisecond.
+    static RandomGenerator newDefaultGenerator(){
+        return new SplittableRandom(ThreadLocalRandom.current().nextLong());
     }
-    
 }
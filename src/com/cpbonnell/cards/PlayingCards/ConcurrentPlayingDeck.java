@@ -0,0 +1,716 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.random.RandomGenerator;
+
+/**
+ * A deck that any number of threads may draw from and discard to at once.
+ *
+ * <p>
+ *     The BasePlayingDeck is written for one thread at a time. This class
+ *     offers the same behavior to many dealer threads sharing one deck or
+ *     shoe, without a monitor around the whole deck. Each physical card of
+ *     the deck has a fixed index, and the draw and discard piles are lock
+ *     free stacks of those indexes: drawing pops the top of the draw pile,
+ *     and discarding pushes onto the discard pile, each with a single
+ *     compare-and-set. Every node of a pile records its depth, so the size of
+ *     a pile is read from its top node.
+ * </p>
+ * <p>
+ *     A card that is out of the deck is tracked in the slot of its index by
+ *     the SecurePlayingCard facade that was issued for it. Returning a card
+ *     clears the slot with a compare-and-set from that facade, so when two
+ *     threads try to discard the same card only one of them succeeds, and
+ *     the other raises an invalid discard event. Draws and discards take
+ *     effect at the instant of their compare-and-set.
+ * </p>
+ * <p>
+ *     Shuffling is the one operation that takes a lock, and the lock is only
+ *     shared between shufflers: the cards to shuffle are detached from the
+ *     discard pile in one step, shuffled privately, and then placed under the
+ *     draw pile in another, while draws and discards carry on. Between those
+ *     two steps the cards being shuffled are counted in neither pile. A
+ *     thread that finds the draw pile empty waits for any shuffle in progress
+ *     before shuffling the discard pile itself, so it never gives up while
+ *     cards are on their way back to the draw pile.
+ * </p>
+ * <p>
+ *     The deck can not be locked into read-only mode while listeners run, as
+ *     that would stall every other thread. Instead listeners are handed a
+ *     DeckSnapshot of the deck, which can not be modified. Each size in the
+ *     snapshot, like each size reported by the deck, was exact at some moment
+ *     during the call, but other threads may have moved cards in between, so
+ *     the sizes need not add up to the total size of the deck. The counts
+ *     of the deck's composition are updated with an atomic add just after
+ *     each card moves, and are exact in the same way.
+ * </p>
+ */
+public class ConcurrentPlayingDeck implements IPlayingDeck {
+
+    // One node of a pile. Nodes are never modified, so a pile can be read or
+    // replaced with a single reference, and the depth of the top node is the
+    // size of the pile.
+    private static final class Node {
+        final int card;
+        final Node next;
+        final int depth;
+
+        Node(int card, Node next){
+            this.card = card;
+            this.next = next;
+            this.depth = next == null ? 1 : next.depth + 1;
+        }
+    }
+
+    // The card number of each physical card, by card index
+    private final byte[] cardValues;
+
+    // The tops of the two piles, which hold card indexes
+    private final AtomicReference<Node> drawPile = new AtomicReference<>();
+    private final AtomicReference<Node> discardPile = new AtomicReference<>();
+
+    // The facade issued for each outstanding card, by card index
+    private final AtomicReferenceArray<SecurePlayingCard> outstandingSlots;
+    private final AtomicInteger outstandingCount = new AtomicInteger();
+
+    // Shuffles are serialized by this lock, which also guards the generator
+    // and the scratch arrays used while shuffling.
+    private final ReentrantLock shuffleLock = new ReentrantLock();
+    private final RandomGenerator rng;
+    private final int[] shuffleBuffer;
+    private final int[] drawBuffer;
+    private final int[] shuffledCounts = new int[BitmaskOperations.NUMBER_OF_CARDS];
+
+    private final BaseDeckEventCaller eventCaller;
+
+    // The counts of the cards in each pile, updated as each card moves
+    private final DeckComposition composition;
+
+    //============================== Constructors ==============================
+    public ConcurrentPlayingDeck(List<IPlayingCard> values){
+        this(values, BasePlayingDeck.newDefaultGenerator());
+    }
+
+    /**
+     * Constructs a deck that shuffles with the given random number generator.
+     * <p>
+     *     The generator is only used by one shuffling thread at a time, so it
+     *     does not need to be thread safe.
+     * </p>
+     * @param values The cards that make up the deck.
+     * @param rng The generator to use for all shuffling.
+     */
+    public ConcurrentPlayingDeck(List<IPlayingCard> values, RandomGenerator rng){
+        this(BasePlayingDeck.toCardNumbers(values), rng);
+    }
+
+    private ConcurrentPlayingDeck(byte[] cardNumbers, RandomGenerator rng){
+
+        this.rng = Objects.requireNonNull(rng, "rng");
+        this.cardValues = cardNumbers;
+        int n = this.cardValues.length;
+        if(n > DeckComposition.MAX_CARDS){
+            throw new IllegalArgumentException("A deck can hold at most " + DeckComposition.MAX_CARDS
+                    + " cards, not " + n);
+        }
+
+        // All the cards start on the discard pile, with the first value on top
+        this.discardPile.set(allCards(n));
+        this.composition = new DeckComposition(true);
+        this.composition.gather(this.cardValues);
+
+        this.outstandingSlots = new AtomicReferenceArray<>(n);
+        this.shuffleBuffer = new int[n];
+        this.drawBuffer = new int[n];
+
+        // Nothing can lock this deck, so listeners are given snapshots instead
+        this.eventCaller = new BaseDeckEventCaller(null, null, true);
+    }
+
+    /**
+     * Static method to construct a standard 52 card French deck.
+     * @return An object implementing IPlayingCard.
+     */
+    public static IPlayingDeck newStandardFrenchDeck(){
+        return newStandardFrenchDeck(BasePlayingDeck.newDefaultGenerator());
+    }
+
+    /**
+     * Static method to construct a standard 52 card French deck.
+     * @param rng The generator to use for all shuffling.
+     * @return An object implementing IPlayingCard.
+     */
+    public static IPlayingDeck newStandardFrenchDeck(RandomGenerator rng){
+        ConcurrentPlayingDeck deck = new ConcurrentPlayingDeck(BasePlayingDeck.frenchCardNumbers(), rng);
+        deck.shuffle();
+        return deck;
+    }
+
+    /**
+     * Static method to construct a standard 48 card Pinochle deck.
+     * @return An object implementing IPlayingCard.
+     */
+    public static IPlayingDeck newPinochleDeck(){
+        return newPinochleDeck(BasePlayingDeck.newDefaultGenerator());
+    }
+
+    /**
+     * Static method to construct a standard 48 card Pinochle deck.
+     * @param rng The generator to use for all shuffling.
+     * @return An object implementing IPlayingCard.
+     */
+    public static IPlayingDeck newPinochleDeck(RandomGenerator rng){
+        ConcurrentPlayingDeck deck = new ConcurrentPlayingDeck(BasePlayingDeck.pinochleCardNumbers(), rng);
+        deck.shuffle();
+        return deck;
+    }
+
+
+    //============================== Accessors ==============================
+
+    /**
+     * Get access to the deck manager to register or unregister event listeners.
+     * @return A reference to the Deck's event caller object.
+     */
+    @Override
+    public IDeckEventRegistrar getEventManager(){
+        return this.eventCaller;
+    }
+
+    /**
+     * Switches the deck between synchronous and asynchronous event delivery.
+     * @param dispatcher The dispatcher to deliver events with, or null to
+     *                   deliver them synchronously again.
+     * @see BasePlayingDeck#setAsyncEventDispatcher(AsyncEventDispatcher)
+     */
+    public void setAsyncEventDispatcher(AsyncEventDispatcher dispatcher){
+        this.eventCaller.setDispatcher(dispatcher);
+    }
+
+    /**
+     * Starts or stops recording the deck's activity.
+     * @param metrics The metrics to record into, or null to stop recording.
+     * @see BasePlayingDeck#setMetrics(DeckMetrics)
+     */
+    public void setMetrics(DeckMetrics metrics){
+        this.eventCaller.setMetrics(metrics);
+    }
+
+    public DeckMetrics getMetrics(){
+        return this.eventCaller.metrics();
+    }
+
+    @Override
+    public Ranks viewDiscardRank(){
+        Node top = this.discardPile.get();
+        return top == null ? null : BitmaskOperations.rankOf(this.cardValues[top.card]);
+    }
+
+    @Override
+    public Suits viewDiscardSuit(){
+        Node top = this.discardPile.get();
+        return top == null ? null : BitmaskOperations.suitOf(this.cardValues[top.card]);
+    }
+
+    @Override
+    public int drawPileSize(){
+        return depthOf(this.drawPile.get());
+    }
+
+    @Override
+    public int discardPileSize(){
+        return depthOf(this.discardPile.get());
+    }
+
+    @Override
+    public int outstandingSize(){
+        return this.outstandingCount.get();
+    }
+
+    @Override
+    public int totalSize(){
+        return this.cardValues.length;
+    }
+
+    /**
+     * Determines if the specified IPlayingCard object is a valid outstanding card from this deck.
+     * @param c An object implementing IPlayingCard whose authenticity is in question.
+     * @return true if the card is a valid outstanding card, false if it is not.
+     */
+    @Override
+    public boolean validateOutstandingCard(IPlayingCard c){
+        if(c == null || c.getClass() != SecurePlayingCard.class){
+            return false;
+        }
+
+        SecurePlayingCard s = (SecurePlayingCard) c;
+        int slot = s.slot();
+        return slot >= 0 && slot < this.cardValues.length && this.outstandingSlots.get(slot) == s;
+    }
+
+    /**
+     * Counts the cards of the deck by value in each pile.
+     * @return A read-only view of the deck's composition, which may lag the
+     *         deck by the cards that other threads are moving.
+     */
+    @Override
+    public DeckComposition composition(){
+        return this.composition;
+    }
+
+
+    //============================== Action Methods ==============================
+
+    /**
+     * Shuffles the discard pile back into the deck, leaving some.
+     * <p>
+     *     Cards discarded while the shuffle is in progress may or may not be
+     *     included, and stay on the discard pile if they are not.
+     * </p>
+     * @param leaveTopDiscards The number of cards to leave on top of the discard pile.
+     */
+    @Override
+    public void shuffle(int leaveTopDiscards){
+        if(leaveTopDiscards < 0){
+            throw new IllegalArgumentException("Can not leave " + leaveTopDiscards + " cards on the discard pile");
+        }
+        this.shuffleLock.lock();
+        try {
+            this.moveDiscardsToDrawPile(leaveTopDiscards);
+        } finally {
+            this.shuffleLock.unlock();
+        }
+        this.eventCaller.onDeckShuffled(this);
+    }
+
+    /**
+     * Shuffles the whole discard pile back into the deck.
+     */
+    @Override
+    public void shuffle(){
+        this.shuffle(0);
+    }
+
+    /**
+     * Returns every card to the deck and shuffles it, ready for a new game.
+     * <p>
+     *     This is meant to be called between games, when no other thread is
+     *     using the deck; a card drawn or discarded by another thread during
+     *     the reset may be lost or counted twice. The facades of outstanding
+     *     cards are invalidated, and every card is shuffled into the draw
+     *     pile, raising a deck shuffled event. Like any shuffle of this deck,
+     *     the reset allocates the nodes of the new draw pile.
+     * </p>
+     * @see BasePlayingDeck#reset()
+     */
+    @Override
+    public void reset(){
+        this.shuffleLock.lock();
+        try {
+            for(int i = 0; i < this.cardValues.length; i++){
+                SecurePlayingCard facade = this.outstandingSlots.getAndSet(i, null);
+                if(facade != null){
+                    facade.invalidate();
+                }
+            }
+            this.outstandingCount.set(0);
+            this.drawPile.set(null);
+            this.discardPile.set(allCards(this.cardValues.length));
+            this.composition.gather(this.cardValues);
+            this.moveDiscardsToDrawPile(0);
+        } finally {
+            this.shuffleLock.unlock();
+        }
+        this.eventCaller.onDeckShuffled(this);
+    }
+
+    /**
+     * Issues a card from the top of the draw pile, shuffling the discard pile
+     * into the draw pile first if the draw pile is empty.
+     * @return a facade object implementing IPlayingCard, or null if every card is outstanding.
+     */
+    @Override
+    public IPlayingCard drawCard(){
+        int card = pop(this.drawPile);
+        if(card < 0){
+            card = this.drawAfterShuffle();
+            if(card < 0){
+                return null;
+            }
+        }
+
+        this.composition.drawn(this.cardValues[card]);
+        IPlayingCard f = this.issueFacade(card);
+        this.eventCaller.onCardDrawn(this);
+        return f;
+    }
+
+    /**
+     * Draws cards from the top of the draw pile into an array, raising a
+     * single card drawn event for all of them.
+     * <p>
+     *     As many of the cards as the draw pile holds are detached from it in
+     *     one compare-and-set, so they are consecutive cards of the pile even
+     *     while other threads are drawing. Only if the draw pile runs out part
+     *     way are the rest drawn after shuffling, like drawCard would.
+     * </p>
+     * @param cards The array to fill.
+     * @param offset The index of the first card to fill in.
+     * @param count The number of cards to draw.
+     * @return The number of cards drawn.
+     */
+    @Override
+    public int drawCards(IPlayingCard[] cards, int offset, int count){
+        DeckArguments.checkBatch(cards.length, offset, count);
+        return this.drawBatch(cards, offset, null, count);
+    }
+
+    /**
+     * Deals cards to several players in turn, raising a single card drawn
+     * event for the whole deal.
+     * @param hands The array to deal each player's cards into, one per player.
+     * @param cardsPerPlayer The number of cards to deal each player.
+     * @return The number of cards dealt.
+     * @see #drawCards(IPlayingCard[], int, int)
+     */
+    @Override
+    public int dealRound(IPlayingCard[][] hands, int cardsPerPlayer){
+        DeckArguments.checkDeal(hands, cardsPerPlayer);
+        return this.drawBatch(null, 0, hands, hands.length * cardsPerPlayer);
+    }
+
+    @Override
+    public IPlayingCard drawDiscard(){
+        int card = pop(this.discardPile);
+        if(card < 0){
+            return null;
+        }
+
+        this.composition.discardDrawn(this.cardValues[card]);
+        IPlayingCard f = this.issueFacade(card);
+        this.eventCaller.onDiscardDrawn(this);
+        return f;
+    }
+
+    @Override
+    public boolean discardCard(IPlayingCard c){
+        if( ! this.returnCard(c) ){
+            return false;
+        }
+        this.eventCaller.onCardDiscarded(this);
+        return true;
+    }
+
+    /**
+     * Discards cards from an array onto the discard pile, raising a single
+     * card discarded event for all of those that were taken back.
+     * @param cards The array holding the cards.
+     * @param offset The index of the first card to discard.
+     * @param count The number of cards to discard.
+     * @return The number of cards taken back.
+     */
+    @Override
+    public int discardCards(IPlayingCard[] cards, int offset, int count){
+        DeckArguments.checkBatch(cards.length, offset, count);
+        int discarded = 0;
+        for(int i = 0; i < count; i++){
+            if(this.returnCard(cards[offset + i])) discarded++;
+        }
+        if(discarded > 0){
+            this.eventCaller.onCardsDiscarded(this, discarded);
+        }
+        return discarded;
+    }
+
+    /**
+     * Discards cards onto the discard pile, raising a single card discarded
+     * event for all of those that were taken back.
+     * @param cards The cards to discard.
+     * @return The number of cards taken back.
+     */
+    @Override
+    public int discardCards(Collection<? extends IPlayingCard> cards){
+        int discarded = 0;
+        for(IPlayingCard c : cards){
+            if(this.returnCard(c)) discarded++;
+        }
+        if(discarded > 0){
+            this.eventCaller.onCardsDiscarded(this, discarded);
+        }
+        return discarded;
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    // Draws cards into either an array, from an offset, or hands dealt in turn,
+    // raising one card drawn event for all of them. Returns the number drawn.
+    private int drawBatch(IPlayingCard[] cards, int offset, IPlayingCard[][] hands, int count){
+        int drawn = 0;
+        while(drawn < count){
+            Node top = popMany(this.drawPile, count - drawn);
+            if(top != null){
+                // The detached nodes belong to this thread alone now
+                int taken = Math.min(count - drawn, top.depth);
+                Node n = top;
+                for(int i = 0; i < taken; i++, n = n.next){
+                    this.composition.drawn(this.cardValues[n.card]);
+                    place(cards, offset, hands, drawn++, this.issueFacade(n.card));
+                }
+            } else {
+                int card = this.drawAfterShuffle();
+                if(card < 0){
+                    break;
+                }
+                this.composition.drawn(this.cardValues[card]);
+                place(cards, offset, hands, drawn++, this.issueFacade(card));
+            }
+        }
+
+        if(drawn > 0){
+            this.eventCaller.onCardsDrawn(this, drawn);
+        }
+        return drawn;
+    }
+
+    // Puts the i-th card of a batch in its place in an array, or in a hand
+    private static void place(IPlayingCard[] cards, int offset, IPlayingCard[][] hands, int i, IPlayingCard f){
+        if(hands == null){
+            cards[offset + i] = f;
+        } else {
+            hands[i % hands.length][i / hands.length] = f;
+        }
+    }
+
+    // Draws a card once the draw pile has been found empty, taking the slow path
+    // through the shuffle lock so that a shuffle that is already moving cards to
+    // the draw pile can finish first. Returns -1 if every card is outstanding.
+    private int drawAfterShuffle(){
+        ImplicitShuffleEvent event = new ImplicitShuffleEvent();
+        event.begin();
+        boolean shuffled = false;
+        int card;
+        this.shuffleLock.lock();
+        try {
+            card = pop(this.drawPile);
+            while(card < 0 && this.moveDiscardsToDrawPile(0)){
+                shuffled = true;
+                card = pop(this.drawPile);
+            }
+        } finally {
+            this.shuffleLock.unlock();
+        }
+
+        DeckMetrics metrics = this.eventCaller.metrics();
+        if(shuffled){
+            if(metrics != null) metrics.recordImplicitShuffle();
+            this.eventCaller.onDeckShuffled(this);
+            event.end();
+            if(event.shouldCommit()){
+                event.setPiles(this, card >= 0);
+                event.commit();
+            }
+        }
+        if(card < 0){
+            if(metrics != null) metrics.recordFailedDraw();
+        }
+        return card;
+    }
+
+    // Takes back an outstanding card, or raises an invalid discard event.
+    // Raises no card discarded event.
+    private boolean returnCard(IPlayingCard c){
+
+        // Claiming the slot decides the race between threads discarding the same
+        // facade: whoever clears it owns the card, and anyone else is refused.
+        if( ! this.validateOutstandingCard(c) ){
+            InvalidDiscardEvent.record(this, c, "not outstanding from this deck");
+            this.eventCaller.onInvalidDiscard(this);
+            return false;
+        }
+        SecurePlayingCard facade = (SecurePlayingCard) c;
+        int slot = facade.slot();
+        if( ! this.outstandingSlots.compareAndSet(slot, facade, null) ){
+            InvalidDiscardEvent.record(this, c, "discarded by another thread");
+            this.eventCaller.onInvalidDiscard(this);
+            return false;
+        }
+
+        facade.invalidate();
+        push(this.discardPile, slot);
+        this.composition.discarded(this.cardValues[slot]);
+        this.outstandingCount.decrementAndGet();
+        return true;
+    }
+
+    private SecurePlayingCard issueFacade(int card){
+        SecurePlayingCard facade = new SecurePlayingCard(PlayingCard.valueOf(this.cardValues[card]), card);
+        this.outstandingCount.incrementAndGet();
+        this.outstandingSlots.set(card, facade);
+        return facade;
+    }
+
+    // Moves all but the top cards of the discard pile to the bottom of the draw
+    // pile, shuffled. Must be called holding the shuffle lock. Returns false if
+    // there was nothing to move.
+    private boolean moveDiscardsToDrawPile(int leaveTopDiscards){
+
+        // Detach the cards to be shuffled, by replacing the discard pile with a
+        // copy of the cards that are left on top. The detached nodes then
+        // belong to this thread alone.
+        Node top;
+        Node kept;
+        do {
+            top = this.discardPile.get();
+            if(depthOf(top) <= leaveTopDiscards){
+                return false;
+            }
+            kept = copyTop(top, leaveTopDiscards, this.drawBuffer);
+        } while( ! this.discardPile.compareAndSet(top, kept) );
+
+        DeckMetrics metrics = this.eventCaller.metrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        DeckShuffleEvent event = new DeckShuffleEvent();
+        event.begin();
+
+        Node n = top;
+        for(int i = 0; i < leaveTopDiscards; i++){
+            n = n.next;
+        }
+        int moved = 0;
+        for(; n != null; n = n.next){
+            this.shuffleBuffer[moved++] = n.card;
+        }
+
+        // Fisher-Yates shuffle of the detached cards
+        for(int i = moved - 1; i > 0; i--){
+            int j = this.rng.nextInt(i + 1);
+            int c = this.shuffleBuffer[i];
+            this.shuffleBuffer[i] = this.shuffleBuffer[j];
+            this.shuffleBuffer[j] = c;
+        }
+
+        // Place them under the draw pile. Only draws can change the draw pile
+        // while the lock is held, so each retry has fewer cards to copy.
+        Node current;
+        Node rebuilt;
+        int d;
+        do {
+            current = this.drawPile.get();
+            rebuilt = null;
+            for(int i = 0; i < moved; i++){
+                rebuilt = new Node(this.shuffleBuffer[i], rebuilt);
+            }
+            d = 0;
+            for(Node x = current; x != null; x = x.next){
+                this.drawBuffer[d++] = x.card;
+            }
+            for(int i = d - 1; i >= 0; i--){
+                rebuilt = new Node(this.drawBuffer[i], rebuilt);
+            }
+        } while( ! this.drawPile.compareAndSet(current, rebuilt) );
+
+        // Count the shuffled cards by value, so the composition takes one
+        // atomic add per value rather than one per card
+        for(int i = 0; i < moved; i++){
+            this.shuffledCounts[this.cardValues[this.shuffleBuffer[i]]]++;
+        }
+        for(int c = 0; c < this.shuffledCounts.length; c++){
+            if(this.shuffledCounts[c] > 0){
+                this.composition.shuffled(c, this.shuffledCounts[c]);
+                this.shuffledCounts[c] = 0;
+            }
+        }
+
+        if(metrics != null){
+            metrics.recordShuffleNanos(System.nanoTime() - start);
+        }
+        event.end();
+        if(event.shouldCommit()){
+            event.setDeck(this);
+            event.cardsShuffled = moved;
+            event.discardsLeft = leaveTopDiscards;
+            event.drawPileBefore = d;
+            event.drawPileAfter = d + moved;
+            event.commit();
+        }
+        return true;
+    }
+
+    // A pile of every card index, with the first on top
+    private static Node allCards(int n){
+        Node top = null;
+        for(int i = n - 1; i >= 0; i--){
+            top = new Node(i, top);
+        }
+        return top;
+    }
+
+    // A copy of the top cards of a pile, with nothing underneath them
+    private static Node copyTop(Node top, int count, int[] buffer){
+        int d = 0;
+        for(Node x = top; d < count; x = x.next){
+            buffer[d++] = x.card;
+        }
+        Node copy = null;
+        while(d > 0){
+            copy = new Node(buffer[--d], copy);
+        }
+        return copy;
+    }
+
+    private static int pop(AtomicReference<Node> pile){
+        for(;;){
+            Node top = pile.get();
+            if(top == null){
+                return -1;
+            }
+            if(pile.compareAndSet(top, top.next)){
+                return top.card;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Detaches up to count cards from the top of a pile in one step. Returns the
+    // old top of the pile, of which the detached cards are the first count
+    // nodes, or all of them if there were fewer; or null if the pile was empty.
+    private static Node popMany(AtomicReference<Node> pile, int count){
+        for(;;){
+            Node top = pile.get();
+            if(top == null){
+                return null;
+            }
+            Node rest = top;
+            for(int i = 0; i < count && rest != null; i++){
+                rest = rest.next;
+            }
+            if(pile.compareAndSet(top, rest)){
+                return top;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void push(AtomicReference<Node> pile, int card){
+        for(;;){
+            Node top = pile.get();
+            if(pile.compareAndSet(top, new Node(card, top))){
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static int depthOf(Node top){
+        return top == null ? 0 : top.depth;
+    }
+}
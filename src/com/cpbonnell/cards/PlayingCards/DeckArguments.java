@@ -0,0 +1,34 @@
+package com.cpbonnell.cards.PlayingCards;
+
+/**
+ * Checks of the arguments to the bulk draw, deal and discard methods, shared
+ * by the defaults of IPlayingDeck and the decks that override them.
+ */
+abstract class DeckArguments {
+
+    // Make non-instantiable
+    private DeckArguments() {
+
+    }
+
+    // Checks that a batch of cards fits in an array
+    static void checkBatch(int length, int offset, int count){
+        if(offset < 0 || count < 0 || count > length - offset){
+            throw new IllegalArgumentException("Can not fit " + count + " cards from index " + offset
+                    + " of an array of " + length);
+        }
+    }
+
+    // Checks that every hand can hold the cards to be dealt to it
+    static void checkDeal(IPlayingCard[][] hands, int cardsPerPlayer){
+        if(cardsPerPlayer < 0){
+            throw new IllegalArgumentException("Can not deal " + cardsPerPlayer + " cards to a player");
+        }
+        for(IPlayingCard[] hand : hands){
+            if(hand.length < cardsPerPlayer){
+                throw new IllegalArgumentException("A hand of " + hand.length + " cards can not hold "
+                        + cardsPerPlayer);
+            }
+        }
+    }
+}
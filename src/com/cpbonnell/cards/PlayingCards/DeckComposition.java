@@ -0,0 +1,321 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A read-only count of the cards of a deck by value and by pile, kept up to
+ * date by the deck as cards move.
+ *
+ * <p>
+ *     Every deck keeps one, and hands it out from composition(), so that a
+ *     listener can see which cards are left to draw, or have been seen,
+ *     without searching the deck. The counts of each card value in the three
+ *     piles are packed into one long, 21 bits to a pile, and a card moving
+ *     from one pile to another adds a single number to it, which also keeps
+ *     the counts straight if another thread moves the same card at once.
+ *     Another long holds the size of each pile, so a draw, discard or
+ *     shuffle of a card changes two longs whatever the size of the deck.
+ *     The count of a rank sums its four cards, and the count of a suit its
+ *     thirteen. A ConcurrentPlayingDeck changes only the long of the card,
+ *     with one atomic add, and the sizes of its piles are summed from all
+ *     the cards when they are read.
+ * </p>
+ * <p>
+ *     The counts of a BasePlayingDeck or a PlayingShoe are exact whenever the
+ *     deck is not in the middle of a call, including while its synchronous
+ *     listeners run, and are read only by the thread using the deck. Those
+ *     of a ConcurrentPlayingDeck are updated just after each card moves, so
+ *     while other threads are drawing and discarding, a count may lag the
+ *     deck by the cards in flight, and the counts need not add up to the
+ *     sizes of the piles. Cards on their way from the discard pile to the
+ *     draw pile in a shuffle are counted as discards until they arrive.
+ * </p>
+ * <p>
+ *     A DeckSnapshot, which is what asynchronous listeners are handed, holds
+ *     a copy of the composition taken when the event was raised, so it can
+ *     be read on a dispatcher thread and does not move on with the deck.
+ * </p>
+ */
+public final class DeckComposition {
+
+    // The most cards of one deck that can be counted in a 21 bit field, which
+    // is signed so that a count may briefly go below zero in a concurrent deck
+    static final int MAX_CARDS = (1 << 20) - 1;
+
+    private static final int FIELD_BITS = 21;
+    private static final int TOTALS = BitmaskOperations.NUMBER_OF_CARDS;
+
+    private static final long DRAW_TO_OUTSTANDING = unit(DeckPile.OUTSTANDING) - unit(DeckPile.DRAW);
+    private static final long DISCARD_TO_OUTSTANDING = unit(DeckPile.OUTSTANDING) - unit(DeckPile.DISCARD);
+    private static final long OUTSTANDING_TO_DISCARD = unit(DeckPile.DISCARD) - unit(DeckPile.OUTSTANDING);
+    private static final long DISCARD_TO_DRAW = unit(DeckPile.DRAW) - unit(DeckPile.DISCARD);
+
+    // The Hi-Lo count: +1 for a two to a six, 0 for a seven to a nine, and -1
+    // for a ten, a face card or an ace
+    private static final int[] HI_LO_WEIGHTS = {1, 1, 1, 1, 1, 0, 0, 0, -1, -1, -1, -1, -1};
+    private static final int[] HI_LO_BY_CARD = new int[BitmaskOperations.NUMBER_OF_CARDS];
+
+    static {
+        for(int c = 0; c < HI_LO_BY_CARD.length; c++){
+            HI_LO_BY_CARD[c] = HI_LO_WEIGHTS[c >>> 2];
+        }
+    }
+
+    // Atomic access to the counts, for a composition shared between threads
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // A long per card number, then one for the pile sizes
+    private final long[] counts;
+
+    // The number of cards of each card number in the deck, in all its piles
+    private final int[] cardTotals;
+
+    // Whether the counts are updated by several threads at once
+    private final boolean shared;
+
+    // The Hi-Lo count, kept as cards are drawn and shuffled back unless the
+    // composition is shared
+    private int hiLo;
+
+    DeckComposition(boolean shared){
+        this.counts = new long[TOTALS + 1];
+        this.cardTotals = new int[TOTALS];
+        this.shared = shared;
+    }
+
+    //============================== Accessors ==============================
+
+    /**
+     * The number of cards in a pile.
+     * @param pile The pile to count.
+     * @return The number of cards in it.
+     */
+    public int count(DeckPile pile){
+        return field(this.totals(), pile);
+    }
+
+    /**
+     * The number of cards of a value in a pile.
+     * @param pile The pile to count.
+     * @param r The rank of the cards.
+     * @param s The suit of the cards.
+     * @return The number of those cards in the pile.
+     */
+    public int count(DeckPile pile, Ranks r, Suits s){
+        return field(this.read(BitmaskOperations.cardNumber(r, s)), pile);
+    }
+
+    /**
+     * The number of cards of a rank in a pile.
+     * @param pile The pile to count.
+     * @param r The rank of the cards.
+     * @return The number of cards of that rank in the pile.
+     */
+    public int count(DeckPile pile, Ranks r){
+        int c = BitmaskOperations.cardNumber(r, Suits.CLUBS);
+        int sum = 0;
+        for(int i = c; i < c + 4; i++){
+            sum += field(this.read(i), pile);
+        }
+        return sum;
+    }
+
+    /**
+     * The number of cards of a suit in a pile.
+     * @param pile The pile to count.
+     * @param s The suit of the cards.
+     * @return The number of cards of that suit in the pile.
+     */
+    public int count(DeckPile pile, Suits s){
+        int sum = 0;
+        for(int i = s.ordinal(); i < TOTALS; i += 4){
+            sum += field(this.read(i), pile);
+        }
+        return sum;
+    }
+
+    /**
+     * The chance that the next card drawn is of a rank.
+     * @param r The rank of the card.
+     * @return The share of the draw pile of that rank, or 0 if it is empty.
+     */
+    public double drawProbability(Ranks r){
+        return share(this.count(DeckPile.DRAW, r), this.count(DeckPile.DRAW));
+    }
+
+    /**
+     * The chance that the next card drawn is of a suit.
+     * @param s The suit of the card.
+     * @return The share of the draw pile of that suit, or 0 if it is empty.
+     */
+    public double drawProbability(Suits s){
+        return share(this.count(DeckPile.DRAW, s), this.count(DeckPile.DRAW));
+    }
+
+    /**
+     * The chance that the next card drawn is of a value.
+     * @param r The rank of the card.
+     * @param s The suit of the card.
+     * @return The share of the draw pile of that value, or 0 if it is empty.
+     */
+    public double drawProbability(Ranks r, Suits s){
+        return share(this.count(DeckPile.DRAW, r, s), this.count(DeckPile.DRAW));
+    }
+
+    /**
+     * A running count of the cards that have been seen, that is, those that
+     * are not on the draw pile.
+     * @param rankWeights The weight of each rank, indexed by ordinal.
+     * @return The sum of the weights of the cards seen.
+     */
+    public int runningCount(int[] rankWeights){
+        if(rankWeights.length != HI_LO_WEIGHTS.length){
+            throw new IllegalArgumentException("Need a weight for each of the " + HI_LO_WEIGHTS.length
+                    + " ranks, not " + rankWeights.length);
+        }
+        int sum = 0;
+        for(int c = 0; c < TOTALS; c++){
+            int seen = this.cardTotals[c] - field(this.read(c), DeckPile.DRAW);
+            sum += rankWeights[c >>> 2] * seen;
+        }
+        return sum;
+    }
+
+    /**
+     * The Hi-Lo running count of a blackjack player, of the cards that have
+     * been seen. It is kept as cards move, so it is read at once, except
+     * from a ConcurrentPlayingDeck, whose count is summed from all the cards.
+     * @return The running count.
+     */
+    public int hiLoCount(){
+        return this.shared ? this.runningCount(HI_LO_WEIGHTS) : this.hiLo;
+    }
+
+    /**
+     * A copy of the counts as they are now, which no longer changes.
+     * @return A new composition holding the same counts.
+     */
+    public DeckComposition copy(){
+        DeckComposition copy = new DeckComposition(false);
+        for(int i = 0; i < TOTALS; i++){
+            copy.counts[i] = this.read(i);
+        }
+        copy.counts[TOTALS] = this.totals();
+        System.arraycopy(this.cardTotals, 0, copy.cardTotals, 0, TOTALS);
+        copy.hiLo = this.hiLoCount();
+        return copy;
+    }
+
+    @Override
+    public String toString(){
+        long totals = this.totals();
+        return "DeckComposition[draw=" + field(totals, DeckPile.DRAW)
+                + " discard=" + field(totals, DeckPile.DISCARD)
+                + " outstanding=" + field(totals, DeckPile.OUTSTANDING) + "]";
+    }
+
+    //============================== Updates ==============================
+    // Called by the decks as they move each card, with its card number
+
+    void drawn(int card){
+        this.move(card, DRAW_TO_OUTSTANDING);
+        if( ! this.shared ){
+            this.hiLo += HI_LO_BY_CARD[card];
+        }
+    }
+
+    void discardDrawn(int card){
+        this.move(card, DISCARD_TO_OUTSTANDING);
+    }
+
+    void discarded(int card){
+        this.move(card, OUTSTANDING_TO_DISCARD);
+    }
+
+    void shuffled(int card){
+        this.move(card, DISCARD_TO_DRAW);
+        if( ! this.shared ){
+            this.hiLo -= HI_LO_BY_CARD[card];
+        }
+    }
+
+    void shuffled(int card, int count){
+        this.move(card, count * DISCARD_TO_DRAW);
+        if( ! this.shared ){
+            this.hiLo -= count * HI_LO_BY_CARD[card];
+        }
+    }
+
+    // Counts every card of a deck on the discard pile, as a deck gathers them
+    // for a new game. Must not be called while another thread moves cards.
+    void gather(byte[] cardValues){
+        Arrays.fill(this.counts, 0);
+        Arrays.fill(this.cardTotals, 0);
+        this.hiLo = 0;
+        long discard = unit(DeckPile.DISCARD);
+        for(byte c : cardValues){
+            this.counts[c] += discard;
+            this.cardTotals[c]++;
+            this.hiLo += HI_LO_BY_CARD[c];
+        }
+        COUNTS.setVolatile(this.counts, TOTALS, cardValues.length * discard);
+    }
+
+    //==================== Private Helper Functions ====================
+
+    // Kept small enough to be inlined into the decks' draw and discard paths,
+    // with the atomic updates of a shared composition out of line
+    private void move(int card, long delta){
+        if(this.shared){
+            this.moveShared(card, delta);
+            return;
+        }
+        this.counts[card] += delta;
+        this.counts[TOTALS] += delta;
+    }
+
+    // A shared composition leaves its pile sizes to be added up when read,
+    // saving an atomic add on a line that every thread would contend for
+    private void moveShared(int card, long delta){
+        COUNTS.getAndAdd(this.counts, card, delta);
+    }
+
+    private long read(int i){
+        return this.shared ? (long) COUNTS.getVolatile(this.counts, i) : this.counts[i];
+    }
+
+    private long totals(){
+        if( ! this.shared ){
+            return this.counts[TOTALS];
+        }
+        long sum = 0;
+        for(int i = 0; i < TOTALS; i++){
+            sum += this.read(i);
+        }
+        return sum;
+    }
+
+    // One in the field of a pile
+    private static long unit(DeckPile pile){
+        return 1L << (FIELD_BITS * pile.ordinal());
+    }
+
+    // Reads the signed field of a pile. Each lower field is taken off, sign
+    // and all, so a field below zero borrows from the one above it only until
+    // it is read.
+    private static int field(long packed, DeckPile pile){
+        for(int i = 0; i < pile.ordinal(); i++){
+            long low = (packed << (64 - FIELD_BITS)) >> (64 - FIELD_BITS);
+            packed = (packed - low) >> FIELD_BITS;
+        }
+        return (int) ((packed << (64 - FIELD_BITS)) >> (64 - FIELD_BITS));
+    }
+
+    private static double share(int part, int whole){
+        return whole > 0 ? (double) part / whole : 0;
+    }
+}
@@ -0,0 +1,9 @@
+package com.cpbonnell.cards.PlayingCards;
+
+/**
+ * The events that a deck raises, one for each of the listener types in
+ * IDeckEventRegistrar.
+ */
+public enum DeckEventType {
+    CARD_DRAWN, DISCARD_DRAWN, CARD_DISCARDED, DECK_SHUFFLED, INVALID_DISCARD
+}
@@ -0,0 +1,30 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * The common part of the Java Flight Recorder events raised by the decks.
+ *
+ * <p>
+ *     Each event names the deck it came from, by class and identity hash
+ *     code, so that the events of one deck can be picked out of a recording.
+ *     The deck is only described once an event is known to be committed.
+ * </p>
+ * <p>
+ *     Like any JFR event, these cost next to nothing until a recording
+ *     enables them, and each can be enabled, disabled or given a threshold
+ *     by name in a .jfc settings file.
+ * </p>
+ */
+@Category({"Playing Cards", "Deck"})
+abstract class DeckFlightEvent extends Event {
+
+    @Label("Deck")
+    String deck;
+
+    void setDeck(IPlayingDeck d){
+        this.deck = d.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(d));
+    }
+}
@@ -0,0 +1,248 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import com.cpbonnell.cards.Utils.LatencyHistogram;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the activity of one or more decks.
+ *
+ * <p>
+ *     A deck only records metrics once it has been given a DeckMetrics with
+ *     setMetrics; until then the cost is one null check per operation. Any
+ *     number of decks, of either type and on any threads, may share one
+ *     DeckMetrics, whose counters are LongAdders and whose histograms are
+ *     striped, so recording does not lock or allocate.
+ * </p>
+ * <p>
+ *     Every deck event is counted. Shuffles are counted whether they were
+ *     asked for or were done by drawCard on finding the draw pile empty, and
+ *     the latter are counted again as implicit shuffles. Draws that returned
+ *     null because every card was outstanding are counted as failed draws.
+ *     Each call to an event listener is timed, in a separate histogram per
+ *     event type, on whichever thread runs the listener, so slow listeners
+ *     show up whether events are delivered synchronously or through an
+ *     AsyncEventDispatcher.
+ * </p>
+ * <p>
+ *     The metrics can be read directly, or registered as a platform MXBean
+ *     to be read through JMX.
+ * </p>
+ */
+public class DeckMetrics implements DeckMetricsMXBean {
+
+    private static final DeckEventType[] EVENT_TYPES = DeckEventType.values();
+
+    private final LongAdder[] eventCounts = new LongAdder[EVENT_TYPES.length];
+    private final LatencyHistogram[] listenerLatencies = new LatencyHistogram[EVENT_TYPES.length];
+    private final LongAdder implicitShuffles = new LongAdder();
+    private final LongAdder failedDraws = new LongAdder();
+    private final LatencyHistogram shuffleLatency = new LatencyHistogram();
+
+    private ObjectName registeredName;
+
+    public DeckMetrics(){
+        for(int i = 0; i < EVENT_TYPES.length; i++){
+            this.eventCounts[i] = new LongAdder();
+            this.listenerLatencies[i] = new LatencyHistogram();
+        }
+    }
+
+
+    //==================== Pull API ====================
+
+    /**
+     * The number of events of a type raised by the decks, counting an event
+     * for a batch of cards once for each card.
+     * @param type The event type.
+     * @return The number of events.
+     */
+    public long eventCount(DeckEventType type){
+        return this.eventCounts[type.ordinal()].sum();
+    }
+
+    /**
+     * The time taken by each call to a listener for events of a type.
+     * @param type The event type.
+     * @return The live histogram of listener calls, in nanoseconds.
+     */
+    public LatencyHistogram listenerLatency(DeckEventType type){
+        return this.listenerLatencies[type.ordinal()];
+    }
+
+    /**
+     * The time taken to shuffle the discard pile into the draw pile, not
+     * counting the shuffle event's listeners.
+     * @return The live histogram of shuffles, in nanoseconds.
+     */
+    public LatencyHistogram shuffleLatency(){
+        return this.shuffleLatency;
+    }
+
+    @Override
+    public long getCardsDrawn(){
+        return this.eventCount(DeckEventType.CARD_DRAWN);
+    }
+
+    @Override
+    public long getDiscardsDrawn(){
+        return this.eventCount(DeckEventType.DISCARD_DRAWN);
+    }
+
+    @Override
+    public long getCardsDiscarded(){
+        return this.eventCount(DeckEventType.CARD_DISCARDED);
+    }
+
+    @Override
+    public long getInvalidDiscards(){
+        return this.eventCount(DeckEventType.INVALID_DISCARD);
+    }
+
+    @Override
+    public long getShuffles(){
+        return this.eventCount(DeckEventType.DECK_SHUFFLED);
+    }
+
+    @Override
+    public long getImplicitShuffles(){
+        return this.implicitShuffles.sum();
+    }
+
+    @Override
+    public long getFailedDraws(){
+        return this.failedDraws.sum();
+    }
+
+    @Override
+    public Map<String, Long> getShuffleLatencyNanos(){
+        Map<String, Long> result = new LinkedHashMap<>();
+        summarize("shuffle", this.shuffleLatency, result);
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getListenerLatencyNanos(){
+        Map<String, Long> result = new LinkedHashMap<>();
+        for(DeckEventType type : EVENT_TYPES){
+            summarize(type.name(), this.listenerLatencies[type.ordinal()], result);
+        }
+        return result;
+    }
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    @Override
+    public void reset(){
+        for(int i = 0; i < EVENT_TYPES.length; i++){
+            this.eventCounts[i].reset();
+            this.listenerLatencies[i].reset();
+        }
+        this.implicitShuffles.reset();
+        this.failedDraws.reset();
+        this.shuffleLatency.reset();
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder b = new StringBuilder("DeckMetrics[");
+        for(DeckEventType type : EVENT_TYPES){
+            b.append(type).append('=').append(this.eventCount(type)).append(' ');
+        }
+        b.append("IMPLICIT_SHUFFLE=").append(this.getImplicitShuffles())
+                .append(" FAILED_DRAW=").append(this.getFailedDraws()).append(']');
+        return b.toString();
+    }
+
+
+    //==================== JMX Registration ====================
+
+    /**
+     * Registers these metrics with the platform MBean server, under the name
+     * "com.cpbonnell.cards:type=DeckMetrics,name=" followed by the given name.
+     * @param name A name that tells these metrics apart from any others.
+     * @return The object name the metrics were registered under.
+     * @throws IllegalArgumentException If the name is already registered.
+     * @throws IllegalStateException If these metrics are already registered.
+     */
+    public synchronized ObjectName register(String name){
+        if(this.registeredName != null){
+            throw new IllegalStateException("The metrics are already registered as " + this.registeredName);
+        }
+        try {
+            ObjectName objectName = new ObjectName("com.cpbonnell.cards:type=DeckMetrics,name="
+                    + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.registeredName = objectName;
+            return objectName;
+        } catch (InstanceAlreadyExistsException e){
+            throw new IllegalArgumentException("Deck metrics named " + name + " are already registered", e);
+        } catch (JMException e){
+            throw new IllegalStateException("The metrics could not be registered", e);
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if they are registered.
+     */
+    public synchronized void unregister(){
+        if(this.registeredName == null){
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(this.registeredName);
+        } catch (InstanceNotFoundException e){
+            // Already removed by someone else
+        } catch (JMException e){
+            throw new IllegalStateException("The metrics could not be unregistered", e);
+        }
+        this.registeredName = null;
+    }
+
+
+    //==================== Recording ====================
+    // Called by the decks and their event callers
+
+    void recordEvent(DeckEventType type, int count){
+        this.eventCounts[type.ordinal()].add(count);
+    }
+
+    void recordListenerNanos(DeckEventType type, long nanos){
+        this.listenerLatencies[type.ordinal()].record(nanos);
+    }
+
+    void recordShuffleNanos(long nanos){
+        this.shuffleLatency.record(nanos);
+    }
+
+    void recordImplicitShuffle(){
+        this.implicitShuffles.increment();
+    }
+
+    void recordFailedDraw(){
+        this.failedDraws.increment();
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    private static void summarize(String prefix, LatencyHistogram h, Map<String, Long> result){
+        result.put(prefix + ".count", h.count());
+        result.put(prefix + ".mean", Math.round(h.mean()));
+        result.put(prefix + ".p50", h.valueAtPercentile(50));
+        result.put(prefix + ".p90", h.valueAtPercentile(90));
+        result.put(prefix + ".p99", h.valueAtPercentile(99));
+        result.put(prefix + ".p999", h.valueAtPercentile(99.9));
+        result.put(prefix + ".max", h.max());
+    }
+}
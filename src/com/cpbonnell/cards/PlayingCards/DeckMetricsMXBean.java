@@ -0,0 +1,35 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import java.util.Map;
+
+/**
+ * The management interface of DeckMetrics, as seen through JMX.
+ *
+ * <p>
+ *     Counters are totals since the metrics were created or last reset.
+ *     Latencies are in nanoseconds. The listener latencies are keyed by
+ *     event type and statistic, such as "CARD_DRAWN.p99".
+ * </p>
+ */
+public interface DeckMetricsMXBean {
+
+    long getCardsDrawn();
+
+    long getDiscardsDrawn();
+
+    long getCardsDiscarded();
+
+    long getInvalidDiscards();
+
+    long getShuffles();
+
+    long getImplicitShuffles();
+
+    long getFailedDraws();
+
+    Map<String, Long> getShuffleLatencyNanos();
+
+    Map<String, Long> getListenerLatencyNanos();
+
+    void reset();
+}
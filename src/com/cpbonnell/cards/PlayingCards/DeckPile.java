@@ -0,0 +1,16 @@
+package com.cpbonnell.cards.PlayingCards;
+
+/**
+ * The places that a card of a deck can be, as counted by a DeckComposition.
+ */
+public enum DeckPile {
+
+    // Face down, waiting to be drawn.
+    DRAW,
+
+    // Face up on the discard pile.
+    DISCARD,
+
+    // Drawn, and not yet discarded.
+    OUTSTANDING
+}
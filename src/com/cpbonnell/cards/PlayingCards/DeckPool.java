@@ -0,0 +1,135 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A pool of decks that are reset and reused from one game to the next,
+ * instead of being made anew for each game.
+ *
+ * <p>
+ *     A deck is taken with acquire, which hands out an idle deck if there is
+ *     one and makes a new deck with the factory if not, and is given back
+ *     with release, which resets it. A reset deck has every card back on its
+ *     draw pile, shuffled, and any facades still held for its cards are
+ *     invalidated, so a released deck may be handed out again at once. The
+ *     listeners, dispatcher and metrics the factory gave a deck stay with it.
+ * </p>
+ * <p>
+ *     The pool is thread safe. Idle decks are kept on an array stack that is
+ *     sized when the pool is made, so neither acquiring nor releasing
+ *     allocates once the pool is warm. Decks released while the pool already
+ *     holds its limit of idle decks are dropped. A deck must not be released
+ *     twice, or used after it has been released.
+ * </p>
+ * @param <D> The type of deck in the pool.
+ */
+public class DeckPool<D extends IPlayingDeck> {
+
+    private final Supplier<? extends D> factory;
+    private final IPlayingDeck[] idle;
+    private int idleCount;
+    private long created;
+    private long reused;
+
+    /**
+     * Constructs an empty pool.
+     * @param factory Makes a new deck when no idle deck is available, such as
+     *                BasePlayingDeck::newStandardFrenchDeck.
+     * @param maxIdle The most idle decks to keep.
+     */
+    public DeckPool(Supplier<? extends D> factory, int maxIdle){
+        if(maxIdle < 0){
+            throw new IllegalArgumentException("The number of idle decks can not be negative: " + maxIdle);
+        }
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.idle = new IPlayingDeck[maxIdle];
+    }
+
+    /**
+     * Takes a deck from the pool, making a new one if none are idle.
+     * @return A deck with every card on its draw pile, shuffled.
+     */
+    @SuppressWarnings("unchecked")
+    public D acquire(){
+        synchronized(this){
+            if(this.idleCount > 0){
+                D deck = (D) this.idle[--this.idleCount];
+                this.idle[this.idleCount] = null;
+                this.reused++;
+                return deck;
+            }
+            this.created++;
+        }
+        return Objects.requireNonNull(this.factory.get(), "The deck factory returned null");
+    }
+
+    /**
+     * Resets a deck and returns it to the pool.
+     * @param deck A deck taken from this pool.
+     */
+    public void release(D deck){
+        if(deck == null){
+            throw new IllegalArgumentException("Can not release a null deck");
+        }
+        deck.reset();
+        synchronized(this){
+            if(this.idleCount < this.idle.length){
+                this.idle[this.idleCount++] = deck;
+            }
+        }
+    }
+
+    /**
+     * Makes decks until the pool holds a number of idle decks.
+     * @param count The number of idle decks to have, up to the pool's limit.
+     */
+    public void prefill(int count){
+        int target = Math.min(count, this.idle.length);
+        for(;;){
+            synchronized(this){
+                if(this.idleCount >= target){
+                    return;
+                }
+            }
+            // A new deck is already shuffled, so it is pooled without a reset
+            D deck = Objects.requireNonNull(this.factory.get(), "The deck factory returned null");
+            synchronized(this){
+                this.created++;
+                if(this.idleCount < this.idle.length){
+                    this.idle[this.idleCount++] = deck;
+                }
+            }
+        }
+    }
+
+    public synchronized int idleCount(){
+        return this.idleCount;
+    }
+
+    public int maxIdle(){
+        return this.idle.length;
+    }
+
+    /**
+     * The number of decks the pool has made with its factory.
+     * @return The number of decks made.
+     */
+    public synchronized long createdCount(){
+        return this.created;
+    }
+
+    /**
+     * The number of times an idle deck was handed out instead of a new one.
+     * @return The number of decks reused.
+     */
+    public synchronized long reusedCount(){
+        return this.reused;
+    }
+
+    @Override
+    public synchronized String toString(){
+        return "DeckPool[idle=" + this.idleCount + "/" + this.idle.length
+                + " created=" + this.created + " reused=" + this.reused + "]";
+    }
+}
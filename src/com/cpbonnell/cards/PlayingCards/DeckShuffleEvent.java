@@ -0,0 +1,32 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event spanning the move of a deck's discard pile into its draw pile.
+ *
+ * <p>
+ *     The duration covers only the shuffle itself, not the listeners for the
+ *     DECK_SHUFFLED event, which have events of their own.
+ * </p>
+ */
+@Name("com.cpbonnell.cards.DeckShuffle")
+@Label("Deck Shuffle")
+@Description("Cards moved from the discard pile to the draw pile, shuffled")
+final class DeckShuffleEvent extends DeckFlightEvent {
+
+    @Label("Cards Shuffled")
+    int cardsShuffled;
+
+    @Label("Discards Left")
+    @Description("Cards left on top of the discard pile")
+    int discardsLeft;
+
+    @Label("Draw Pile Before")
+    int drawPileBefore;
+
+    @Label("Draw Pile After")
+    int drawPileAfter;
+}
@@ -0,0 +1,140 @@
+package com.cpbonnell.cards.PlayingCards;
+
+/**
+ * An immutable record of a deck's observable state at the moment an event was raised.
+ *
+ * <p>
+ *     When a deck dispatches its events asynchronously, listeners run after
+ *     the deck has moved on, and possibly on another thread. They are handed
+ *     one of these snapshots in place of the deck. The snapshot implements
+ *     IPlayingDeck, so listeners written for synchronous events work
+ *     unchanged: the size and discard pile methods report the state of the
+ *     deck when the event was raised, and the methods that would change the
+ *     deck behave as they do on a deck in read-only mode, returning null or
+ *     false and doing nothing. Outstanding cards can not be validated against
+ *     a snapshot, so validateOutstandingCard always returns false. The
+ *     composition is a copy of the deck's, taken with the rest of the
+ *     snapshot.
+ * </p>
+ */
+public final class DeckSnapshot implements IPlayingDeck {
+    
+    private final DeckEventType eventType;
+    private final int count;
+    private final IDeckEventRegistrar eventManager;
+    private final int drawPileSize;
+    private final int discardPileSize;
+    private final int outstandingSize;
+    private final int totalSize;
+    private final Ranks discardRank;
+    private final Suits discardSuit;
+    private final DeckComposition composition;
+    
+    // The event caller that will deliver this snapshot to its listeners, and
+    // the deck it was taken of, to name in flight recorder events
+    final BaseDeckEventCaller caller;
+    final IPlayingDeck source;
+    
+    DeckSnapshot(IPlayingDeck d, DeckEventType eventType, BaseDeckEventCaller caller, int count){
+        this.eventType = eventType;
+        this.count = count;
+        this.eventManager = d.getEventManager();
+        this.drawPileSize = d.drawPileSize();
+        this.discardPileSize = d.discardPileSize();
+        this.outstandingSize = d.outstandingSize();
+        this.totalSize = d.totalSize();
+        this.discardRank = d.viewDiscardRank();
+        this.discardSuit = d.viewDiscardSuit();
+        this.composition = d.composition().copy();
+        this.caller = caller;
+        this.source = d;
+    }
+
+    /**
+     * The event that this snapshot was taken for.
+     * @return The type of the event.
+     */
+    public DeckEventType eventType(){
+        return this.eventType;
+    }
+
+    /**
+     * The number of cards that the event was raised for.
+     * @return The number of cards in the batch, or 1 for an event of one card.
+     */
+    public int count(){
+        return this.count;
+    }
+    
+    @Override
+    public IDeckEventRegistrar getEventManager() {
+        return this.eventManager;
+    }
+
+    @Override
+    public void shuffle() {
+    }
+
+    @Override
+    public void shuffle(int leaveTopDiscards) {
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public Ranks viewDiscardRank() {
+        return this.discardRank;
+    }
+
+    @Override
+    public Suits viewDiscardSuit() {
+        return this.discardSuit;
+    }
+
+    @Override
+    public int drawPileSize() {
+        return this.drawPileSize;
+    }
+
+    @Override
+    public int discardPileSize() {
+        return this.discardPileSize;
+    }
+
+    @Override
+    public int outstandingSize() {
+        return this.outstandingSize;
+    }
+
+    @Override
+    public int totalSize() {
+        return this.totalSize;
+    }
+
+    @Override
+    public boolean validateOutstandingCard(IPlayingCard c) {
+        return false;
+    }
+
+    @Override
+    public DeckComposition composition() {
+        return this.composition;
+    }
+
+    @Override
+    public IPlayingCard drawCard() {
+        return null;
+    }
+
+    @Override
+    public IPlayingCard drawDiscard() {
+        return null;
+    }
+
+    @Override
+    public boolean discardCard(IPlayingCard c) {
+        return false;
+    }
+}
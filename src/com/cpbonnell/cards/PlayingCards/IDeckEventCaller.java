@@ -8,11 +8,21 @@ interface IDeckEventCaller extends IDeckEventRegistrar {
 
     void onCardDrawn(IPlayingDeck d);
 
+    void onCardsDrawn(IPlayingDeck d, int count);
+
     void onDiscardDrawn(IPlayingDeck d);
 
     void onCardDiscarded(IPlayingDeck d);
 
+    void onCardsDiscarded(IPlayingDeck d, int count);
+
     void onDeckShuffled(IPlayingDeck d);
 
     void onInvalidDiscard(IPlayingDeck d);
+
+    void setDispatcher(AsyncEventDispatcher dispatcher);
+
+    void setMetrics(DeckMetrics metrics);
+
+    DeckMetrics metrics();
 }
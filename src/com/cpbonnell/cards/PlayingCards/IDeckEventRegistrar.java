@@ -2,40 +2,59 @@ package com.cpbonnell.cards.PlayingCards;
 
 
 import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Public interface for subscribing and unsubscribing to deck events.
  * <p>
  *     This interface exposes one addXxxListener method for each of the five
- *     deck events, as well as two removeXxxxListener methods. These methods
- *     provide for two methods of subscribing / unsubscribing for methods. For
+ *     deck events, as well as a matching removeXxxListener method. Each add
+ *     method returns a handle for the registration (or -1 if the listener
+ *     was already registered), and the remove methods take that handle. For
  *     more information, see the documentation for the BaseDeckEventCaller
  *     class.
  * </p>
+ * <p>
+ *     Cards may be drawn or discarded several at a time, with the bulk
+ *     methods of IPlayingDeck, and each batch raises a single event. The
+ *     CardsDrawn and CardsDiscarded listeners are passed the number of cards
+ *     in the batch along with the deck, and are also called, with a count of
+ *     1, for every card drawn or discarded on its own. The CardDrawn and
+ *     CardDiscarded listeners are called once per event, whether it is for
+ *     one card or for a batch.
+ * </p>
  */
 public interface IDeckEventRegistrar {
     //==================== Functions for the CardDrawn Event ====================
     int addCardDrawnListener(Consumer<IPlayingDeck> listener);
     
-    boolean removeCardDrawnListener(int listenerHash);
+    boolean removeCardDrawnListener(int handle);
+
+    int addCardsDrawnListener(ObjIntConsumer<IPlayingDeck> listener);
+
+    boolean removeCardsDrawnListener(int handle);
 
     //==================== Functions for the DiscardDrawn Event ====================
     int addDiscardDrawnListener(Consumer<IPlayingDeck> listener);
     
-    boolean removeDiscardDrawnListener(int listenerHash);
+    boolean removeDiscardDrawnListener(int handle);
 
     //==================== Functions for the CardDiscarded Event ====================
     int addCardDiscardedListener(Consumer<IPlayingDeck> listener);
     
-    boolean removeCardDiscardedListener(int listenerHash);
+    boolean removeCardDiscardedListener(int handle);
+
+    int addCardsDiscardedListener(ObjIntConsumer<IPlayingDeck> listener);
+
+    boolean removeCardsDiscardedListener(int handle);
 
     //==================== Functions for the Deck Shuffled Event ====================
     int addDeckShuffledListener(Consumer<IPlayingDeck> listener);
     
-    boolean removeDeckShuffledListener(int listenerHash);
+    boolean removeDeckShuffledListener(int handle);
 
     //==================== Functions for the Invalid Discard Event ====================
     int addInvalidDiscardListener(Consumer<IPlayingDeck> listener);
     
-    boolean removeInvalidDiscardListener(int listenerHash);
+    boolean removeInvalidDiscardListener(int handle);
 }
@@ -1,5 +1,7 @@
 package com.cpbonnell.cards.PlayingCards;
 
+import java.util.Collection;
+
 /**
  * Created by christian_bonnell on 6/16/2015.
  */
@@ -14,6 +16,12 @@ public interface IPlayingDeck {
 
     void shuffle(int leaveTopDiscards);
 
+    /**
+     * Takes back every outstanding card, invalidating its facade, and
+     * shuffles the whole deck into the draw pile, ready for a new game.
+     */
+    void reset();
+
     Ranks viewDiscardRank();
 
     Suits viewDiscardSuit();
@@ -31,6 +39,14 @@ public interface IPlayingDeck {
     int totalSize();
     
     boolean validateOutstandingCard(IPlayingCard c);
+
+    /**
+     * Counts the cards of the deck by value in each pile. The deck keeps the
+     * counts up to date as cards move, so they can be read at any time,
+     * such as from a listener, without searching the deck.
+     * @return A read-only view of the deck's composition.
+     */
+    DeckComposition composition();
     
     
     // Methods for drawing and discarding
@@ -40,4 +56,91 @@ public interface IPlayingDeck {
     IPlayingCard drawDiscard();
     
     boolean discardCard(IPlayingCard c);
-}
+    
+    
+    // Methods for drawing and discarding several cards at once. The defaults
+    // draw and discard one card at a time; the decks override them to move
+    // the whole batch at once and raise a single event for it.
+
+    /**
+     * Draws cards from the top of the draw pile into an array.
+     * @param cards The array to fill.
+     * @param offset The index of the first card to fill in.
+     * @param count The number of cards to draw.
+     * @return The number of cards drawn, which is less than count only if
+     *         every other card of the deck is outstanding.
+     */
+    default int drawCards(IPlayingCard[] cards, int offset, int count){
+        DeckArguments.checkBatch(cards.length, offset, count);
+        int drawn = 0;
+        while(drawn < count){
+            IPlayingCard c = this.drawCard();
+            if(c == null){
+                break;
+            }
+            cards[offset + drawn++] = c;
+        }
+        return drawn;
+    }
+
+    /**
+     * Draws cards from the top of the draw pile, enough to fill an array.
+     * @param cards The array to fill.
+     * @return The number of cards drawn.
+     */
+    default int drawCards(IPlayingCard[] cards){
+        return this.drawCards(cards, 0, cards.length);
+    }
+
+    /**
+     * Deals cards to several players in turn, one card to each player per
+     * round, as a dealer would.
+     * @param hands The array to deal each player's cards into, one per player.
+     *              Card k of player p is put in hands[p][k].
+     * @param cardsPerPlayer The number of cards to deal each player.
+     * @return The number of cards dealt, which is less than all of them only
+     *         if the deck ran out, in which case the last round is incomplete.
+     */
+    default int dealRound(IPlayingCard[][] hands, int cardsPerPlayer){
+        DeckArguments.checkDeal(hands, cardsPerPlayer);
+        int total = hands.length * cardsPerPlayer;
+        int dealt = 0;
+        while(dealt < total){
+            IPlayingCard c = this.drawCard();
+            if(c == null){
+                break;
+            }
+            hands[dealt % hands.length][dealt / hands.length] = c;
+            dealt++;
+        }
+        return dealt;
+    }
+
+    /**
+     * Discards cards from an array, in order, onto the discard pile.
+     * @param cards The array holding the cards.
+     * @param offset The index of the first card to discard.
+     * @param count The number of cards to discard.
+     * @return The number of cards taken back. Cards that are not outstanding
+     *         from this deck are refused, each raising an invalid discard event.
+     */
+    default int discardCards(IPlayingCard[] cards, int offset, int count){
+        DeckArguments.checkBatch(cards.length, offset, count);
+        int discarded = 0;
+        for(int i = 0; i < count; i++){
+            if(this.discardCard(cards[offset + i])) discarded++;
+        }
+        return discarded;
+    }
+
+    /**
+     * Discards cards, in the order of the collection, onto the discard pile.
+     * @param cards The cards to discard.
+     * @return The number of cards taken back.
+     */
+    default int discardCards(Collection<? extends IPlayingCard> cards){
+        IPlayingCard[] array = cards.toArray(new IPlayingCard[0]);
+        return this.discardCards(array, 0, array.length);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event spanning a draw that found the draw pile empty and had to
+ * shuffle the discard pile first.
+ *
+ * <p>
+ *     The duration runs from finding the draw pile empty to having a card to
+ *     issue, or knowing there is none, so it includes any wait for another
+ *     thread's shuffle and the DECK_SHUFFLED listeners, and encloses the
+ *     DeckShuffle event of the shuffle itself.
+ * </p>
+ */
+@Name("com.cpbonnell.cards.ImplicitShuffle")
+@Label("Implicit Shuffle")
+@Description("A draw from an empty draw pile that shuffled the discard pile")
+final class ImplicitShuffleEvent extends DeckFlightEvent {
+
+    @Label("Card Drawn")
+    @Description("Whether the shuffle left a card to draw")
+    boolean cardDrawn;
+
+    @Label("Draw Pile After")
+    int drawPileAfter;
+
+    @Label("Discard Pile After")
+    int discardPileAfter;
+
+    void setPiles(IPlayingDeck d, boolean cardDrawn){
+        this.setDeck(d);
+        this.cardDrawn = cardDrawn;
+        this.drawPileAfter = d.drawPileSize();
+        this.discardPileAfter = d.discardPileSize();
+    }
+}
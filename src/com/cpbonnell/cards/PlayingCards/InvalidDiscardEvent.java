@@ -0,0 +1,52 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recording a card that a deck refused to take as a discard.
+ */
+@Name("com.cpbonnell.cards.InvalidDiscard")
+@Label("Invalid Discard")
+@Description("A discard refused because the card was not outstanding from the deck")
+final class InvalidDiscardEvent extends DeckFlightEvent {
+
+    @Label("Card")
+    @Description("The face value of the card, or -- if it had been invalidated")
+    String card;
+
+    @Label("Card Class")
+    Class<?> cardClass;
+
+    @Label("Reason")
+    String reason;
+
+    /**
+     * Commits an event for a refused discard, if the event is enabled.
+     * @param d The deck that refused the card.
+     * @param c The card it refused.
+     * @param reason Why it was refused, if the card itself does not say.
+     */
+    static void record(IPlayingDeck d, IPlayingCard c, String reason){
+        InvalidDiscardEvent event = new InvalidDiscardEvent();
+        if( ! event.shouldCommit() ){
+            return;
+        }
+        event.setDeck(d);
+        if(c == null){
+            event.reason = "null card";
+        } else {
+            event.card = c.toChars();
+            event.cardClass = c.getClass();
+            if(c.getClass() != SecurePlayingCard.class){
+                event.reason = "not a card issued by a deck";
+            } else if( ! ((SecurePlayingCard) c).isValid() ){
+                event.reason = "card already discarded";
+            } else {
+                event.reason = reason;
+            }
+        }
+        event.commit();
+    }
+}
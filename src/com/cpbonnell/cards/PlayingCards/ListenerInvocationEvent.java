@@ -0,0 +1,37 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A JFR event spanning one call to a deck event listener.
+ *
+ * <p>
+ *     Listeners run on every draw and discard, so by default only calls
+ *     taking longer than a tenth of a millisecond are recorded; set the
+ *     threshold to 0 ms to record every call.
+ * </p>
+ */
+@Name("com.cpbonnell.cards.ListenerInvocation")
+@Label("Deck Listener Invocation")
+@Description("A call to a listener for a deck event")
+@Threshold("100 us")
+final class ListenerInvocationEvent extends DeckFlightEvent {
+
+    @Label("Event Type")
+    String eventType;
+
+    @Label("Listener")
+    Class<?> listener;
+
+    @Label("Asynchronous")
+    @Description("Whether the listener ran on an AsyncEventDispatcher thread")
+    boolean asynchronous;
+
+    // Whether any listener calls are being recorded, to skip the timed loop if not
+    static boolean enabled(){
+        return new ListenerInvocationEvent().isEnabled();
+    }
+}
@@ -0,0 +1,120 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The listeners of one kind registered for one deck event.
+ *
+ * <p>
+ *     Listeners are kept in an array that is replaced, never modified, when a
+ *     listener is added or removed. Raising an event is then a plain loop over
+ *     whatever array is current, which needs no locking and allocates nothing,
+ *     and which can safely run on a dispatcher thread while listeners are
+ *     being added or removed on another.
+ * </p>
+ * <p>
+ *     Each registration is identified by a handle issued by this registry.
+ *     Handles are unique within the registry (they do not depend on the
+ *     listener's hashCode, so two listeners can never be confused), and are
+ *     looked up in a map, so finding a listener to remove does not need a
+ *     search. A listener that is equal to one already registered is not
+ *     added again.
+ * </p>
+ * @param <L> The type of listener.
+ */
+final class ListenerRegistry<L> {
+    
+    private volatile L[] listeners;
+    
+    // Maps from handle to listener and back, guarded by this object's monitor
+    private final Map<Integer, L> byHandle = new HashMap<>();
+    private final Map<L, Integer> byListener = new HashMap<>();
+    private int nextHandle;
+    
+    // The empty array fixes the runtime type of the arrays that are handed out
+    private ListenerRegistry(L[] none){
+        this.listeners = none;
+    }
+    
+    /**
+     * A registry of listeners that are passed the deck.
+     * @return An empty registry.
+     */
+    // Generic arrays can not be created, so a raw one is cast to the listener type
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ListenerRegistry<Consumer<IPlayingDeck>> ofDeckListeners(){
+        return new ListenerRegistry<>(new Consumer[0]);
+    }
+    
+    /**
+     * A registry of listeners that are passed the deck and a count of cards.
+     * @return An empty registry.
+     */
+    // As above, the raw array is cast to the listener type
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ListenerRegistry<ObjIntConsumer<IPlayingDeck>> ofCountListeners(){
+        return new ListenerRegistry<>(new ObjIntConsumer[0]);
+    }
+    
+    /**
+     * Registers a listener.
+     * @param listener The listener to register.
+     * @return The handle for the registration, or -1 if the listener was already registered.
+     */
+    synchronized int add(L listener){
+        if(this.byListener.containsKey(listener)){
+            return -1;
+        }
+        
+        // Handles are kept non-negative so that they never collide with -1
+        int handle = this.nextHandle;
+        this.nextHandle = (this.nextHandle + 1) & Integer.MAX_VALUE;
+        
+        this.byHandle.put(handle, listener);
+        this.byListener.put(listener, handle);
+        
+        L[] updated = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        updated[updated.length - 1] = listener;
+        this.listeners = updated;
+        return handle;
+    }
+    
+    /**
+     * Removes the registration with the given handle.
+     * @param handle A handle returned by add.
+     * @return true if a listener was removed, false if the handle is not registered.
+     */
+    synchronized boolean remove(int handle){
+        L listener = this.byHandle.remove(handle);
+        if(listener == null){
+            return false;
+        }
+        this.byListener.remove(listener);
+        
+        L[] current = this.listeners;
+        L[] updated = Arrays.copyOf(current, current.length - 1);
+        for(int i = 0, j = 0; i < current.length; i++){
+            if(current[i] != listener){
+                updated[j++] = current[i];
+            }
+        }
+        this.listeners = updated;
+        return true;
+    }
+    
+    boolean isEmpty(){
+        return this.listeners.length == 0;
+    }
+    
+    /**
+     * The registered listeners. The array must not be modified.
+     * @return The current array of listeners.
+     */
+    L[] listeners(){
+        return this.listeners;
+    }
+}
@@ -3,11 +3,29 @@ package com.cpbonnell.cards.PlayingCards;
 /**
  * Provides a representation of a basic playing card.
  *
+ * <p>
+ *     PlayingCard objects are immutable. The valueOf methods return shared
+ *     instances from a table of the 52 possible values, indexed by card number
+ *     (see BitmaskOperations.cardNumber), so code that only needs a card value
+ *     never has to allocate one. The toChars notation of a card is built
+ *     once, when the card is constructed.
+ * </p>
  */
 public class PlayingCard implements IPlayingCard {
 
-    private Ranks rank;
-    private Suits suit;
+    private static final PlayingCard[] FLYWEIGHTS = new PlayingCard[52];
+
+    static {
+        for(Ranks r : Ranks.values()){
+            for(Suits s : Suits.values()){
+                FLYWEIGHTS[r.ordinal() * 4 + s.ordinal()] = new PlayingCard(r, s);
+            }
+        }
+    }
+
+    private final Ranks rank;
+    private final Suits suit;
+    private final String chars;
 
     /**
      * Instantiate a PlayingCard object with the given values.
@@ -19,13 +37,34 @@ public class PlayingCard implements IPlayingCard {
         if(r != null && s != null){
             this.rank = r;
             this.suit = s;
+            this.chars = r.toChars() + s.toChars();
         } else {
             this.rank = null;
             this.suit = null;
+            this.chars = "--";
         }
         
     }
 
+    /**
+     * Get the shared PlayingCard object for the given values.
+     * @param r A Ranks value
+     * @param s A Suits value
+     * @return The shared card with that rank and suit.
+     */
+    public static PlayingCard valueOf(Ranks r, Suits s){
+        return FLYWEIGHTS[r.ordinal() * 4 + s.ordinal()];
+    }
+
+    /**
+     * Get the shared PlayingCard object for the given card number.
+     * @param cardNumber A card number, from 0 to 51
+     * @return The shared card with that card number.
+     */
+    public static PlayingCard valueOf(int cardNumber){
+        return FLYWEIGHTS[cardNumber];
+    }
+
     /**
      * Access the rank of the object's face value.
      * @return The rank of this card.
@@ -56,7 +95,7 @@ public class PlayingCard implements IPlayingCard {
 
     @Override
     public String toChars() {
-        return this.rank.toChars() + this.suit.toChars();
+        return this.chars;
     }
     
     @Override
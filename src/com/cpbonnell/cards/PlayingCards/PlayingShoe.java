@@ -0,0 +1,190 @@
+package com.cpbonnell.cards.PlayingCards;
+
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A dealing shoe of several French decks, with a cut card.
+ *
+ * <p>
+ *     A shoe behaves as a BasePlayingDeck made of every card of its decks,
+ *     built without a list of cards. Its piles are arrays of one byte card
+ *     numbers, and its composition counts the cards of each value left in
+ *     the shoe, which remaining reads in constant time. The draw pile is not put
+ *     in order when it is shuffled: each draw picks one of the cards left at
+ *     random and fills its place with the last card of the pile, one step of
+ *     a Fisher-Yates shuffle. That deals the cards in the same proportions
+ *     as drawing from the top of a shuffled pile, while a shuffle only has to
+ *     copy the discards back into the draw pile. Nothing that a shoe does
+ *     to draw, discard or validate a card depends on the number of decks in
+ *     it. The discard pile is a stack, so the order of the discards is kept
+ *     for drawDiscard and for shuffles that leave the top discards.
+ * </p>
+ * <p>
+ *     The cut card is placed so that a fraction of the shoe, its penetration,
+ *     is dealt before it comes out. Dealing carries on past the cut card, as
+ *     a round of play in a casino is finished once started, and the shoe is
+ *     reshuffled when endRound is called after it has come out. A draw from
+ *     an empty shoe shuffles the discard pile back in first, as a deck does.
+ *     The cut card stays at the same depth however often the discards are
+ *     shuffled back in, so it comes out again once the shoe is dealt down
+ *     that far.
+ * </p>
+ * <p>
+ *     Apart from its draw pile, a shoe works as the BasePlayingDeck does:
+ *     outstanding cards are tracked by their facades, in slots, and events,
+ *     metrics and flight recorder events are raised in the same way. Like
+ *     the BasePlayingDeck, a shoe is for one thread at a time.
+ * </p>
+ */
+public class PlayingShoe extends AbstractPlayingDeck {
+
+    private final int decks;
+    private final double penetration;
+
+    // The number of cards left behind the cut card once it has come out
+    private final int cutCardDepth;
+
+    //============================== Constructors ==============================
+
+    /**
+     * Constructs a shuffled shoe.
+     * @param decks The number of 52 card French decks in the shoe.
+     * @param penetration The fraction of the shoe dealt before the cut card
+     *                    comes out, greater than 0 and at most 1.
+     */
+    public PlayingShoe(int decks, double penetration){
+        this(decks, penetration, BasePlayingDeck.newDefaultGenerator());
+    }
+
+    /**
+     * Constructs a shuffled shoe that shuffles with the given random number generator.
+     * @param decks The number of 52 card French decks in the shoe.
+     * @param penetration The fraction of the shoe dealt before the cut card
+     *                    comes out, greater than 0 and at most 1.
+     * @param rng The generator to use for all shuffling and drawing.
+     */
+    public PlayingShoe(int decks, double penetration, RandomGenerator rng){
+        super(shoeCardNumbers(decks), rng);
+        if( ! (penetration > 0 && penetration <= 1) ){
+            throw new IllegalArgumentException("The penetration must be greater than 0 and at most 1: "
+                    + penetration);
+        }
+
+        this.decks = decks;
+        this.penetration = penetration;
+
+        int n = this.totalSize();
+        this.cutCardDepth = n - (int) Math.max(1, Math.round(n * penetration));
+
+        // A new shoe has every card in its draw pile, which needs no shuffling
+        this.moveDiscards(n);
+    }
+
+    //============================== Accessors ==============================
+
+    public int decks(){
+        return this.decks;
+    }
+
+    public double penetration(){
+        return this.penetration;
+    }
+
+    /**
+     * Tells whether the cut card has come out of the shoe.
+     * @return true if the shoe will be reshuffled at the end of the round.
+     */
+    public boolean cutCardReached(){
+        return this.drawCount <= this.cutCardDepth;
+    }
+
+    /**
+     * The number of cards still to be dealt before the cut card comes out.
+     * @return The number of cards in front of the cut card, or 0 if it is out.
+     */
+    public int cardsBeforeCutCard(){
+        return Math.max(0, this.drawCount - this.cutCardDepth);
+    }
+
+    /**
+     * The number of cards of a value left to be drawn from the shoe.
+     * @param r The rank of the card.
+     * @param s The suit of the card.
+     * @return The number of those cards in the draw pile.
+     */
+    public int remaining(Ranks r, Suits s){
+        return this.composition().count(DeckPile.DRAW, r, s);
+    }
+
+    /**
+     * The number of cards of a rank left to be drawn from the shoe, such as
+     * the tens and faces that a blackjack count follows.
+     * @param r The rank of the cards.
+     * @return The number of cards of that rank in the draw pile.
+     */
+    public int remaining(Ranks r){
+        return this.composition().count(DeckPile.DRAW, r);
+    }
+
+    //============================== Action Methods ==============================
+
+    /**
+     * Ends a round of play, reshuffling the shoe if the cut card has come out.
+     * <p>
+     *     Every discard is shuffled back into the shoe, raising a deck shuffled
+     *     event, and the cut card is put back at its depth. Cards still
+     *     outstanding stay out of the shoe. If the cut card has not come out,
+     *     nothing is done.
+     * </p>
+     * @return true if the shoe was reshuffled.
+     */
+    public boolean endRound(){
+        if(this.isReadOnly || ! this.cutCardReached()){
+            return false;
+        }
+        this.shuffle();
+        return true;
+    }
+
+    @Override
+    public String toString(){
+        return "PlayingShoe[decks=" + this.decks + " draw=" + this.drawCount + " discard=" + this.discardCount
+                + " outstanding=" + this.outstandingSize() + " cutCardReached=" + this.cutCardReached() + "]";
+    }
+
+    //============================== Draw Pile ==============================
+
+    // Takes a card from a random place in the draw pile, and fills the place
+    // with the last card of the pile
+    @Override
+    byte takeFromDrawPile(){
+        int i = this.rng.nextInt(this.drawCount);
+        byte c = this.drawPile[i];
+        this.drawPile[i] = this.drawPile[--this.drawCount];
+        return c;
+    }
+
+    // Since cards are drawn from the shoe at random, the discards are simply
+    // put back in the draw pile
+    @Override
+    void addToDrawPile(int moved){
+        System.arraycopy(this.discardPile, 0, this.drawPile, this.drawCount, moved);
+        this.drawCount += moved;
+    }
+
+    //==================== Private Helper Functions ====================
+
+    // The card numbers of a number of French decks
+    private static byte[] shoeCardNumbers(int decks){
+        if(decks < 1 || decks > DeckComposition.MAX_CARDS / BitmaskOperations.NUMBER_OF_CARDS){
+            throw new IllegalArgumentException("Can not make a shoe of " + decks + " decks");
+        }
+        byte[] cards = new byte[decks * BitmaskOperations.NUMBER_OF_CARDS];
+        for(int i = 0; i < cards.length; i++){
+            cards[i] = (byte) (i % BitmaskOperations.NUMBER_OF_CARDS);
+        }
+        return cards;
+    }
+}
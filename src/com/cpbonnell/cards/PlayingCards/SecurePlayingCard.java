@@ -14,19 +14,28 @@ package com.cpbonnell.cards.PlayingCards;
  * This prevents spoofing, where an agent might instantiate a card with a
  * desired value (the "Ace Up The Sleeve" trick), or discard a blank card
  * rather than one legitimately issued from the deck.
+ * 
+ * Each facade also records the outstanding slot that the issuing deck filed it
+ * under. The deck keeps the facade itself in that slot, so checking that the
+ * slot still holds this very object validates the card in constant time. A
+ * facade from another deck, a stale facade whose slot has since been reused,
+ * or an invalidated facade all fail that identity check.
  *
  */
 class SecurePlayingCard implements IPlayingCard {
     
     private static final IPlayingCard BLANK_CARD = new PlayingCard(null, null);
     private IPlayingCard referencedCard;
+    private final int slot;
 
     /**
      * Instantiate a SecurePlayingCard object pointing to the specified parameter.
      * @param c An object implementing IPlayingCard.
+     * @param slot The index under which the issuing deck tracks this facade.
      */
-    public SecurePlayingCard(IPlayingCard c){
+    public SecurePlayingCard(IPlayingCard c, int slot){
         this.referencedCard = c;
+        this.slot = slot;
     }
 
 
@@ -79,6 +88,14 @@ class SecurePlayingCard implements IPlayingCard {
         return this.referencedCard == c && this.isValid();
     }
 
+    /**
+     * The index under which the issuing deck tracks this facade.
+     * @return The outstanding slot of this card.
+     */
+    int slot(){
+        return this.slot;
+    }
+
     /**
      * Determines if this object still maintains a valid reference.
      * @return Returns true if the reference is still valid, and false if it references blank card.
@@ -0,0 +1,292 @@
+package com.cpbonnell.cards.PokerHands;
+
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Classifies large batches of hands held in packed primitive arrays.
+ *
+ * <p>
+ *     A batch is a run of hands stored back to back, each as the same number
+ *     of card numbers (see BitmaskOperations.cardNumber): from 5 to 7 per
+ *     hand, as ints in an int[], or as single bytes in a byte[] or a
+ *     ByteBuffer. Hand i occupies elements i * cardsPerHand to
+ *     (i + 1) * cardsPerHand - 1, and its results are written to element i of
+ *     the output arrays. Hands of six or seven cards are ranked by their best
+ *     five cards.
+ * </p>
+ * <p>
+ *     As with the SevenCardEvaluator, each hand must hold distinct card
+ *     numbers from 0 to 51, and the strengths of such hands agree with
+ *     PokerHandClass. The cards are not checked, to keep the evaluation loops
+ *     free of branches: a card number out of range throws an
+ *     ArrayIndexOutOfBoundsException, but a hand that repeats a card, as one
+ *     dealt from a Pinochle deck or a shoe can, is given a wrong strength.
+ *     Such hands can be classified one at a time with
+ *     PokerHandClass.classifyHand instead.
+ * </p>
+ * <p>
+ *     The outputs are kept as separate flat arrays. Strengths are computed
+ *     first, with the SevenCardEvaluator and no allocation, and the class
+ *     ordinals are then extracted from the strengths in a second, branch
+ *     free loop over two primitive arrays, which the JIT compiles to vector
+ *     instructions. Passing null for the class array skips that pass. The
+ *     parallel methods split the batch into ranges of hands on the common
+ *     fork-join pool, and are worth using for batches of more than a few
+ *     hundred thousand hands.
+ * </p>
+ */
+public abstract class BatchClassifier {
+
+    // Batches of fewer hands than this are not split any further
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    // Make non-instantiable
+    private BatchClassifier() {
+
+    }
+
+
+    //==================== Sequential Classification ====================
+
+    /**
+     * Classifies a batch of hands packed as int card numbers.
+     * @param hands The card numbers of the hands, back to back.
+     * @param cardsPerHand The number of cards in each hand, from 5 to 7.
+     * @param strengths Receives the strength of each hand. Its length is the
+     *                  number of hands classified.
+     * @param classOrdinals Receives the PokerHandClass ordinal of each hand,
+     *                      or null if only strengths are wanted.
+     */
+    public static void classify(int[] hands, int cardsPerHand, int[] strengths, byte[] classOrdinals){
+        classify(hands, cardsPerHand, strengths.length, strengths, classOrdinals);
+    }
+
+    /**
+     * Classifies the first hands of a batch packed as int card numbers, so
+     * that the same arrays can be reused for batches of different sizes.
+     * @param hands The card numbers of the hands, back to back.
+     * @param cardsPerHand The number of cards in each hand, from 5 to 7.
+     * @param handCount The number of hands to classify.
+     * @param strengths Receives the strength of each hand.
+     * @param classOrdinals Receives the PokerHandClass ordinal of each hand,
+     *                      or null if only strengths are wanted.
+     */
+    public static void classify(int[] hands, int cardsPerHand, int handCount, int[] strengths, byte[] classOrdinals){
+        checkCount(handCount, strengths);
+        checkBatch(hands.length, cardsPerHand, handCount, classOrdinals);
+        evaluate(hands, cardsPerHand, strengths, 0, handCount);
+        if(classOrdinals != null) extractClasses(strengths, classOrdinals, 0, handCount);
+    }
+
+    /**
+     * Classifies a batch of hands packed as byte card numbers.
+     * @see #classify(int[], int, int[], byte[])
+     */
+    public static void classify(byte[] hands, int cardsPerHand, int[] strengths, byte[] classOrdinals){
+        classify(hands, cardsPerHand, strengths.length, strengths, classOrdinals);
+    }
+
+    /**
+     * Classifies the first hands of a batch packed as byte card numbers.
+     * @see #classify(int[], int, int, int[], byte[])
+     */
+    public static void classify(byte[] hands, int cardsPerHand, int handCount, int[] strengths, byte[] classOrdinals){
+        checkCount(handCount, strengths);
+        checkBatch(hands.length, cardsPerHand, handCount, classOrdinals);
+        evaluate(hands, cardsPerHand, strengths, 0, handCount);
+        if(classOrdinals != null) extractClasses(strengths, classOrdinals, 0, handCount);
+    }
+
+    /**
+     * Classifies a batch of hands packed as byte card numbers in a buffer,
+     * starting at the buffer's position. The buffer's position is not changed.
+     * @see #classify(int[], int, int[], byte[])
+     */
+    public static void classify(ByteBuffer hands, int cardsPerHand, int[] strengths, byte[] classOrdinals){
+        classify(hands, cardsPerHand, strengths.length, strengths, classOrdinals);
+    }
+
+    /**
+     * Classifies the first hands of a batch packed as byte card numbers in a
+     * buffer, starting at the buffer's position. The buffer's position is not
+     * changed.
+     * @see #classify(int[], int, int, int[], byte[])
+     */
+    public static void classify(ByteBuffer hands, int cardsPerHand, int handCount, int[] strengths,
+                                byte[] classOrdinals){
+        checkCount(handCount, strengths);
+        checkBatch(hands.remaining(), cardsPerHand, handCount, classOrdinals);
+        evaluate(hands, cardsPerHand, strengths, 0, handCount);
+        if(classOrdinals != null) extractClasses(strengths, classOrdinals, 0, handCount);
+    }
+
+    /**
+     * Extracts the PokerHandClass ordinals of a batch of strengths.
+     * @param strengths Strengths as returned by the evaluators.
+     * @param classOrdinals Receives the class ordinal of each strength.
+     */
+    public static void handClasses(int[] strengths, byte[] classOrdinals){
+        if(classOrdinals.length < strengths.length){
+            throw new IllegalArgumentException("The class array is shorter than the strength array");
+        }
+        extractClasses(strengths, classOrdinals, 0, strengths.length);
+    }
+
+
+    //==================== Parallel Classification ====================
+
+    /**
+     * Classifies a batch of hands packed as int card numbers on the common fork-join pool.
+     * @see #classify(int[], int, int[], byte[])
+     */
+    public static void classifyParallel(int[] hands, int cardsPerHand, int[] strengths, byte[] classOrdinals){
+        checkBatch(hands.length, cardsPerHand, strengths.length, classOrdinals);
+        ForkJoinPool.commonPool().invoke(new BatchTask(hands, null, null, cardsPerHand, strengths, classOrdinals,
+                0, strengths.length));
+    }
+
+    /**
+     * Classifies a batch of hands packed as byte card numbers on the common fork-join pool.
+     * @see #classify(int[], int, int[], byte[])
+     */
+    public static void classifyParallel(byte[] hands, int cardsPerHand, int[] strengths, byte[] classOrdinals){
+        checkBatch(hands.length, cardsPerHand, strengths.length, classOrdinals);
+        ForkJoinPool.commonPool().invoke(new BatchTask(null, hands, null, cardsPerHand, strengths, classOrdinals,
+                0, strengths.length));
+    }
+
+    /**
+     * Classifies a batch of hands packed as byte card numbers in a buffer on
+     * the common fork-join pool. The buffer's position is not changed.
+     * @see #classify(int[], int, int[], byte[])
+     */
+    public static void classifyParallel(ByteBuffer hands, int cardsPerHand, int[] strengths, byte[] classOrdinals){
+        checkBatch(hands.remaining(), cardsPerHand, strengths.length, classOrdinals);
+        ForkJoinPool.commonPool().invoke(new BatchTask(null, null, hands, cardsPerHand, strengths, classOrdinals,
+                0, strengths.length));
+    }
+
+    // Classifies the hands in the range [from, to) of one of the three kinds of batch
+    @SuppressWarnings("serial") // never serialized
+    private static final class BatchTask extends RecursiveAction {
+
+        private final int[] ints;
+        private final byte[] bytes;
+        private final ByteBuffer buffer;
+        private final int cardsPerHand;
+        private final int[] strengths;
+        private final byte[] classOrdinals;
+        private final int from;
+        private final int to;
+
+        BatchTask(int[] ints, byte[] bytes, ByteBuffer buffer, int cardsPerHand,
+                  int[] strengths, byte[] classOrdinals, int from, int to){
+            this.ints = ints;
+            this.bytes = bytes;
+            this.buffer = buffer;
+            this.cardsPerHand = cardsPerHand;
+            this.strengths = strengths;
+            this.classOrdinals = classOrdinals;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(this.to - this.from > PARALLEL_THRESHOLD){
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(
+                        new BatchTask(this.ints, this.bytes, this.buffer, this.cardsPerHand,
+                                this.strengths, this.classOrdinals, this.from, mid),
+                        new BatchTask(this.ints, this.bytes, this.buffer, this.cardsPerHand,
+                                this.strengths, this.classOrdinals, mid, this.to));
+                return;
+            }
+
+            if(this.ints != null){
+                evaluate(this.ints, this.cardsPerHand, this.strengths, this.from, this.to);
+            } else if(this.bytes != null){
+                evaluate(this.bytes, this.cardsPerHand, this.strengths, this.from, this.to);
+            } else {
+                evaluate(this.buffer, this.cardsPerHand, this.strengths, this.from, this.to);
+            }
+            if(this.classOrdinals != null){
+                extractClasses(this.strengths, this.classOrdinals, this.from, this.to);
+            }
+        }
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    private static void checkCount(int handCount, int[] strengths){
+        if(handCount < 0 || handCount > strengths.length){
+            throw new IllegalArgumentException("The strength array can not hold " + handCount + " hands");
+        }
+    }
+
+    private static void checkBatch(int cards, int cardsPerHand, int handCount, byte[] classOrdinals){
+        if(cardsPerHand < 5 || cardsPerHand > 7){
+            throw new IllegalArgumentException("A hand must hold from 5 to 7 cards, not " + cardsPerHand);
+        }
+        if((long) handCount * cardsPerHand > cards){
+            throw new IllegalArgumentException("The batch holds fewer than " + handCount + " hands");
+        }
+        if(classOrdinals != null && classOrdinals.length < handCount){
+            throw new IllegalArgumentException("The class array is shorter than the strength array");
+        }
+    }
+
+    // The evaluation loops are written out once per input type, so that each
+    // one reads its array directly and the JIT can inline the evaluator.
+
+    private static void evaluate(int[] hands, int cardsPerHand, int[] strengths, int from, int to){
+        for(int h = from, i = from * cardsPerHand; h < to; h++){
+            int rankKey = 0;
+            long suitKey = 0;
+            for(int end = i + cardsPerHand; i < end; i++){
+                rankKey += SevenCardEvaluator.rankKey(hands[i]);
+                suitKey += SevenCardEvaluator.suitKey(hands[i]);
+            }
+            strengths[h] = SevenCardEvaluator.evaluateKeys(rankKey, suitKey, cardsPerHand);
+        }
+    }
+
+    private static void evaluate(byte[] hands, int cardsPerHand, int[] strengths, int from, int to){
+        for(int h = from, i = from * cardsPerHand; h < to; h++){
+            int rankKey = 0;
+            long suitKey = 0;
+            for(int end = i + cardsPerHand; i < end; i++){
+                rankKey += SevenCardEvaluator.rankKey(hands[i]);
+                suitKey += SevenCardEvaluator.suitKey(hands[i]);
+            }
+            strengths[h] = SevenCardEvaluator.evaluateKeys(rankKey, suitKey, cardsPerHand);
+        }
+    }
+
+    private static void evaluate(ByteBuffer hands, int cardsPerHand, int[] strengths, int from, int to){
+        int base = hands.position();
+        for(int h = from, i = base + from * cardsPerHand; h < to; h++){
+            int rankKey = 0;
+            long suitKey = 0;
+            for(int end = i + cardsPerHand; i < end; i++){
+                int c = hands.get(i);
+                rankKey += SevenCardEvaluator.rankKey(c);
+                suitKey += SevenCardEvaluator.suitKey(c);
+            }
+            strengths[h] = SevenCardEvaluator.evaluateKeys(rankKey, suitKey, cardsPerHand);
+        }
+    }
+
+    // A plain shift over two flat arrays, with no calls or branches, so that
+    // it is compiled to vector instructions.
+    private static void extractClasses(int[] strengths, byte[] classOrdinals, int from, int to){
+        for(int i = from; i < to; i++){
+            classOrdinals[i] = (byte) (strengths[i] >>> BitmaskOperations.STRENGTH_CLASS_SHIFT);
+        }
+    }
+}
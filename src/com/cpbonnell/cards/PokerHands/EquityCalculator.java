@@ -0,0 +1,410 @@
+package com.cpbonnell.cards.PokerHands;
+
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * All-in equity of hold'em hands, estimated by sampling runouts of the board.
+ *
+ * <p>
+ *     Players and board are given as card numbers (see
+ *     BitmaskOperations.cardNumber), and nothing is drawn from a deck object:
+ *     each worker keeps the unseen cards in a primitive array and deals the
+ *     missing board cards with a partial Fisher-Yates shuffle, which leaves
+ *     the array a valid deck for the next trial. Hands are ranked with the
+ *     SevenCardEvaluator, starting from the summed keys of the known board and
+ *     of each player's hole cards, so a trial adds only the keys of the dealt
+ *     cards and allocates nothing. Strengths agree with PokerHandClass.
+ * </p>
+ * <p>
+ *     Trials are run in batches on every thread of a fork-join pool. Each
+ *     worker has its own SplittableRandom, split from one root generator, so
+ *     the workers draw independent streams without sharing any state. After
+ *     each batch a worker adds its counts to the pooled totals, and the
+ *     sampling stops once every player's equity has reached the target
+ *     standard error, or the time budget has run out.
+ * </p>
+ * <p>
+ *     When few enough cards are unknown, the exact equity can be found
+ *     instead by enumerating every runout: 1,712,304 of them for two players
+ *     preflop, and fewer than a thousand from the flop. The runouts are
+ *     enumerated in lexicographic order, carrying the summed keys of the
+ *     cards dealt so far down from one board card to the next, so each
+ *     runout costs one key addition and one evaluation per player. The
+ *     enumeration is split across a fork-join pool by the first card dealt.
+ * </p>
+ */
+public abstract class EquityCalculator {
+
+    private static final int BATCH_TRIALS = 1024;
+
+    // The standard error is not trusted to stop sampling before this many trials
+    private static final long MIN_TRIALS = 10_000;
+
+    // Make non-instantiable
+    private EquityCalculator() {
+
+    }
+
+
+    //==================== Monte Carlo Estimation ====================
+
+    /**
+     * Estimates equity on the common fork-join pool.
+     * @param holeCards The two hole cards of each player, as card numbers.
+     * @param board The known board cards, from none to five, as card numbers.
+     * @param targetStandardError The standard error at which to stop, or zero
+     *                            to sample until the time budget runs out.
+     * @param timeBudget The longest time to sample for, or null to sample until
+     *                   the target standard error is reached.
+     * @return The estimated equity of each player.
+     * @throws IllegalArgumentException If the cards are not a valid spot, or
+     *         leave too few unseen cards to finish the board.
+     */
+    public static EquityResult monteCarlo(int[][] holeCards, int[] board, double targetStandardError,
+                                          Duration timeBudget){
+        return monteCarlo(holeCards, board, targetStandardError, timeBudget,
+                ForkJoinPool.commonPool(), new SplittableRandom());
+    }
+
+    /**
+     * Estimates equity.
+     * @param holeCards The two hole cards of each player, as card numbers.
+     * @param board The known board cards, from none to five, as card numbers.
+     * @param targetStandardError The standard error at which to stop, or zero
+     *                            to sample until the time budget runs out.
+     * @param timeBudget The longest time to sample for, or null to sample until
+     *                   the target standard error is reached.
+     * @param pool The pool to sample in. One worker is run per thread of the pool.
+     * @param random The root generator, from which each worker's generator is split.
+     * @return The estimated equity of each player.
+     * @throws IllegalArgumentException If the cards are not a valid spot, or
+     *         leave too few unseen cards to finish the board.
+     */
+    public static EquityResult monteCarlo(int[][] holeCards, int[] board, double targetStandardError,
+                                          Duration timeBudget, ForkJoinPool pool, SplittableRandom random){
+        if(targetStandardError <= 0 && timeBudget == null){
+            throw new IllegalArgumentException("A target standard error or a time budget is required");
+        }
+
+        Spot spot = new Spot(holeCards, board);
+        long start = System.nanoTime();
+        long budget = timeBudget == null ? Long.MAX_VALUE : timeBudget.toNanos();
+        PooledTally totals = new PooledTally(spot.players(), targetStandardError, start, budget);
+
+        ForkJoinTask<?>[] workers = new ForkJoinTask<?>[pool.getParallelism()];
+        for(int w = 0; w < workers.length; w++){
+            SplittableRandom stream = random.split();
+            workers[w] = pool.submit(() -> sample(spot, stream, totals));
+        }
+        for(ForkJoinTask<?> w : workers){
+            w.join();
+        }
+
+        return totals.toResult(System.nanoTime() - start, false);
+    }
+
+    //==================== Exact Enumeration ====================
+
+    /**
+     * Computes exact equity on the common fork-join pool.
+     * @param holeCards The two hole cards of each player, as card numbers.
+     * @param board The known board cards, from none to five, as card numbers.
+     * @return The exact equity of each player.
+     * @throws IllegalArgumentException If the cards are not a valid spot, or
+     *         leave too few unseen cards to finish the board.
+     */
+    public static EquityResult exact(int[][] holeCards, int[] board){
+        return exact(holeCards, board, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes exact equity by enumerating every runout of the board.
+     * @param holeCards The two hole cards of each player, as card numbers.
+     * @param board The known board cards, from none to five, as card numbers.
+     * @param pool The pool to enumerate in.
+     * @return The exact equity of each player.
+     * @throws IllegalArgumentException If the cards are not a valid spot, or
+     *         leave too few unseen cards to finish the board.
+     */
+    public static EquityResult exact(int[][] holeCards, int[] board, ForkJoinPool pool){
+        Spot spot = new Spot(holeCards, board);
+        long start = System.nanoTime();
+
+        // The spot leaves at least as many unseen cards as are needed, so the
+        // range of first cards below is never empty
+        int[] deck = spot.unseenCards();
+        int needed = 5 - spot.boardCards;
+        Tally tally;
+        if(needed == 0){
+            tally = new Tally(spot.players());
+            tally.showdown(spot, spot.boardRankKey, spot.boardSuitKey);
+        } else {
+            tally = pool.invoke(new RunoutTask(spot, deck, needed, 0, deck.length - needed + 1));
+        }
+        return tally.toResult(System.nanoTime() - start, true);
+    }
+
+    // Enumerates the runouts whose first dealt card is in the range [from, to)
+    @SuppressWarnings("serial") // never serialized
+    private static final class RunoutTask extends RecursiveTask<Tally> {
+
+        private final Spot spot;
+        private final int[] deck;
+        private final int needed;
+        private final int from;
+        private final int to;
+
+        RunoutTask(Spot spot, int[] deck, int needed, int from, int to){
+            this.spot = spot;
+            this.deck = deck;
+            this.needed = needed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute(){
+            if(this.to - this.from == 1){
+                Tally tally = new Tally(this.spot.players());
+                int c = this.deck[this.from];
+                deal(this.spot, this.deck, this.from + 1, this.needed - 1,
+                        this.spot.boardRankKey + SevenCardEvaluator.rankKey(c),
+                        this.spot.boardSuitKey + SevenCardEvaluator.suitKey(c), tally);
+                return tally;
+            }
+
+            int mid = (this.from + this.to) >>> 1;
+            RunoutTask high = new RunoutTask(this.spot, this.deck, this.needed, mid, this.to);
+            high.fork();
+            Tally tally = new RunoutTask(this.spot, this.deck, this.needed, this.from, mid).compute();
+            tally.add(high.join());
+            return tally;
+        }
+    }
+
+    // Deals the remaining board cards from deck[next..] in every combination,
+    // adding each card's keys to those of the cards already dealt
+    private static void deal(Spot spot, int[] deck, int next, int remaining, int rankKey, long suitKey, Tally tally){
+        if(remaining == 0){
+            tally.showdown(spot, rankKey, suitKey);
+            return;
+        }
+        for(int i = next; i <= deck.length - remaining; i++){
+            int c = deck[i];
+            deal(spot, deck, i + 1, remaining - 1,
+                    rankKey + SevenCardEvaluator.rankKey(c), suitKey + SevenCardEvaluator.suitKey(c), tally);
+        }
+    }
+
+    private static void sample(Spot spot, SplittableRandom random, PooledTally totals){
+        int[] deck = spot.unseenCards();
+        int needed = 5 - spot.boardCards;
+        Tally tally = new Tally(spot.players());
+
+        do {
+            for(int t = 0; t < BATCH_TRIALS; t++){
+                int rankKey = spot.boardRankKey;
+                long suitKey = spot.boardSuitKey;
+
+                // Partial Fisher-Yates: the front of the array becomes the dealt cards
+                for(int i = 0; i < needed; i++){
+                    int j = i + random.nextInt(deck.length - i);
+                    int c = deck[j];
+                    deck[j] = deck[i];
+                    deck[i] = c;
+                    rankKey += SevenCardEvaluator.rankKey(c);
+                    suitKey += SevenCardEvaluator.suitKey(c);
+                }
+                tally.showdown(spot, rankKey, suitKey);
+            }
+        } while(totals.merge(tally));
+    }
+
+
+    //==================== Helper Classes ====================
+
+    // The validated cards of a spot, with the keys of the known cards summed
+    static final class Spot {
+
+        final int[] holeRankKeys;
+        final long[] holeSuitKeys;
+        final int boardRankKey;
+        final long boardSuitKey;
+        final int boardCards;
+        private final long seen;
+
+        Spot(int[][] holeCards, int[] board){
+            if(holeCards.length < 2){
+                throw new IllegalArgumentException("At least two players are required");
+            }
+            if(board.length > 5){
+                throw new IllegalArgumentException("A board holds at most five cards, not " + board.length);
+            }
+            int unseen = BitmaskOperations.NUMBER_OF_CARDS - 2 * holeCards.length - board.length;
+            if(unseen < 5 - board.length){
+                throw new IllegalArgumentException(holeCards.length + " players and " + board.length
+                        + " board cards leave " + unseen + " cards, too few to finish the board");
+            }
+
+            long seen = 0;
+            this.holeRankKeys = new int[holeCards.length];
+            this.holeSuitKeys = new long[holeCards.length];
+            for(int p = 0; p < holeCards.length; p++){
+                if(holeCards[p].length != 2){
+                    throw new IllegalArgumentException("Each player must hold two cards");
+                }
+                for(int c : holeCards[p]){
+                    seen = see(seen, c);
+                    this.holeRankKeys[p] += SevenCardEvaluator.rankKey(c);
+                    this.holeSuitKeys[p] += SevenCardEvaluator.suitKey(c);
+                }
+            }
+
+            int rankKey = 0;
+            long suitKey = 0;
+            for(int c : board){
+                seen = see(seen, c);
+                rankKey += SevenCardEvaluator.rankKey(c);
+                suitKey += SevenCardEvaluator.suitKey(c);
+            }
+            this.boardRankKey = rankKey;
+            this.boardSuitKey = suitKey;
+            this.boardCards = board.length;
+            this.seen = seen;
+        }
+
+        int players(){
+            return this.holeRankKeys.length;
+        }
+
+        // A new array of the card numbers not held by a player or on the board
+        int[] unseenCards(){
+            int[] deck = new int[BitmaskOperations.NUMBER_OF_CARDS - Long.bitCount(this.seen)];
+            int i = 0;
+            for(int c = 0; c < BitmaskOperations.NUMBER_OF_CARDS; c++){
+                if((this.seen & (1L << c)) == 0) deck[i++] = c;
+            }
+            return deck;
+        }
+
+        private static long see(long seen, int card){
+            if(card < 0 || card >= BitmaskOperations.NUMBER_OF_CARDS){
+                throw new IllegalArgumentException("Not a card number: " + card);
+            }
+            if((seen & (1L << card)) != 0){
+                throw new IllegalArgumentException("Card number " + card + " is dealt more than once");
+            }
+            return seen | (1L << card);
+        }
+    }
+
+    // Counts of the showdowns seen by one worker
+    static class Tally {
+
+        long trials;
+        final long[] wins;
+        final long[] ties;
+        final double[] shares;
+        final double[] squaredShares;
+        private final int[] strengths;
+
+        Tally(int players){
+            this.wins = new long[players];
+            this.ties = new long[players];
+            this.shares = new double[players];
+            this.squaredShares = new double[players];
+            this.strengths = new int[players];
+        }
+
+        // Ranks every player against a complete board and splits the pot
+        void showdown(Spot spot, int boardRankKey, long boardSuitKey){
+            int best = 0;
+            int winners = 0;
+            for(int p = 0; p < this.strengths.length; p++){
+                int s = SevenCardEvaluator.evaluateKeys(
+                        boardRankKey + spot.holeRankKeys[p], boardSuitKey + spot.holeSuitKeys[p], 7);
+                this.strengths[p] = s;
+                if(s > best){
+                    best = s;
+                    winners = 1;
+                } else if(s == best){
+                    winners++;
+                }
+            }
+
+            double share = 1.0 / winners;
+            for(int p = 0; p < this.strengths.length; p++){
+                if(this.strengths[p] == best){
+                    if(winners == 1) this.wins[p]++;
+                    else this.ties[p]++;
+                    this.shares[p] += share;
+                    this.squaredShares[p] += share * share;
+                }
+            }
+            this.trials++;
+        }
+
+        void add(Tally other){
+            this.trials += other.trials;
+            for(int p = 0; p < this.wins.length; p++){
+                this.wins[p] += other.wins[p];
+                this.ties[p] += other.ties[p];
+                this.shares[p] += other.shares[p];
+                this.squaredShares[p] += other.squaredShares[p];
+            }
+        }
+
+        void clear(){
+            this.trials = 0;
+            for(int p = 0; p < this.wins.length; p++){
+                this.wins[p] = 0;
+                this.ties[p] = 0;
+                this.shares[p] = 0;
+                this.squaredShares[p] = 0;
+            }
+        }
+
+        EquityResult toResult(long elapsedNanos, boolean exact){
+            return new EquityResult(this.trials, this.wins.clone(), this.ties.clone(),
+                    this.shares.clone(), this.squaredShares.clone(), elapsedNanos, exact);
+        }
+    }
+
+    // The totals of all the workers, which also decides when to stop sampling
+    private static final class PooledTally extends Tally {
+
+        private final double targetStandardError;
+        private final long start;
+        private final long budgetNanos;
+        private boolean done;
+
+        PooledTally(int players, double targetStandardError, long start, long budgetNanos){
+            super(players);
+            this.targetStandardError = targetStandardError;
+            this.start = start;
+            this.budgetNanos = budgetNanos;
+        }
+
+        // Adds and clears a worker's batch, returning false when sampling should stop
+        synchronized boolean merge(Tally batch){
+            if(this.done){
+                return false;
+            }
+            this.add(batch);
+            batch.clear();
+
+            if(System.nanoTime() - this.start >= this.budgetNanos
+                    || (this.targetStandardError > 0 && this.trials >= MIN_TRIALS
+                        && this.toResult(0, false).maxStandardError() <= this.targetStandardError)){
+                this.done = true;
+            }
+            return ! this.done;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.cpbonnell.cards.PokerHands;
+
+/**
+ * The all-in equity of each player in a hold'em spot.
+ *
+ * <p>
+ *     A player's equity is the share of the pot they can expect to win: a
+ *     runout they win outright counts as 1, a runout they split between k
+ *     players counts as 1/k, and the equity is the average over runouts. For
+ *     an estimate made by sampling runouts, the standard error of each
+ *     equity is also given; for an exact result it is zero.
+ * </p>
+ */
+public final class EquityResult {
+
+    private final long trials;
+    private final long[] wins;
+    private final long[] ties;
+    private final double[] shares;
+    private final double[] squaredShares;
+    private final long elapsedNanos;
+    private final boolean exact;
+
+    EquityResult(long trials, long[] wins, long[] ties, double[] shares, double[] squaredShares,
+                 long elapsedNanos, boolean exact){
+        this.trials = trials;
+        this.wins = wins;
+        this.ties = ties;
+        this.shares = shares;
+        this.squaredShares = squaredShares;
+        this.elapsedNanos = elapsedNanos;
+        this.exact = exact;
+    }
+
+    public int players(){
+        return this.wins.length;
+    }
+
+    /**
+     * The number of runouts that were evaluated.
+     * @return The number of trials, or of runouts enumerated for an exact result.
+     */
+    public long trials(){
+        return this.trials;
+    }
+
+    public boolean isExact(){
+        return this.exact;
+    }
+
+    /**
+     * The share of the pot a player can expect to win.
+     * @param player The index of the player's hole cards.
+     * @return The player's equity, from 0 to 1.
+     */
+    public double equity(int player){
+        return this.trials == 0 ? 0 : this.shares[player] / this.trials;
+    }
+
+    /**
+     * The standard error of a player's equity.
+     * @param player The index of the player's hole cards.
+     * @return The standard error, or zero for an exact result.
+     */
+    public double standardError(int player){
+        if(this.exact || this.trials < 2){
+            return 0;
+        }
+        double mean = this.equity(player);
+        double variance = Math.max(0, this.squaredShares[player] / this.trials - mean * mean);
+        return Math.sqrt(variance / (this.trials - 1));
+    }
+
+    /**
+     * The largest standard error of any player's equity.
+     * @return The largest standard error.
+     */
+    public double maxStandardError(){
+        double max = 0;
+        for(int p = 0; p < this.players(); p++){
+            max = Math.max(max, this.standardError(p));
+        }
+        return max;
+    }
+
+    public double winProbability(int player){
+        return this.trials == 0 ? 0 : (double) this.wins[player] / this.trials;
+    }
+
+    public double tieProbability(int player){
+        return this.trials == 0 ? 0 : (double) this.ties[player] / this.trials;
+    }
+
+    public long elapsedNanos(){
+        return this.elapsedNanos;
+    }
+
+    public double trialsPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : this.trials * 1e9 / this.elapsedNanos;
+    }
+}
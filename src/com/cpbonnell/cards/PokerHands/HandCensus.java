@@ -0,0 +1,103 @@
+package com.cpbonnell.cards.PokerHands;
+
+import java.util.Arrays;
+
+/**
+ * The result of enumerating every five card hand that can be dealt from a deck.
+ *
+ * <p>
+ *     A census counts the hands of each hand class, and the hands of each
+ *     distinct strength (see BitmaskOperations.evaluateFive). Hands of equal
+ *     strength tie with each other, so the distinct strengths are the
+ *     equivalence classes of the deck: 7462 of them for a standard French
+ *     deck. Counts are of combinations of physical cards, so in a deck with
+ *     duplicate cards two hands made of different copies of the same cards
+ *     are counted separately.
+ * </p>
+ */
+public final class HandCensus {
+
+    private final long totalHands;
+    private final long[] classCounts = new long[PokerHandClass.values().length];
+    private final int[] classStrengths = new int[PokerHandClass.values().length];
+
+    // The distinct strengths in increasing order, and the number of hands of each
+    private final int[] strengths;
+    private final long[] strengthCounts;
+
+    HandCensus(int[] strengths, long[] strengthCounts){
+        this.strengths = strengths;
+        this.strengthCounts = strengthCounts;
+
+        long total = 0;
+        for(int i = 0; i < strengths.length; i++){
+            int c = PokerHandClass.fromStrength(strengths[i]).ordinal();
+            this.classCounts[c] += strengthCounts[i];
+            this.classStrengths[c]++;
+            total += strengthCounts[i];
+        }
+        this.totalHands = total;
+    }
+
+    /**
+     * The number of distinct five card hands in the deck.
+     * @return The number of combinations of five cards.
+     */
+    public long totalHands(){
+        return this.totalHands;
+    }
+
+    /**
+     * The number of hands of a hand class.
+     * @param hclass The hand class to count.
+     * @return The number of five card hands of that class.
+     */
+    public long count(PokerHandClass hclass){
+        return this.classCounts[hclass.ordinal()];
+    }
+
+    /**
+     * The probability of being dealt a hand of a hand class.
+     * @param hclass The hand class.
+     * @return The fraction of all five card hands that are of that class.
+     */
+    public double probability(PokerHandClass hclass){
+        return this.totalHands == 0 ? 0 : (double) this.count(hclass) / this.totalHands;
+    }
+
+    /**
+     * The number of hands that have exactly the given strength.
+     * @param strength A strength as returned by BitmaskOperations.evaluateFive.
+     * @return The number of hands of that strength, zero if there are none.
+     */
+    public long count(int strength){
+        int i = Arrays.binarySearch(this.strengths, strength);
+        return i < 0 ? 0 : this.strengthCounts[i];
+    }
+
+    /**
+     * The number of equivalence classes, hands that beat or lose to each other
+     * and tie with nothing else.
+     * @return The number of distinct hand strengths.
+     */
+    public int equivalenceClasses(){
+        return this.strengths.length;
+    }
+
+    /**
+     * The number of equivalence classes within a hand class.
+     * @param hclass The hand class.
+     * @return The number of distinct hand strengths of that class.
+     */
+    public int equivalenceClasses(PokerHandClass hclass){
+        return this.classStrengths[hclass.ordinal()];
+    }
+
+    /**
+     * The distinct strengths of the hands in the deck.
+     * @return A new array of the strengths, weakest first.
+     */
+    public int[] strengths(){
+        return this.strengths.clone();
+    }
+}
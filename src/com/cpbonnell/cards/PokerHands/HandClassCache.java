@@ -0,0 +1,508 @@
+package com.cpbonnell.cards.PokerHands;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bounded, thread safe cache of hand strengths.
+ *
+ * <p>
+ *     Hands of five to seven cards are keyed by a canonical code that only
+ *     depends on what decides their strength: the multiset of their ranks,
+ *     or the ranks of their flush suit if they hold a flush. The code does
+ *     not change when the suits of a hand are relabelled, so all the suit
+ *     isomorphic variants of a hand share one entry. Strengths are those of
+ *     the SevenCardEvaluator, and PokerHandClass.fromStrength recovers the
+ *     class. Like the SevenCardEvaluator, the cache only takes hands of
+ *     distinct cards, and refuses a hand that repeats a card, as one dealt
+ *     from a Pinochle deck or a shoe can.
+ * </p>
+ * <p>
+ *     The cache is split into up to 16 segments, each guarded by its own
+ *     lock, and a strength is computed outside the lock when it is missing.
+ *     Segments hold their entries in primitive arrays, so a lookup allocates
+ *     nothing. Two eviction policies are offered. LRU evicts the least
+ *     recently used entry. TINY_LFU puts new entries in a small LRU window
+ *     in front of a main LRU region, and an entry leaving the window only
+ *     replaces the main region's least recently used entry if a TinyLFU
+ *     frequency sketch has seen it more often, which keeps one-off hands
+ *     from flushing out the frequent ones.
+ * </p>
+ * <p>
+ *     A cache can be installed behind PokerHandClass.classifyHand with
+ *     PokerHandClass.setClassificationCache. It is only worth doing where
+ *     the same hands recur and lookups are cheaper than evaluation; the
+ *     SevenCardEvaluator itself is a couple of table reads, so measure first.
+ * </p>
+ */
+public class HandClassCache {
+
+    /**
+     * The policy used to choose which entry to evict from a full cache.
+     */
+    public enum Eviction {
+        LRU,
+        TINY_LFU
+    }
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final Eviction eviction;
+
+    /**
+     * Creates a cache with TinyLFU eviction.
+     * @param capacity The number of entries the cache can hold.
+     */
+    public HandClassCache(int capacity){
+        this(capacity, Eviction.TINY_LFU);
+    }
+
+    /**
+     * Creates a cache.
+     * @param capacity The number of entries the cache can hold. It is
+     *                 rounded up to a multiple of the number of segments.
+     * @param eviction The eviction policy.
+     */
+    public HandClassCache(int capacity, Eviction eviction){
+        if(capacity < 1){
+            throw new IllegalArgumentException("The capacity must be positive, not " + capacity);
+        }
+        if(eviction == null){
+            throw new IllegalArgumentException("An eviction policy is required");
+        }
+
+        int n = 1;
+        while(n < MAX_SEGMENTS && (long) n * 2 * MIN_SEGMENT_CAPACITY <= capacity){
+            n <<= 1;
+        }
+        int perSegment = (capacity + n - 1) / n;
+
+        this.segments = new Segment[n];
+        for(int i = 0; i < n; i++){
+            this.segments[i] = new Segment(perSegment, eviction == Eviction.TINY_LFU);
+        }
+        this.segmentMask = n - 1;
+        this.eviction = eviction;
+    }
+
+
+    //==================== Lookups ====================
+
+    /**
+     * Finds the strength of a hand of card numbers, computing it if it is not cached.
+     * @param cards An array of card numbers.
+     * @param offset The index of the first card of the hand.
+     * @param length The number of cards in the hand, from 5 to 7.
+     * @return The strength of the best five card hand.
+     * @throws IllegalArgumentException If the hand repeats a card.
+     */
+    public int strength(int[] cards, int offset, int length){
+        checkLength(length);
+        int rankKey = 0;
+        long suitKey = 0;
+        long seen = 0;
+        for(int i = offset; i < offset + length; i++){
+            rankKey += SevenCardEvaluator.rankKey(cards[i]);
+            suitKey += SevenCardEvaluator.suitKey(cards[i]);
+            seen = see(seen, cards[i]);
+        }
+        return this.strength(rankKey, suitKey, length);
+    }
+
+    /**
+     * Finds the strength of a hand, computing it if it is not cached.
+     * @param cards The cards of the hand, from 5 to 7 of them.
+     * @return The strength of the best five card hand.
+     * @throws IllegalArgumentException If the hand repeats a card.
+     */
+    public int strength(List<IPlayingCard> cards){
+        int length = cards.size();
+        checkLength(length);
+        int rankKey = 0;
+        long suitKey = 0;
+        long seen = 0;
+        for(int i = 0; i < length; i++){
+            int c = BitmaskOperations.cardNumber(cards.get(i));
+            rankKey += SevenCardEvaluator.rankKey(c);
+            suitKey += SevenCardEvaluator.suitKey(c);
+            seen = see(seen, c);
+        }
+        return this.strength(rankKey, suitKey, length);
+    }
+
+    /**
+     * Finds the class of a hand, computing it if it is not cached.
+     * @param cards The cards of the hand, from 5 to 7 of them.
+     * @return The class of the best five card hand.
+     * @throws IllegalArgumentException If the hand repeats a card.
+     */
+    public PokerHandClass classify(List<IPlayingCard> cards){
+        return PokerHandClass.fromStrength(this.strength(cards));
+    }
+
+    // Finds the strength of five card numbers already known to be distinct,
+    // for PokerHandClass.classifyHand
+    int strengthOfDistinct(int n1, int n2, int n3, int n4, int n5){
+        int rankKey = SevenCardEvaluator.rankKey(n1) + SevenCardEvaluator.rankKey(n2) + SevenCardEvaluator.rankKey(n3)
+                + SevenCardEvaluator.rankKey(n4) + SevenCardEvaluator.rankKey(n5);
+        long suitKey = SevenCardEvaluator.suitKey(n1) + SevenCardEvaluator.suitKey(n2) + SevenCardEvaluator.suitKey(n3)
+                + SevenCardEvaluator.suitKey(n4) + SevenCardEvaluator.suitKey(n5);
+        return this.strength(rankKey, suitKey, 5);
+    }
+
+    /**
+     * Removes every entry. The statistics are kept.
+     */
+    public void clear(){
+        for(Segment s : this.segments){
+            synchronized(s){
+                s.clear();
+            }
+        }
+    }
+
+
+    //==================== Statistics ====================
+
+    public Eviction eviction(){
+        return this.eviction;
+    }
+
+    public int capacity(){
+        return this.segments.length * this.segments[0].capacity;
+    }
+
+    public int size(){
+        int n = 0;
+        for(Segment s : this.segments){
+            synchronized(s){
+                n += s.size;
+            }
+        }
+        return n;
+    }
+
+    public long hitCount(){
+        long n = 0;
+        for(Segment s : this.segments){
+            synchronized(s){
+                n += s.hits;
+            }
+        }
+        return n;
+    }
+
+    public long missCount(){
+        long n = 0;
+        for(Segment s : this.segments){
+            synchronized(s){
+                n += s.misses;
+            }
+        }
+        return n;
+    }
+
+    public long evictionCount(){
+        long n = 0;
+        for(Segment s : this.segments){
+            synchronized(s){
+                n += s.evictions;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * The fraction of lookups that found their hand in the cache.
+     * @return The hit rate, or 0 if there have been no lookups.
+     */
+    public double hitRate(){
+        long hits = this.hitCount();
+        long lookups = hits + this.missCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("HandClassCache[%s, %d/%d entries, hit rate %.3f]",
+                this.eviction, this.size(), this.capacity(), this.hitRate());
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    private int strength(int rankKey, long suitKey, int length){
+        long key = SevenCardEvaluator.strengthKey(rankKey, suitKey);
+        long hash = mix(key);
+        Segment s = this.segments[(int) (hash >>> 32) & this.segmentMask];
+
+        synchronized(s){
+            int cached = s.get(key, hash);
+            if(cached != 0) return cached;
+        }
+
+        // Evaluate outside the lock; a racing thread computes the same value
+        int strength = SevenCardEvaluator.evaluateKeys(rankKey, suitKey, length);
+        synchronized(s){
+            s.put(key, hash, strength);
+        }
+        return strength;
+    }
+
+    private static void checkLength(int length){
+        if(length < 5 || length > 7){
+            throw new IllegalArgumentException("A hand must hold from 5 to 7 cards, not " + length);
+        }
+    }
+
+    // Adds a card number, already known to be in range, to the set of those seen in a hand
+    private static long see(long seen, int card){
+        if((seen & (1L << card)) != 0){
+            throw new IllegalArgumentException("Card number " + card
+                    + " is repeated, and the cache only takes hands of distinct cards");
+        }
+        return seen | (1L << card);
+    }
+
+    // The finalizer of MurmurHash3, so that both halves of the hash are well mixed
+    private static long mix(long key){
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+
+    //==================== Segments ====================
+
+    // One lock's worth of the cache. Entries live in parallel arrays indexed
+    // by entry number, and are found through an open addressing table of
+    // entry numbers plus one, so that zero marks an empty slot. The window
+    // and main regions are doubly linked lists threaded through the prev and
+    // next arrays, most recently used first, with a sentinel entry at the
+    // head of each. A segment has one spare entry, so that a new entry can
+    // be linked in before the admission decision evicts one.
+    private static final class Segment {
+
+        private static final long[] SEEDS = {
+                0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+        };
+
+        final int capacity;
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private final int window;
+        private final int main;
+
+        private final long[] keys;
+        private final int[] strengths;
+        private final boolean[] inWindow;
+        private final int[] prev;
+        private final int[] next;
+        private final int[] table;
+        private final int[] free;
+        private int freeCount;
+
+        // A count-min sketch of 4 bit counters, 16 to a long, or null for LRU
+        private final long[] sketch;
+        private final int sampleSize;
+        private int additions;
+
+        int size;
+        private int windowSize;
+        private int mainSize;
+        long hits;
+        long misses;
+        long evictions;
+
+        Segment(int capacity, boolean tinyLfu){
+            this.capacity = capacity;
+            this.windowCapacity = tinyLfu && capacity > 1 ? Math.max(1, capacity / 100) : 0;
+            this.mainCapacity = capacity - this.windowCapacity;
+
+            int entries = capacity + 1;
+            this.window = entries;
+            this.main = entries + 1;
+            this.keys = new long[entries];
+            this.strengths = new int[entries];
+            this.inWindow = new boolean[entries];
+            this.prev = new int[entries + 2];
+            this.next = new int[entries + 2];
+            this.table = new int[Integer.highestOneBit(entries) << 2];
+            this.free = new int[entries];
+
+            if(this.windowCapacity > 0){
+                this.sketch = new long[Math.max(4, Integer.highestOneBit(capacity) >>> 2)];
+                this.sampleSize = 10 * capacity;
+            } else {
+                this.sketch = null;
+                this.sampleSize = 0;
+            }
+            this.clear();
+        }
+
+        void clear(){
+            Arrays.fill(this.table, 0);
+            for(int i = 0; i < this.free.length; i++){
+                this.free[i] = this.free.length - 1 - i;
+            }
+            this.freeCount = this.free.length;
+            this.prev[this.window] = this.next[this.window] = this.window;
+            this.prev[this.main] = this.next[this.main] = this.main;
+            this.size = this.windowSize = this.mainSize = 0;
+            if(this.sketch != null){
+                Arrays.fill(this.sketch, 0L);
+                this.additions = 0;
+            }
+        }
+
+        // The cached strength of a key, or 0 if it is not cached
+        int get(long key, long hash){
+            if(this.sketch != null) this.increment(hash);
+
+            int e = this.find(key, hash);
+            if(e < 0){
+                this.misses++;
+                return 0;
+            }
+            this.hits++;
+            this.unlink(e);
+            this.linkFirst(this.inWindow[e] ? this.window : this.main, e);
+            return this.strengths[e];
+        }
+
+        void put(long key, long hash, int strength){
+            if(this.find(key, hash) >= 0) return;
+
+            int e = this.free[--this.freeCount];
+            this.keys[e] = key;
+            this.strengths[e] = strength;
+            int m = this.table.length - 1;
+            int slot = (int) hash & m;
+            while(this.table[slot] != 0) slot = (slot + 1) & m;
+            this.table[slot] = e + 1;
+            this.size++;
+
+            if(this.windowCapacity == 0){
+                this.inWindow[e] = false;
+                this.linkFirst(this.main, e);
+                this.mainSize++;
+                if(this.mainSize > this.capacity){
+                    this.evict(this.prev[this.main]);
+                }
+                return;
+            }
+
+            this.inWindow[e] = true;
+            this.linkFirst(this.window, e);
+            if(++this.windowSize <= this.windowCapacity) return;
+
+            // The window is over capacity, so its oldest entry either moves to
+            // the main region or is evicted
+            int candidate = this.prev[this.window];
+            this.unlink(candidate);
+            this.windowSize--;
+            this.inWindow[candidate] = false;
+            if(this.mainSize < this.mainCapacity){
+                this.linkFirst(this.main, candidate);
+                this.mainSize++;
+                return;
+            }
+            int victim = this.prev[this.main];
+            if(this.frequency(this.keys[candidate]) > this.frequency(this.keys[victim])){
+                this.evict(victim);
+                this.linkFirst(this.main, candidate);
+                this.mainSize++;
+            } else {
+                this.evict(candidate);
+            }
+        }
+
+        private int find(long key, long hash){
+            int m = this.table.length - 1;
+            for(int slot = (int) hash & m; ; slot = (slot + 1) & m){
+                int t = this.table[slot];
+                if(t == 0) return -1;
+                if(this.keys[t - 1] == key) return t - 1;
+            }
+        }
+
+        // Removes an entry, which may or may not still be linked into a region
+        private void evict(int e){
+            if(this.next[e] != e){
+                this.unlink(e);
+                if(this.inWindow[e]) this.windowSize--;
+                else this.mainSize--;
+            }
+            this.size--;
+            this.evictions++;
+            this.free[this.freeCount++] = e;
+
+            // Delete from the table, shifting back the entries that probed past it
+            int m = this.table.length - 1;
+            int slot = (int) mix(this.keys[e]) & m;
+            while(this.table[slot] != e + 1) slot = (slot + 1) & m;
+            for(int j = (slot + 1) & m; this.table[j] != 0; j = (j + 1) & m){
+                int home = (int) mix(this.keys[this.table[j] - 1]) & m;
+                if(((j - home) & m) >= ((j - slot) & m)){
+                    this.table[slot] = this.table[j];
+                    slot = j;
+                }
+            }
+            this.table[slot] = 0;
+        }
+
+        private void linkFirst(int head, int e){
+            int first = this.next[head];
+            this.prev[e] = head;
+            this.next[e] = first;
+            this.prev[first] = e;
+            this.next[head] = e;
+        }
+
+        // Unlinked entries point to themselves
+        private void unlink(int e){
+            this.next[this.prev[e]] = this.next[e];
+            this.prev[this.next[e]] = this.prev[e];
+            this.prev[e] = this.next[e] = e;
+        }
+
+        private void increment(long hash){
+            int counters = this.sketch.length * 16;
+            for(long seed : SEEDS){
+                int i = (int) ((hash * seed) >>> 32) & (counters - 1);
+                int shift = (i & 15) << 2;
+                if(((this.sketch[i >>> 4] >>> shift) & 15) < 15){
+                    this.sketch[i >>> 4] += 1L << shift;
+                }
+            }
+
+            // Halve every counter periodically, so that old popularity fades
+            if(++this.additions == this.sampleSize){
+                for(int i = 0; i < this.sketch.length; i++){
+                    this.sketch[i] = (this.sketch[i] >>> 1) & 0x7777777777777777L;
+                }
+                this.additions /= 2;
+            }
+        }
+
+        private int frequency(long key){
+            long hash = mix(key);
+            int counters = this.sketch.length * 16;
+            int min = 15;
+            for(long seed : SEEDS){
+                int i = (int) ((hash * seed) >>> 32) & (counters - 1);
+                min = Math.min(min, (int) (this.sketch[i >>> 4] >>> ((i & 15) << 2)) & 15);
+            }
+            return min;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.cpbonnell.cards.PokerHands;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Exhaustive, parallel enumeration of the five card hands of a deck.
+ *
+ * <p>
+ *     Every combination of five cards from the given list is ranked with
+ *     BitmaskOperations.evaluateFive, and the results are collected into a
+ *     HandCensus. Any list of cards may be used: a standard French deck, a
+ *     Pinochle deck with its duplicate cards, or a deck stripped of some
+ *     ranks or suits. The census of a custom deck gives the class
+ *     probabilities needed to build payout tables for it.
+ * </p>
+ * <p>
+ *     The combinations are split by their first card, so that the hands
+ *     starting with each card form one task of a fork-join computation.
+ *     The tasks are of very different sizes, but work stealing keeps every
+ *     core busy. Each task counts strengths in its own primitive hash table,
+ *     and the tables are merged as the tasks are joined, so no hand
+ *     allocates anything or touches shared state.
+ * </p>
+ */
+public abstract class HandEnumerator {
+
+    // Make non-instantiable
+    private HandEnumerator() {
+
+    }
+
+    /**
+     * Enumerates the hands of a deck using the common fork-join pool.
+     * @param cards The cards of the deck. Duplicates are allowed.
+     * @return The census of all five card hands of the deck.
+     */
+    public static HandCensus enumerate(List<IPlayingCard> cards){
+        return enumerate(cards, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Enumerates the hands of a deck.
+     * @param cards The cards of the deck. Duplicates are allowed.
+     * @param pool The pool to run the enumeration in. A pool with a
+     *             parallelism of one enumerates on a single core.
+     * @return The census of all five card hands of the deck.
+     */
+    public static HandCensus enumerate(List<IPlayingCard> cards, ForkJoinPool pool){
+        int[] masks = new int[cards.size()];
+        for(int i = 0; i < masks.length; i++){
+            IPlayingCard c = cards.get(i);
+            if(c.rank() == null || c.suit() == null){
+                throw new IllegalArgumentException("A deck can not contain blank cards");
+            }
+            masks[i] = BitmaskOperations.cardMask(c);
+        }
+
+        if(masks.length < 5){
+            return new HandCensus(new int[0], new long[0]);
+        }
+        return pool.invoke(new FirstCardTask(masks, 0, masks.length - 4)).toCensus();
+    }
+
+
+    //==================== Fork-Join Tasks ====================
+
+    // Counts the hands whose first card is in the range [from, to)
+    @SuppressWarnings("serial") // never serialized
+    private static final class FirstCardTask extends RecursiveTask<StrengthCounts> {
+
+        private final int[] masks;
+        private final int from;
+        private final int to;
+
+        FirstCardTask(int[] masks, int from, int to){
+            this.masks = masks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected StrengthCounts compute(){
+            if(this.to - this.from == 1){
+                return countHands(this.masks, this.from);
+            }
+
+            int mid = (this.from + this.to) >>> 1;
+            FirstCardTask low = new FirstCardTask(this.masks, this.from, mid);
+            FirstCardTask high = new FirstCardTask(this.masks, mid, this.to);
+            high.fork();
+            StrengthCounts counts = low.compute();
+            counts.addAll(high.join());
+            return counts;
+        }
+    }
+
+    private static StrengthCounts countHands(int[] m, int a){
+        StrengthCounts counts = new StrengthCounts();
+        int n = m.length;
+        int c1 = m[a];
+        for(int b = a + 1; b < n - 3; b++){
+            int c2 = m[b];
+            for(int c = b + 1; c < n - 2; c++){
+                int c3 = m[c];
+                for(int d = c + 1; d < n - 1; d++){
+                    int c4 = m[d];
+                    for(int e = d + 1; e < n; e++){
+                        counts.add(BitmaskOperations.evaluateFive(c1, c2, c3, c4, m[e]), 1);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+
+    //==================== Strength Counting ====================
+
+    // An open addressing hash table from strength to count. There are fewer
+    // than 7,500 distinct five card strengths even with duplicate cards, so a
+    // fixed table of 16K entries never becomes more than half full. A strength
+    // is never zero, so zero marks an empty entry.
+    private static final class StrengthCounts {
+
+        private static final int CAPACITY = 1 << 14;
+
+        private final int[] keys = new int[CAPACITY];
+        private final long[] counts = new long[CAPACITY];
+        private int size;
+
+        void add(int strength, long count){
+            int i = (strength * 0x9E3779B9) >>> 18;
+            while(this.keys[i] != strength){
+                if(this.keys[i] == 0){
+                    this.keys[i] = strength;
+                    this.size++;
+                    break;
+                }
+                i = (i + 1) & (CAPACITY - 1);
+            }
+            this.counts[i] += count;
+        }
+
+        void addAll(StrengthCounts other){
+            for(int i = 0; i < CAPACITY; i++){
+                if(other.keys[i] != 0){
+                    this.add(other.keys[i], other.counts[i]);
+                }
+            }
+        }
+
+        HandCensus toCensus(){
+            int[] strengths = new int[this.size];
+            int n = 0;
+            for(int k : this.keys){
+                if(k != 0) strengths[n++] = k;
+            }
+            Arrays.sort(strengths);
+
+            long[] strengthCounts = new long[n];
+            for(int i = 0; i < n; i++){
+                int j = (strengths[i] * 0x9E3779B9) >>> 18;
+                while(this.keys[j] != strengths[i]){
+                    j = (j + 1) & (CAPACITY - 1);
+                }
+                strengthCounts[i] = this.counts[j];
+            }
+            return new HandCensus(strengths, strengthCounts);
+        }
+    }
+}
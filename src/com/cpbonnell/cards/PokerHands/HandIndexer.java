@@ -0,0 +1,653 @@
+package com.cpbonnell.cards.PokerHands;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps hands to dense indices of their suit isomorphism classes, and back.
+ *
+ * <p>
+ *     Two hands that differ only by a relabelling of the suits evaluate
+ *     identically in every poker game, so they can share an index. A hand is
+ *     dealt in rounds, such as the two hole cards and the three card flop of
+ *     Hold'em, and the order of the cards within a round does not matter but
+ *     the round each card belongs to does. An indexer for rounds {2, 3}
+ *     numbers the 1,286,792 distinct hole card and flop combinations from 0,
+ *     and an indexer for the single round {5} numbers the 134,459 distinct
+ *     five card hands. Each round has its own index space, so a hand can also
+ *     be indexed one round at a time, as its cards are dealt.
+ * </p>
+ * <p>
+ *     This is the algorithm of Waugh, "A Fast and Optimal Hand Isomorphism
+ *     Algorithm". The cards of each suit are indexed as a set of ranks per
+ *     round, the suits are put into a canonical order by their card counts,
+ *     and suits with the same counts are combined as a multiset, so the
+ *     indices are dense and no search is needed. Indexing reuses the arrays
+ *     of a State object, and unindexing writes into a caller's array, so
+ *     neither allocates. The tables of an indexer are built by the
+ *     constructor and are read only afterwards, so an indexer can be shared
+ *     between threads, each with its own State.
+ * </p>
+ */
+public class HandIndexer {
+
+    private static final int SUITS = 4;
+    private static final int RANKS = 13;
+    private static final int MAX_ROUNDS = 7;
+    private static final int ROUND_SHIFT = 4;
+    private static final int ROUND_MASK = 15;
+    private static final int MAX_GROUP_INDEX = 1 << 20;
+
+    private final int rounds;
+    private final int[] cardsPerRound;
+    private final int[] roundStart;
+    private final long[] roundSize;
+
+    // Per round: the canonical suit configurations in ascending order, each
+    // as one int per suit holding a 4 bit card count per round, the first
+    // round highest. For each, the number of rank sets of each suit, the
+    // suits that equal their predecessor, and the index of its first hand.
+    private final int[][][] configurations;
+    private final long[][][] suitSizes;
+    private final int[][] configurationEquals;
+    private final long[][] configurationOffsets;
+
+    // Per round: the configuration and the suit permutation that sorts it,
+    // for every combination of card counts per suit
+    private final int[][] permutationConfigurations;
+    private final int[][] permutationPis;
+
+    // Binomial coefficients C(n, k) for k up to SUITS, as groups[n * (SUITS + 1) + k]
+    private final long[] groups;
+
+    /**
+     * Creates an indexer.
+     * @param cardsPerRound The number of cards dealt in each round, in order.
+     *                      There may be up to seven rounds, each of 1 to 13
+     *                      cards, and no more than 52 cards in all.
+     */
+    public HandIndexer(int... cardsPerRound){
+        if(cardsPerRound.length < 1 || cardsPerRound.length > MAX_ROUNDS){
+            throw new IllegalArgumentException("An indexer needs from 1 to " + MAX_ROUNDS + " rounds, not "
+                    + cardsPerRound.length);
+        }
+        this.rounds = cardsPerRound.length;
+        this.cardsPerRound = cardsPerRound.clone();
+        this.roundStart = new int[this.rounds];
+        int total = 0;
+        for(int r = 0; r < this.rounds; r++){
+            if(this.cardsPerRound[r] < 1 || this.cardsPerRound[r] > RANKS){
+                throw new IllegalArgumentException("A round must deal from 1 to " + RANKS + " cards, not "
+                        + this.cardsPerRound[r]);
+            }
+            this.roundStart[r] = total;
+            total += this.cardsPerRound[r];
+        }
+        if(total > BitmaskOperations.NUMBER_OF_CARDS){
+            throw new IllegalArgumentException("The rounds deal more than a deck of cards");
+        }
+
+        // Collect the canonical configurations of each round, in ascending order
+        List<List<int[]>> found = new ArrayList<>();
+        for(int r = 0; r < this.rounds; r++) found.add(new ArrayList<>());
+        this.enumerate(0, this.cardsPerRound[0], 0, (1 << SUITS) - 2, new int[SUITS], new int[SUITS], true,
+                (round, configuration) -> found.get(round).add(configuration.clone()));
+
+        this.configurations = new int[this.rounds][][];
+        this.suitSizes = new long[this.rounds][][];
+        this.configurationEquals = new int[this.rounds][];
+        this.configurationOffsets = new long[this.rounds][];
+        this.roundSize = new long[this.rounds];
+
+        long maxSuitSize = 0;
+        for(int r = 0; r < this.rounds; r++){
+            List<int[]> list = found.get(r);
+            list.sort(Arrays::compare);
+            this.configurations[r] = list.toArray(new int[0][]);
+            this.suitSizes[r] = new long[list.size()][SUITS];
+            for(int c = 0; c < list.size(); c++){
+                for(int s = 0; s < SUITS; s++){
+                    long size = this.suitSize(r, this.configurations[r][c][s]);
+                    this.suitSizes[r][c][s] = size;
+                    maxSuitSize = Math.max(maxSuitSize, size);
+                }
+            }
+        }
+        if(maxSuitSize + SUITS > MAX_GROUP_INDEX){
+            throw new IllegalArgumentException("Too many ways to deal one suit over these rounds");
+        }
+
+        int n = (int) maxSuitSize + SUITS;
+        this.groups = new long[n * (SUITS + 1)];
+        this.groups[0] = 1;
+        for(int i = 1; i < n; i++){
+            this.groups[i * (SUITS + 1)] = 1;
+            for(int k = 1; k <= SUITS; k++){
+                this.groups[i * (SUITS + 1) + k] = this.groups[(i - 1) * (SUITS + 1) + k - 1]
+                        + this.groups[(i - 1) * (SUITS + 1) + k];
+            }
+        }
+
+        // Each configuration covers the product, over its groups of equal
+        // suits, of the multisets of that group's size drawn from its rank sets
+        for(int r = 0; r < this.rounds; r++){
+            int count = this.configurations[r].length;
+            this.configurationEquals[r] = new int[count];
+            this.configurationOffsets[r] = new long[count];
+            long offset = 0;
+            for(int c = 0; c < count; c++){
+                int[] configuration = this.configurations[r][c];
+                long hands = 1;
+                int equal = 0;
+                for(int i = 0; i < SUITS; ){
+                    int j = i + 1;
+                    while(j < SUITS && configuration[j] == configuration[i]) j++;
+                    hands *= this.group(this.suitSizes[r][c][i] + j - i - 1, j - i);
+                    for(int k = i + 1; k < j; k++) equal |= 1 << (k - 1);
+                    i = j;
+                }
+                this.configurationEquals[r][c] = equal;
+                this.configurationOffsets[r][c] = offset;
+                offset += hands;
+            }
+            this.roundSize[r] = offset;
+        }
+
+        // Map every combination of card counts per suit to its configuration
+        int[] permutations = new int[this.rounds];
+        this.enumerate(0, this.cardsPerRound[0], 0, 0, new int[SUITS], new int[SUITS], false,
+                (round, counts) -> permutations[round] = Math.max(permutations[round], this.permutationIndex(round, counts) + 1));
+        this.permutationConfigurations = new int[this.rounds][];
+        this.permutationPis = new int[this.rounds][];
+        for(int r = 0; r < this.rounds; r++){
+            this.permutationConfigurations[r] = new int[permutations[r]];
+            this.permutationPis[r] = new int[permutations[r]];
+        }
+        this.enumerate(0, this.cardsPerRound[0], 0, 0, new int[SUITS], new int[SUITS], false,
+                this::tabulatePermutation);
+    }
+
+
+    //==================== Properties ====================
+
+    public int rounds(){
+        return this.rounds;
+    }
+
+    public int cardsPerRound(int round){
+        return this.cardsPerRound[round];
+    }
+
+    /**
+     * The number of cards dealt up to and including a round.
+     * @param round A round number, from 0.
+     * @return The number of cards in a hand indexed through that round.
+     */
+    public int cardsThrough(int round){
+        return this.roundStart[round] + this.cardsPerRound[round];
+    }
+
+    /**
+     * The number of suit isomorphism classes of hands dealt up to a round.
+     * @param round A round number, from 0.
+     * @return The size of the round's index space.
+     */
+    public long size(int round){
+        return this.roundSize[round];
+    }
+
+    public State newState(){
+        return new State();
+    }
+
+
+    //==================== Indexing ====================
+
+    /**
+     * Indexes a whole hand.
+     * @param cards The card numbers of the hand, round by round. The cards
+     *              within each round may be in any order.
+     * @param offset The index of the first card of the hand.
+     * @param state A state to work in. It is reset first.
+     * @return The index of the hand in the last round's index space.
+     * @throws IllegalArgumentException If a card is not a card number or is repeated.
+     */
+    public long index(int[] cards, int offset, State state){
+        state.reset();
+        long index = 0;
+        for(int r = 0; r < this.rounds; r++){
+            index = this.indexNextRound(cards, offset, state);
+        }
+        return index;
+    }
+
+    /**
+     * Indexes a whole hand of cards.
+     * @see #index(int[], int, State)
+     */
+    public long index(List<IPlayingCard> cards, State state){
+        if(cards.size() < this.cardsThrough(this.rounds - 1)){
+            throw new IllegalArgumentException("The hand holds fewer than " + this.cardsThrough(this.rounds - 1)
+                    + " cards");
+        }
+        int[] numbers = state.cards;
+        for(int i = 0; i < this.cardsThrough(this.rounds - 1); i++){
+            numbers[i] = BitmaskOperations.cardNumber(cards.get(i));
+        }
+        return this.index(numbers, 0, state);
+    }
+
+    /**
+     * Indexes the hand through the next round of a state, so that the rounds
+     * of a hand can be indexed one at a time as they are dealt.
+     * @param cards The card numbers of the hand, round by round, through at
+     *              least the next round.
+     * @param offset The index of the first card of the hand, not of the round.
+     * @param state The state of the earlier rounds of the hand, or a reset
+     *              state to index the first round.
+     * @return The index of the hand in the round's index space.
+     * @throws IllegalArgumentException If a card is not a card number or is repeated.
+     */
+    public long indexNextRound(int[] cards, int offset, State state){
+        int round = state.round;
+        if(round >= this.rounds){
+            throw new IllegalArgumentException("Every round of the hand has already been indexed");
+        }
+
+        int[] ranks = state.ranks;
+        int[] shifted = state.shifted;
+        Arrays.fill(ranks, 0);
+        Arrays.fill(shifted, 0);
+        for(int i = offset + this.roundStart[round], end = i + this.cardsPerRound[round]; i < end; i++){
+            int c = cards[i];
+            if(c < 0 || c >= BitmaskOperations.NUMBER_OF_CARDS){
+                throw new IllegalArgumentException("Not a card number: " + c);
+            }
+            int suit = c & 3;
+            int bit = 1 << (c >>> 2);
+            if(((ranks[suit] | state.usedRanks[suit]) & bit) != 0){
+                throw new IllegalArgumentException("The hand holds card " + c + " more than once");
+            }
+            ranks[suit] |= bit;
+            shifted[suit] |= bit >>> Integer.bitCount((bit - 1) & state.usedRanks[suit]);
+        }
+        state.round++;
+
+        for(int s = 0; s < SUITS; s++){
+            int usedSize = Integer.bitCount(state.usedRanks[s]);
+            state.suitIndex[s] += state.suitMultiplier[s] * Tables.RANK_SET_TO_INDEX[shifted[s]];
+            state.suitMultiplier[s] *= Tables.CHOOSE[RANKS - usedSize][Integer.bitCount(ranks[s])];
+            state.usedRanks[s] |= ranks[s];
+        }
+
+        for(int s = 0, remaining = this.cardsPerRound[round]; s < SUITS - 1; s++){
+            int size = Integer.bitCount(ranks[s]);
+            state.permutationIndex += state.permutationMultiplier * size;
+            state.permutationMultiplier *= remaining + 1;
+            remaining -= size;
+        }
+
+        int configuration = this.permutationConfigurations[round][state.permutationIndex];
+        int[] pi = Tables.SUIT_PERMUTATIONS[this.permutationPis[round][state.permutationIndex]];
+        int equal = this.configurationEquals[round][configuration];
+
+        long[] index = state.sortedIndex;
+        long[] multiplier = state.sortedMultiplier;
+        for(int s = 0; s < SUITS; s++){
+            index[s] = state.suitIndex[pi[s]];
+            multiplier[s] = state.suitMultiplier[pi[s]];
+        }
+
+        // Suits with equal configurations are interchangeable, so each such
+        // group is indexed as a sorted multiset of its suit indices
+        long result = this.configurationOffsets[round][configuration];
+        long scale = 1;
+        for(int i = 0; i < SUITS; ){
+            int j = i + 1;
+            while(j < SUITS && (equal & (1 << (j - 1))) != 0) j++;
+
+            long part;
+            long size;
+            if(j - i == 1){
+                part = index[i];
+                size = multiplier[i];
+            } else {
+                Arrays.sort(index, i, j);
+                part = 0;
+                for(int k = i; k < j; k++){
+                    part += this.group(index[k] + k - i, k - i + 1);
+                }
+                size = this.group(multiplier[i] + j - i - 1, j - i);
+            }
+            result += scale * part;
+            scale *= size;
+            i = j;
+        }
+        return result;
+    }
+
+
+    //==================== Unindexing ====================
+
+    /**
+     * Writes out the canonical hand of an index: the representative of its
+     * suit isomorphism class, with the suits assigned in a fixed order.
+     * @param round The round of the index space.
+     * @param index An index in the round's index space.
+     * @param cards Receives the card numbers of the hand through the round,
+     *              round by round.
+     * @param offset The index at which to store the first card.
+     */
+    public void unindex(int round, long index, int[] cards, int offset){
+        if(round < 0 || round >= this.rounds || index < 0 || index >= this.roundSize[round]){
+            throw new IllegalArgumentException("No index " + index + " in round " + round);
+        }
+
+        long[] offsets = this.configurationOffsets[round];
+        int low = 0;
+        int high = offsets.length;
+        int c = 0;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(offsets[mid] <= index){
+                c = mid;
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        index -= offsets[c];
+        int[] configuration = this.configurations[round][c];
+
+        for(int i = 0; i < SUITS; ){
+            int j = i + 1;
+            while(j < SUITS && configuration[j] == configuration[i]) j++;
+
+            long suitSize = this.suitSizes[round][c][i];
+            long groupSize = this.group(suitSize + j - i - 1, j - i);
+            long groupIndex = index % groupSize;
+            index /= groupSize;
+
+            // Peel the members of the multiset off from the largest down
+            for(; i < j - 1; i++){
+                int k = j - i;
+                long lo = 0;
+                long hi = suitSize;
+                long member = 0;
+                while(lo < hi){
+                    long mid = (lo + hi) >>> 1;
+                    if(this.group(mid + k - 1, k) <= groupIndex){
+                        member = mid;
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                groupIndex -= this.group(member + k - 1, k);
+                this.writeSuit(round, configuration, i, member, cards, offset);
+            }
+            this.writeSuit(round, configuration, i, groupIndex, cards, offset);
+            i++;
+        }
+    }
+
+    /**
+     * Writes out the canonical hand of the suit isomorphism class of a hand.
+     * @param cards The card numbers of the hand, round by round.
+     * @param offset The index of the first card of the hand.
+     * @param state A state to work in.
+     * @param canonical Receives the card numbers of the canonical hand.
+     * @param canonicalOffset The index at which to store the first card.
+     * @return The index of the hand.
+     */
+    public long canonicalize(int[] cards, int offset, State state, int[] canonical, int canonicalOffset){
+        long index = this.index(cards, offset, state);
+        this.unindex(this.rounds - 1, index, canonical, canonicalOffset);
+        return index;
+    }
+
+
+    //==================== Index State ====================
+
+    /**
+     * The working state of indexing one hand, round by round.
+     * <p>
+     *     A state is not thread safe; each thread needs its own.
+     * </p>
+     */
+    public static final class State {
+
+        private final long[] suitIndex = new long[SUITS];
+        private final long[] suitMultiplier = new long[SUITS];
+        private final int[] usedRanks = new int[SUITS];
+        private int round;
+        private int permutationIndex;
+        private int permutationMultiplier;
+
+        // Scratch space
+        private final int[] ranks = new int[SUITS];
+        private final int[] shifted = new int[SUITS];
+        private final long[] sortedIndex = new long[SUITS];
+        private final long[] sortedMultiplier = new long[SUITS];
+        private final int[] cards = new int[BitmaskOperations.NUMBER_OF_CARDS];
+
+        private State(){
+            this.reset();
+        }
+
+        /**
+         * Returns the state to before the first round, to index a new hand.
+         */
+        public void reset(){
+            Arrays.fill(this.suitIndex, 0L);
+            Arrays.fill(this.suitMultiplier, 1L);
+            Arrays.fill(this.usedRanks, 0);
+            this.round = 0;
+            this.permutationIndex = 0;
+            this.permutationMultiplier = 1;
+        }
+
+        /**
+         * The number of rounds indexed since the last reset.
+         */
+        public int round(){
+            return this.round;
+        }
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    private long group(long n, int k){
+        return this.groups[(int) n * (SUITS + 1) + k];
+    }
+
+    private int count(int configuration, int round){
+        return configuration >>> (ROUND_SHIFT * (this.rounds - round - 1)) & ROUND_MASK;
+    }
+
+    // The number of ways one suit can be dealt its counts through a round
+    private long suitSize(int round, int configuration){
+        long size = 1;
+        for(int r = 0, remaining = RANKS; r <= round; r++){
+            int n = this.count(configuration, r);
+            size *= Tables.CHOOSE[remaining][n];
+            remaining -= n;
+        }
+        return size;
+    }
+
+    // Writes the cards of suit s of a configuration, decoded from the suit's
+    // index. Suits are written in order, so a suit's cards of each round go
+    // after those of the suits before it.
+    private void writeSuit(int round, int[] configuration, int s, long suitIndex, int[] cards, int offset){
+        int used = 0;
+        int usedCount = 0;
+        for(int r = 0; r <= round; r++){
+            int n = this.count(configuration[s], r);
+            int position = offset + this.roundStart[r];
+            for(int t = 0; t < s; t++) position += this.count(configuration[t], r);
+
+            long roundSize = Tables.CHOOSE[RANKS - usedCount][n];
+            int shiftedRanks = Tables.INDEX_TO_RANK_SET[n][(int) (suitIndex % roundSize)];
+            suitIndex /= roundSize;
+            usedCount += n;
+
+            int rankSet = 0;
+            for(; shiftedRanks != 0; shiftedRanks &= shiftedRanks - 1){
+                int rank = nthUnset(used, Integer.numberOfTrailingZeros(shiftedRanks));
+                rankSet |= 1 << rank;
+                cards[position++] = rank * 4 + s;
+            }
+            used |= rankSet;
+        }
+    }
+
+    // The position of the n-th rank, from 0, that is not in a rank set
+    private static int nthUnset(int used, int n){
+        int free = ~used & ((1 << RANKS) - 1);
+        for(int i = 0; i < n; i++) free &= free - 1;
+        return Integer.numberOfTrailingZeros(free);
+    }
+
+    private interface CountObserver {
+        void observe(int round, int[] counts);
+    }
+
+    // Enumerates the card counts per suit of every round. A count is packed
+    // per suit as in a configuration. If canonical is set, only the counts
+    // in which each suit sorts no higher than the one before it are visited.
+    private void enumerate(int round, int remaining, int suit, int equal, int[] used, int[] counts,
+                           boolean canonical, CountObserver observer){
+        if(suit == SUITS){
+            observer.observe(round, counts);
+            if(round + 1 < this.rounds){
+                this.enumerate(round + 1, this.cardsPerRound[round + 1], 0, equal, used, counts, canonical, observer);
+            }
+            return;
+        }
+
+        int shift = ROUND_SHIFT * (this.rounds - round - 1);
+        int min = suit == SUITS - 1 ? remaining : 0;
+        int max = Math.min(RANKS - used[suit], remaining);
+        int previous = RANKS + 1;
+        boolean wasEqual = canonical && (equal & (1 << suit)) != 0;
+        if(wasEqual){
+            previous = counts[suit - 1] >>> shift & ROUND_MASK;
+            max = Math.min(max, previous);
+        }
+
+        int oldCounts = counts[suit];
+        int oldUsed = used[suit];
+        for(int i = min; i <= max; i++){
+            int newEqual = (equal & ~(1 << suit)) | (wasEqual && i == previous ? 1 << suit : 0);
+            used[suit] = oldUsed + i;
+            counts[suit] = oldCounts | i << shift;
+            this.enumerate(round, remaining - i, suit + 1, newEqual, used, counts, canonical, observer);
+        }
+        counts[suit] = oldCounts;
+        used[suit] = oldUsed;
+    }
+
+    // The index of a combination of card counts per suit, built the same way
+    // as it is during indexing
+    private int permutationIndex(int round, int[] counts){
+        int index = 0;
+        int multiplier = 1;
+        for(int r = 0; r <= round; r++){
+            for(int s = 0, remaining = this.cardsPerRound[r]; s < SUITS - 1; s++){
+                int size = this.count(counts[s], r);
+                index += multiplier * size;
+                multiplier *= remaining + 1;
+                remaining -= size;
+            }
+        }
+        return index;
+    }
+
+    private void tabulatePermutation(int round, int[] counts){
+        int index = this.permutationIndex(round, counts);
+
+        // Sort the suits by their counts, highest first, keeping ties in order
+        int[] pi = {0, 1, 2, 3};
+        for(int i = 1; i < SUITS; i++){
+            int p = pi[i];
+            int j = i;
+            for(; j > 0 && counts[p] > counts[pi[j - 1]]; j--){
+                pi[j] = pi[j - 1];
+            }
+            pi[j] = p;
+        }
+
+        int piIndex = 0;
+        int piMultiplier = 1;
+        int piUsed = 0;
+        for(int i = 0; i < SUITS; i++){
+            int bit = 1 << pi[i];
+            piIndex += (pi[i] - Integer.bitCount((bit - 1) & piUsed)) * piMultiplier;
+            piMultiplier *= SUITS - i;
+            piUsed |= bit;
+        }
+        this.permutationPis[round][index] = piIndex;
+
+        int[] sorted = new int[SUITS];
+        for(int i = 0; i < SUITS; i++) sorted[i] = counts[pi[i]];
+        this.permutationConfigurations[round][index] = Arrays.binarySearch(this.configurations[round], sorted,
+                Arrays::compare);
+    }
+
+
+    //==================== Shared Tables ====================
+
+    // The tables that do not depend on the rounds live in a holder class, so
+    // that they are built once, when the first indexer is created.
+    private static final class Tables {
+
+        static final long[][] CHOOSE = new long[RANKS + 1][RANKS + 1];
+        static final int[] RANK_SET_TO_INDEX = new int[1 << RANKS];
+        static final int[][] INDEX_TO_RANK_SET = new int[RANKS + 1][];
+        static final int[][] SUIT_PERMUTATIONS = new int[24][SUITS];
+
+        static {
+            for(int n = 0; n <= RANKS; n++){
+                CHOOSE[n][0] = 1;
+                for(int k = 1; k <= n; k++){
+                    CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + CHOOSE[n - 1][k];
+                }
+            }
+
+            // Rank sets of each size are numbered by the combinatorial number system
+            for(int n = 0; n <= RANKS; n++){
+                INDEX_TO_RANK_SET[n] = new int[(int) CHOOSE[RANKS][n]];
+            }
+            for(int set = 0; set < 1 << RANKS; set++){
+                int index = 0;
+                int k = 1;
+                for(int bits = set; bits != 0; bits &= bits - 1, k++){
+                    index += CHOOSE[Integer.numberOfTrailingZeros(bits)][k];
+                }
+                RANK_SET_TO_INDEX[set] = index;
+                INDEX_TO_RANK_SET[Integer.bitCount(set)][index] = set;
+            }
+
+            // Permutation p picks, for each position, one of the suits not yet picked
+            for(int p = 0; p < SUIT_PERMUTATIONS.length; p++){
+                int rest = p;
+                int used = 0;
+                for(int i = 0; i < SUITS; i++){
+                    int pick = rest % (SUITS - i);
+                    rest /= SUITS - i;
+                    int free = ~used & ((1 << SUITS) - 1);
+                    for(int k = 0; k < pick; k++) free &= free - 1;
+                    int suit = Integer.numberOfTrailingZeros(free);
+                    SUIT_PERMUTATIONS[p][i] = suit;
+                    used |= 1 << suit;
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.cpbonnell.cards.PokerHands;
 
 import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.Utils.BitmaskOperations;
 
 import java.util.List;
 
 /**
  * Created by christian_bonnell on 12/24/2015.
+ *
+ * <p>
+ *     Each class carries the number of five card hands of that class in a
+ *     standard French deck. The counts can be recomputed for any deck with
+ *     HandEnumerator.enumerate.
+ * </p>
  */
 public enum PokerHandClass {
     HIGH_CARD (1302540), 
     ONE_PAIR (1098240), 
     TWO_PAIR (123552), 
     THREE_KIND (54912), 
-    STRAIGHT (10240),
-    FLUSH (5148), 
+    STRAIGHT (10200),
+    FLUSH (5108), 
     FULL_HOUSE (3744), 
     FOUR_KIND (624), 
     STRAIGHT_FLUSH (40);
@@ -22,6 +29,11 @@ public enum PokerHandClass {
     private double n;
     public static final double N = 2598960;
     
+    private static final PokerHandClass[] BY_ORDINAL = values();
+    
+    // Consulted by classifyHand for five card hands when it is not null
+    private static volatile HandClassCache classificationCache = null;
+    
     PokerHandClass(int n){
         this.n = n;
     }
@@ -47,15 +59,19 @@ public enum PokerHandClass {
         if(npair == 2) return TWO_PAIR;
         if(npair == 0 && ntrip == 1) return THREE_KIND;
         
+        // A deck with repeated cards, such as a shoe, can deal a full house or four of a kind
+        // in one suit. Those are classified by their sets, as BitmaskOperations does, so they
+        // are checked before the flush.
+        if(ntrip == 1 && npair == 1) return FULL_HOUSE;
+        if(nquad == 1) return FOUR_KIND;
+        
         //The work has already been done to see if the hand has is a "straight" or "flush"
         // variety, so we can basically check those for free.
         if(straight && !flush) return STRAIGHT;
         if( flush && !straight) return FLUSH;
         
         
-        // Lastly, look for the less common "full house", "four of a kind", and "straight flush" classes
-        if(ntrip == 1 && npair == 1) return FULL_HOUSE;
-        if(nquad == 1) return FOUR_KIND;
+        // Lastly, look for the less common "straight flush" class
         if(straight && flush) return STRAIGHT_FLUSH;
         
         // Since the hand cannot be classified as any of the other categories, we will treat it as
@@ -64,9 +80,47 @@ public enum PokerHandClass {
     }
     
     
-    // Alternate version of the hand for cases where the metadata has not yet been calculated
+    // Alternate version of the hand for cases where the metadata has not yet been calculated.
+    // Five card hands go straight to the bitmask evaluator, which avoids building the
+    // sorted lists of the metadata object, or to the classification cache if one is set.
+    // The cache only takes hands of distinct cards, so a hand from a Pinochle deck or a
+    // shoe that repeats a card is always evaluated.
     public static PokerHandClass classifyHand(List<IPlayingCard> cards){
+        if(cards.size() == 5){
+            int n1 = BitmaskOperations.cardNumber(cards.get(0));
+            int n2 = BitmaskOperations.cardNumber(cards.get(1));
+            int n3 = BitmaskOperations.cardNumber(cards.get(2));
+            int n4 = BitmaskOperations.cardNumber(cards.get(3));
+            int n5 = BitmaskOperations.cardNumber(cards.get(4));
+            
+            HandClassCache cache = classificationCache;
+            long seen = (1L << n1) | (1L << n2) | (1L << n3) | (1L << n4) | (1L << n5);
+            if(cache != null && Long.bitCount(seen) == 5){
+                return fromStrength(cache.strengthOfDistinct(n1, n2, n3, n4, n5));
+            }
+            return fromStrength(BitmaskOperations.evaluateFiveCards(n1, n2, n3, n4, n5));
+        }
+        
         PokerHandMetadata meta = new PokerHandMetadata(cards);
         return meta.getHandClassification();
     }
+    
+    /**
+     * Installs a cache to be consulted by classifyHand for hands of five
+     * distinct cards. Hands that repeat a card are evaluated without it, so
+     * the classes returned are the same as without a cache.
+     * @param cache The cache to use, or null to evaluate every hand.
+     */
+    public static void setClassificationCache(HandClassCache cache){
+        classificationCache = cache;
+    }
+    
+    public static HandClassCache getClassificationCache(){
+        return classificationCache;
+    }
+    
+    // Recover the hand class from a strength value produced by BitmaskOperations
+    public static PokerHandClass fromStrength(int strength){
+        return BY_ORDINAL[BitmaskOperations.handClassOrdinal(strength)];
+    }
 }
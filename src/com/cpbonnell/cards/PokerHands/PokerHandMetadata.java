@@ -41,17 +41,17 @@ public class PokerHandMetadata implements IPokerHand, Comparable<PokerHandMetada
     
     @Override
     public List<Ranks> getPairs() {
-        return null;
+        return this.pairs;
     }
 
     @Override
     public List<Ranks> getTriples() {
-        return this.pairs;
+        return this.triples;
     }
 
     @Override
     public List<Ranks> getQuads() {
-        return this.triples;
+        return this.quads;
     }
 
     @Override
@@ -61,7 +61,8 @@ public class PokerHandMetadata implements IPokerHand, Comparable<PokerHandMetada
 
     @Override
     public Ranks getHighestCard(int i) {
-        return null;
+        // The sorted list runs from lowest to highest, so count back from the end
+        return this.sortedCards.get(this.sortedCards.size() - Math.max(i, 1)).rank();
     }
 
     @Override
@@ -82,13 +83,13 @@ public class PokerHandMetadata implements IPokerHand, Comparable<PokerHandMetada
     @Override
     public String toChars() {
         
-        String result = "";
+        StringBuilder result = new StringBuilder(2 * this.sortedCards.size());
         
         for(IPlayingCard c : this.sortedCards){
-            result += c.toChars();
+            result.append(c.toChars());
         }
         
-        return result;
+        return result.toString();
     }
 
     @Override
@@ -135,37 +136,53 @@ public class PokerHandMetadata implements IPokerHand, Comparable<PokerHandMetada
             // Check to see if the ranks are sequential, handling the special case where
             // we have two and Ace present
             if(current.rank() == previous.rank().next() || 
-                    (current.rank() == Ranks.ACE && this.sortedCards.get(1).rank() == Ranks.TWO)){
+                    (current.rank() == Ranks.ACE && previous.rank() == Ranks.FIVE
+                            && this.sortedCards.get(0).rank() == Ranks.TWO)){
                 // Do nothing
             } else {
                 this.runOfFive = false;
             }
             
-            // Check for sets of cards with the same suit
+            // Check for sets of cards with the same rank. A set is recorded once the
+            // run of equal ranks has ended.
             if(current.rank() == previous.rank()){
                 repeatedRank++;
-            } 
-            
-            if(current.rank() != previous.rank() || i == 5){
-                
-                switch(repeatedRank){
-                    case 1: break;
-                    case 2: this.pairs.add(current.rank());
-                        break;
-                    case 3: this.triples.add(current.rank());
-                        break;
-                    case 4: this.quads.add(current.rank());
-                        break;
-                }
-                
+            } else {
+                this.addSet(previous.rank(), repeatedRank);
                 repeatedRank = 1;
             }
             
             
         }
         
+        // The last run of equal ranks ends with the hand itself
+        this.addSet(this.sortedCards.get(this.sortedCards.size() - 1).rank(), repeatedRank);
         
     }// END refreshMetadata
+    
+    private void addSet(Ranks r, int size){
+        // Sets are found from lowest to highest rank, but are kept highest first
+        // so that compareTo can walk them in order of importance.
+        switch(size){
+            case 2: this.pairs.add(0, r);
+                break;
+            case 3: this.triples.add(0, r);
+                break;
+            // Five of a kind can only be dealt from a deck with repeated
+            // cards, and ranks as four of a kind as it does in BitmaskOperations
+            case 4:
+            case 5: this.quads.add(0, r);
+                break;
+        }
+    }
+    
+    // The rank of the top card of a run of five, where A-2-3-4-5 is five high
+    private Ranks straightHigh(){
+        if(this.getHighestCard(1) == Ranks.ACE && this.getHighestCard(5) == Ranks.TWO){
+            return Ranks.FIVE;
+        }
+        return this.getHighestCard(1);
+    }
 
     @Override
     public int compareTo(PokerHandMetadata o) {
@@ -173,27 +190,33 @@ public class PokerHandMetadata implements IPokerHand, Comparable<PokerHandMetada
         int result = this.getHandClassification().compareTo(o.getHandClassification());
         if(result != 0) return result;
 
+        // Straights are decided by their top card alone, which is not the highest
+        // card in the case of A-2-3-4-5
+        if(this.hasRunOfFive() && o.hasRunOfFive()){
+            return this.straightHigh().compareTo(o.straightHigh());
+        }
+
         List<Ranks> set1;
         List<Ranks> set2;
 
         // Compare by four-sets first
         set1 = this.getQuads();
         set2 = o.getQuads();
-        for(int i = 0; result == 0 && i <= set1.size(); i++){
+        for(int i = 0; result == 0 && i < set1.size(); i++){
             result = set1.get(i).compareTo(set2.get(i));
         }
 
         // Compare by three-sets next
         set1 = this.getTriples();
         set2 = o.getTriples();
-        for(int i = 0; result == 0 && i <= set1.size(); i++){
+        for(int i = 0; result == 0 && i < set1.size(); i++){
             result = set1.get(i).compareTo(set2.get(i));
         }
 
         // Compare by two-sets next
         set1 = this.getPairs();
         set2 = o.getPairs();
-        for(int i = 0; result == 0 && i <= set1.size(); i++){
+        for(int i = 0; result == 0 && i < set1.size(); i++){
             result = set1.get(i).compareTo(set2.get(i));
         }
 
@@ -0,0 +1,290 @@
+package com.cpbonnell.cards.PokerHands;
+
+import com.cpbonnell.cards.Utils.BitmaskOperations;
+
+/**
+ * Table driven evaluator for the best five card hand in five, six or seven cards.
+ *
+ * <p>
+ *     Every card contributes two additive keys. The rank key holds the number
+ *     of cards of each rank as base 5 digits, split into a high half (ranks
+ *     NINE to ACE) above bit 17 and a low half (ranks TWO to EIGHT) below it.
+ *     The suit key holds, in one 16 bit lane per suit, a bit for each rank
+ *     held in that suit and a 3 bit count of the cards of that suit. Because
+ *     the keys are sums, a hand can be built up one card at a time and a
+ *     shared set of cards (such as a board) only has to be added once.
+ * </p>
+ * <p>
+ *     A hand of seven cards that contains a flush can not also contain four
+ *     of a kind or a full house, so if some suit holds five or more cards the
+ *     answer is found in a flush table indexed by that suit's rank bits.
+ *     Otherwise the rank key is turned into a dense perfect hash of the rank
+ *     multiset by adding one table entry for each half, and the strength is
+ *     read from a table indexed by that hash. Strengths are the same values
+ *     produced by BitmaskOperations.evaluateFive, so PokerHandClass.fromStrength
+ *     recovers the hand class.
+ * </p>
+ * <p>
+ *     The tables are generated on first use. Only standard decks are
+ *     supported: a hand may not hold more than four cards of one rank or
+ *     two copies of the same card.
+ * </p>
+ */
+public abstract class SevenCardEvaluator {
+
+    private static final int HIGH_SHIFT = 17;
+    private static final int LOW_MASK = (1 << HIGH_SHIFT) - 1;
+    private static final int LOW_RANKS = 7;
+    private static final long FLUSH_CHECK = 0x8000800080008000L;
+
+    // Make non-instantiable
+    private SevenCardEvaluator() {
+
+    }
+
+
+    //==================== Card Keys ====================
+
+    /**
+     * The additive rank key of a card.
+     * @param cardNumber A card number, as returned by BitmaskOperations.cardNumber.
+     * @return The rank key to be summed over the cards of a hand.
+     */
+    public static int rankKey(int cardNumber){
+        return Tables.RANK_KEYS[cardNumber];
+    }
+
+    /**
+     * The additive suit key of a card.
+     * @param cardNumber A card number, as returned by BitmaskOperations.cardNumber.
+     * @return The suit key to be summed over the cards of a hand.
+     */
+    public static long suitKey(int cardNumber){
+        return Tables.SUIT_KEYS[cardNumber];
+    }
+
+
+    //==================== Evaluation ====================
+
+    /**
+     * Ranks a hand from the sums of its card keys.
+     * @param rankKey The sum of rankKey over the cards of the hand.
+     * @param suitKey The sum of suitKey over the cards of the hand.
+     * @param cardCount The number of cards in the hand, from 5 to 7.
+     * @return The strength of the best five card hand.
+     */
+    public static int evaluateKeys(int rankKey, long suitKey, int cardCount){
+
+        // A suit holds five or more cards when its count has the top bit and
+        // at least one of the lower two bits set.
+        long flush = suitKey & ((suitKey << 1) | (suitKey << 2)) & FLUSH_CHECK;
+        if(flush != 0){
+            int lane = Long.numberOfTrailingZeros(flush) & ~15;
+            return Tables.FLUSHES[(int) (suitKey >>> lane) & 0x1FFF];
+        }
+
+        int hash = Tables.HIGH_HASH[cardCount][rankKey >>> HIGH_SHIFT] + Tables.LOW_HASH[rankKey & LOW_MASK];
+        return Tables.RANKS[cardCount][hash];
+    }
+
+    // A key that identifies the strength of a hand without evaluating it: the
+    // rank bits of its flush suit above bit 32 if it holds a flush, and its
+    // rank key otherwise. Hands that differ only by a relabelling of suits
+    // have the same key, and so do any other hands of equal strength that
+    // the evaluator can not tell apart. A key is never zero.
+    static long strengthKey(int rankKey, long suitKey){
+        long flush = suitKey & ((suitKey << 1) | (suitKey << 2)) & FLUSH_CHECK;
+        if(flush != 0){
+            int lane = Long.numberOfTrailingZeros(flush) & ~15;
+            return (1L << 32) | ((suitKey >>> lane) & 0x1FFF);
+        }
+        return rankKey;
+    }
+
+    /**
+     * Ranks the best five card hand out of seven cards.
+     * @param c0 The card number of the first card.
+     * @return The strength of the best five card hand.
+     */
+    public static int evaluate(int c0, int c1, int c2, int c3, int c4, int c5, int c6){
+        int[] rk = Tables.RANK_KEYS;
+        long[] sk = Tables.SUIT_KEYS;
+        return evaluateKeys(
+                rk[c0] + rk[c1] + rk[c2] + rk[c3] + rk[c4] + rk[c5] + rk[c6],
+                sk[c0] + sk[c1] + sk[c2] + sk[c3] + sk[c4] + sk[c5] + sk[c6],
+                7);
+    }
+
+    /**
+     * Ranks the best five card hand out of five to seven cards.
+     * @param cards An array of card numbers.
+     * @param offset The index of the first card of the hand.
+     * @param length The number of cards in the hand, from 5 to 7.
+     * @return The strength of the best five card hand.
+     */
+    public static int evaluate(int[] cards, int offset, int length){
+        if(length < 5 || length > 7){
+            throw new IllegalArgumentException("A hand must hold from 5 to 7 cards, not " + length);
+        }
+
+        int rankKey = 0;
+        long suitKey = 0;
+        for(int i = offset; i < offset + length; i++){
+            rankKey += Tables.RANK_KEYS[cards[i]];
+            suitKey += Tables.SUIT_KEYS[cards[i]];
+        }
+        return evaluateKeys(rankKey, suitKey, length);
+    }
+
+
+    //==================== Table Statistics ====================
+
+    /**
+     * The time that was spent generating the lookup tables.
+     * @return The generation time in nanoseconds.
+     */
+    public static long generationNanos(){
+        return Tables.GENERATION_NANOS;
+    }
+
+    /**
+     * The memory used by the lookup tables, not counting object headers.
+     * @return The size of the tables in bytes.
+     */
+    public static long footprintBytes(){
+        long bytes = Tables.RANK_KEYS.length * 4L + Tables.SUIT_KEYS.length * 8L
+                + Tables.FLUSHES.length * 4L + Tables.LOW_HASH.length * 2L;
+        for(int n = 5; n <= 7; n++){
+            bytes += Tables.HIGH_HASH[n].length * 2L + Tables.RANKS[n].length * 4L;
+        }
+        return bytes;
+    }
+
+
+    //==================== Table Generation ====================
+
+    // The tables live in a holder class so that they are only generated when the
+    // evaluator is first used, and the JVM guarantees they are built only once.
+    private static final class Tables {
+
+        static final int[] RANK_KEYS = new int[BitmaskOperations.NUMBER_OF_CARDS];
+        static final long[] SUIT_KEYS = new long[BitmaskOperations.NUMBER_OF_CARDS];
+        static final int[] FLUSHES = new int[1 << 13];
+        static final char[] LOW_HASH;
+        static final char[][] HIGH_HASH = new char[8][];
+        static final int[][] RANKS = new int[8][];
+        static final long GENERATION_NANOS;
+
+        // WAYS[m][k] is the number of ways that m ranks can hold k cards, at most
+        // four of each. It is the basis of the perfect hash of rank multisets.
+        private static final int[][] WAYS = new int[14][8];
+
+        static {
+            long start = System.nanoTime();
+
+            for(int n = 0; n < BitmaskOperations.NUMBER_OF_CARDS; n++){
+                int r = n >>> 2;
+                int s = n & 3;
+                RANK_KEYS[n] = r < LOW_RANKS ? pow5(r) : pow5(r - LOW_RANKS) << HIGH_SHIFT;
+                SUIT_KEYS[n] = (1L << (16 * s + r)) | (1L << (16 * s + 13));
+            }
+
+            for(int mask = 0; mask < FLUSHES.length; mask++){
+                if(Integer.bitCount(mask) >= 5){
+                    FLUSHES[mask] = BitmaskOperations.strengthOf(countsOf(mask), true);
+                }
+            }
+
+            WAYS[0][0] = 1;
+            for(int m = 1; m < WAYS.length; m++){
+                for(int k = 0; k < 8; k++){
+                    for(int c = 0; c <= 4 && c <= k; c++){
+                        WAYS[m][k] += WAYS[m - 1][k - c];
+                    }
+                }
+            }
+
+            // Ranks are hashed from the ACE down, so the high half of the key
+            // comes first. The low half hash depends only on its own digits,
+            // while the high half depends on the total number of cards too.
+            LOW_HASH = new char[pow5(LOW_RANKS)];
+            for(int key = 0; key < LOW_HASH.length; key++){
+                int sum = digitSum(key);
+                if(sum <= 7){
+                    LOW_HASH[key] = (char) partialHash(key, LOW_RANKS, 0, sum);
+                }
+            }
+
+            int highRanks = 13 - LOW_RANKS;
+            for(int n = 5; n <= 7; n++){
+                HIGH_HASH[n] = new char[pow5(highRanks)];
+                for(int key = 0; key < HIGH_HASH[n].length; key++){
+                    if(digitSum(key) <= n){
+                        HIGH_HASH[n][key] = (char) partialHash(key, highRanks, LOW_RANKS, n);
+                    }
+                }
+
+                RANKS[n] = new int[WAYS[13][n]];
+                fillRanks(n, new int[13], 12, n);
+            }
+
+            GENERATION_NANOS = System.nanoTime() - start;
+        }
+
+        // Hash of the digits of a key, where the key covers the given number of
+        // ranks and there are still the given number of ranks below it.
+        private static int partialHash(int key, int ranks, int ranksBelow, int remaining){
+            int hash = 0;
+            for(int i = ranks - 1; i >= 0; i--){
+                int q = (key / pow5(i)) % 5;
+                int after = i + ranksBelow;
+                for(int c = 0; c < q; c++){
+                    hash += WAYS[after][remaining - c];
+                }
+                remaining -= q;
+            }
+            return hash;
+        }
+
+        private static void fillRanks(int n, int[] counts, int rank, int remaining){
+            if(rank < 0){
+                if(remaining != 0) return;
+
+                int key = 0;
+                long rankCounts = 0;
+                for(int r = 0; r < 13; r++){
+                    for(int c = 0; c < counts[r]; c++) key += RANK_KEYS[r * 4];
+                    rankCounts |= (long) counts[r] << (4 * r);
+                }
+                int hash = HIGH_HASH[n][key >>> HIGH_SHIFT] + LOW_HASH[key & LOW_MASK];
+                RANKS[n][hash] = BitmaskOperations.strengthOf(rankCounts, false);
+                return;
+            }
+            for(int c = 0; c <= 4 && c <= remaining; c++){
+                counts[rank] = c;
+                fillRanks(n, counts, rank - 1, remaining - c);
+            }
+            counts[rank] = 0;
+        }
+
+        private static long countsOf(int mask){
+            long rankCounts = 0;
+            for(int r = 0; r < 13; r++){
+                if((mask & (1 << r)) != 0) rankCounts |= 1L << (4 * r);
+            }
+            return rankCounts;
+        }
+
+        private static int digitSum(int key){
+            int sum = 0;
+            for(; key > 0; key /= 5) sum += key % 5;
+            return sum;
+        }
+
+        private static int pow5(int e){
+            int p = 1;
+            for(int i = 0; i < e; i++) p *= 5;
+            return p;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.cpbonnell.cards.Simulation;
+
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The game played at one simulated table, for use with a SimulationRunner.
+ *
+ * <p>
+ *     A table is played out on a deck lent to it by the runner. The deck is
+ *     reset when the table finishes, which takes back any cards the table
+ *     still holds and invalidates them, so a table need not discard its
+ *     cards before returning. The generator belongs to the worker running
+ *     the table, and may be used for the decisions of the players; like the
+ *     deck, it must not be kept past the end of the table.
+ * </p>
+ */
+@FunctionalInterface
+public interface ITableSimulation {
+
+    /**
+     * Plays out one table.
+     * @param deck A deck with every card on its draw pile, shuffled, and with
+     *             any listeners the deck factory attached.
+     * @param random The worker's random number generator.
+     * @return The number of hands played at the table.
+     */
+    int play(IPlayingDeck deck, RandomGenerator random);
+}
@@ -0,0 +1,58 @@
+package com.cpbonnell.cards.Simulation;
+
+/**
+ * The totals of a run of table simulations.
+ */
+public final class SimulationResult {
+
+    private final long tables;
+    private final long hands;
+    private final int workers;
+    private final long elapsedNanos;
+
+    SimulationResult(long tables, long hands, int workers, long elapsedNanos){
+        this.tables = tables;
+        this.hands = hands;
+        this.workers = workers;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long tables(){
+        return this.tables;
+    }
+
+    /**
+     * The number of hands played, summed over the tables.
+     * @return The number of hands.
+     */
+    public long hands(){
+        return this.hands;
+    }
+
+    /**
+     * The number of tables that were played at once, each on its own deck.
+     * @return The number of workers.
+     */
+    public int workers(){
+        return this.workers;
+    }
+
+    public long elapsedNanos(){
+        return this.elapsedNanos;
+    }
+
+    public double tablesPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : this.tables * 1e9 / this.elapsedNanos;
+    }
+
+    public double handsPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : this.hands * 1e9 / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%,d tables, %,d hands on %d workers in %.3f s: %,.0f tables/s, %,.0f hands/s",
+                this.tables, this.hands, this.workers, this.elapsedNanos / 1e9,
+                this.tablesPerSecond(), this.handsPerSecond());
+    }
+}
@@ -0,0 +1,250 @@
+package com.cpbonnell.cards.Simulation;
+
+import com.cpbonnell.cards.PlayingCards.DeckPool;
+import com.cpbonnell.cards.PlayingCards.IPlayingDeck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays out large numbers of independent tables in parallel, and reports the
+ * rate at which they were played.
+ *
+ * <p>
+ *     The tables are shared among a fixed number of workers, by default one
+ *     per processor, each on a thread of a fork-join pool made for the run
+ *     and shut down after it. Any ExecutorService may be given instead,
+ *     together with the number of workers to run on it, such as an executor
+ *     of virtual threads where the platform has them. Workers claim
+ *     tables in blocks from a shared counter, so a worker that finishes its
+ *     tables early simply claims more, and the workers touch no other shared
+ *     state until they are done.
+ * </p>
+ * <p>
+ *     Each worker plays every one of its tables on one deck, rather than
+ *     making a new deck per table, and resets the deck between tables, so
+ *     each table starts with the whole deck shuffled and any cards the last
+ *     table kept are taken back. The deck is either made by the worker with
+ *     a deck factory, or taken from a DeckPool and released to it when the
+ *     worker is done, so that decks are reused from one run to the next.
+ *     Either way the listeners attached to a deck stay attached. Each worker
+ *     also has its own SplittableRandom, split from one root generator, which
+ *     is given to the deck factory and to every table the worker plays.
+ * </p>
+ */
+public abstract class SimulationRunner {
+
+    // The number of tables a worker claims at a time
+    private static final int BLOCK_TABLES = 64;
+
+    // Make non-instantiable
+    private SimulationRunner() {
+
+    }
+
+    /**
+     * Plays the tables on one worker per processor, in a pool of their own.
+     * @param tables The number of tables to play.
+     * @param deckFactory Makes a deck for a worker, from the worker's generator.
+     *                    BasePlayingDeck::newStandardFrenchDeck may be used.
+     * @param simulation The game played at each table.
+     * @return The number of tables and hands played, and the time taken.
+     */
+    public static SimulationResult run(long tables, Function<RandomGenerator, ? extends IPlayingDeck> deckFactory,
+                                       ITableSimulation simulation){
+        ForkJoinPool pool = newPool();
+        try {
+            return run(tables, deckFactory, simulation, pool, pool.getParallelism(), new SplittableRandom());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays the tables on one worker per thread of a fork-join pool.
+     * @param tables The number of tables to play.
+     * @param deckFactory Makes a deck for a worker, from the worker's generator.
+     * @param simulation The game played at each table.
+     * @param pool The pool to play in.
+     * @param random The root generator, from which each worker's generator is split.
+     * @return The number of tables and hands played, and the time taken.
+     */
+    public static SimulationResult run(long tables, Function<RandomGenerator, ? extends IPlayingDeck> deckFactory,
+                                       ITableSimulation simulation, ForkJoinPool pool, SplittableRandom random){
+        return run(tables, deckFactory, simulation, pool, pool.getParallelism(), random);
+    }
+
+    /**
+     * Plays the tables on a number of workers submitted to an executor.
+     * @param tables The number of tables to play.
+     * @param deckFactory Makes a deck for a worker, from the worker's generator.
+     * @param simulation The game played at each table.
+     * @param executor The executor to run the workers on. It is not shut down.
+     * @param workers The number of workers, and so of decks, to play with.
+     * @param random The root generator, from which each worker's generator is split.
+     * @return The number of tables and hands played, and the time taken.
+     * @throws IllegalStateException If the calling thread is interrupted.
+     */
+    public static SimulationResult run(long tables, Function<RandomGenerator, ? extends IPlayingDeck> deckFactory,
+                                       ITableSimulation simulation, ExecutorService executor, int workers,
+                                       SplittableRandom random){
+        Objects.requireNonNull(deckFactory, "deckFactory");
+        return start(tables, simulation, executor, workers, random, (schedule, stream) ->
+                work(schedule, deckFactory.apply(stream), simulation, stream));
+    }
+
+    /**
+     * Plays the tables on one worker per processor, in a pool of their own,
+     * with decks from a pool.
+     * @param tables The number of tables to play.
+     * @param decks The pool to take a deck from for each worker.
+     * @param simulation The game played at each table.
+     * @return The number of tables and hands played, and the time taken.
+     */
+    public static SimulationResult run(long tables, DeckPool<?> decks, ITableSimulation simulation){
+        ForkJoinPool pool = newPool();
+        try {
+            return run(tables, decks, simulation, pool, pool.getParallelism(), new SplittableRandom());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays the tables on a number of workers submitted to an executor, with
+     * decks from a pool.
+     * @param tables The number of tables to play.
+     * @param decks The pool to take a deck from for each worker. The decks are
+     *              released to it when the workers are done.
+     * @param simulation The game played at each table.
+     * @param executor The executor to run the workers on. It is not shut down.
+     * @param workers The number of workers, and so of decks, to play with.
+     * @param random The root generator, from which each worker's generator is split.
+     * @return The number of tables and hands played, and the time taken.
+     */
+    public static SimulationResult run(long tables, DeckPool<?> decks, ITableSimulation simulation,
+                                       ExecutorService executor, int workers, SplittableRandom random){
+        Objects.requireNonNull(decks, "decks");
+        return start(tables, simulation, executor, workers, random, (schedule, stream) ->
+                workPooled(schedule, decks, simulation, stream));
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    // A pool with a thread per processor. The common pool leaves one processor
+    // to the calling thread, which here would only wait for the workers.
+    private static ForkJoinPool newPool(){
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    // Starts the workers and waits for them to finish
+    private static SimulationResult start(long tables, ITableSimulation simulation, ExecutorService executor,
+                                          int workers, SplittableRandom random, Worker worker){
+        Objects.requireNonNull(simulation, "simulation");
+        if(tables < 0){
+            throw new IllegalArgumentException("The number of tables can not be negative: " + tables);
+        }
+        if(workers < 1){
+            throw new IllegalArgumentException("At least one worker is required, not " + workers);
+        }
+
+        Schedule schedule = new Schedule(tables);
+        long start = System.nanoTime();
+
+        List<Future<Long>> futures = new ArrayList<>(workers);
+        for(int w = 0; w < workers; w++){
+            SplittableRandom stream = random.split();
+            futures.add(executor.submit(() -> worker.play(schedule, stream)));
+        }
+
+        long hands = 0;
+        try {
+            for(Future<Long> f : futures){
+                hands += f.get();
+            }
+        } catch (InterruptedException e){
+            schedule.stop();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the tables to be played", e);
+        } catch (ExecutionException e){
+            schedule.stop();
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if(cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException("A table simulation failed", cause);
+        }
+
+        return new SimulationResult(tables, hands, workers, System.nanoTime() - start);
+    }
+
+    // Takes a deck from the pool, plays tables on it and gives it back
+    private static <D extends IPlayingDeck> long workPooled(Schedule schedule, DeckPool<D> decks,
+                                                           ITableSimulation simulation, SplittableRandom random){
+        D deck = decks.acquire();
+        try {
+            return work(schedule, deck, simulation, random);
+        } finally {
+            decks.release(deck);
+        }
+    }
+
+    // Plays tables on one deck until none are left to claim, returning the hands played
+    private static long work(Schedule schedule, IPlayingDeck deck, ITableSimulation simulation,
+                             SplittableRandom random){
+        long hands = 0;
+        try {
+            for(long first = schedule.claim(); first >= 0; first = schedule.claim()){
+                long last = Math.min(first + BLOCK_TABLES, schedule.tables);
+                for(long t = first; t < last; t++){
+                    hands += simulation.play(deck, random);
+                    deck.reset();
+                }
+            }
+        } catch (RuntimeException | Error e){
+            schedule.stop();
+            throw e;
+        }
+        return hands;
+    }
+
+    // The body of one worker, given the shared schedule and its own generator
+    @FunctionalInterface
+    private interface Worker {
+        long play(Schedule schedule, SplittableRandom random);
+    }
+
+    // The tables that are left to be claimed by the workers
+    private static final class Schedule {
+
+        final long tables;
+        private final AtomicLong next = new AtomicLong();
+        private volatile boolean stopped;
+
+        Schedule(long tables){
+            this.tables = tables;
+        }
+
+        // The first of a block of tables, or -1 if there are none left
+        long claim(){
+            if(this.stopped){
+                return -1;
+            }
+            long first = this.next.getAndAdd(BLOCK_TABLES);
+            return first < this.tables ? first : -1;
+        }
+
+        void stop(){
+            this.stopped = true;
+        }
+    }
+}
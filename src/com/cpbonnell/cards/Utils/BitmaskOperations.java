@@ -1,15 +1,312 @@
 package com.cpbonnell.cards.Utils;
 
+import com.cpbonnell.cards.PlayingCards.IPlayingCard;
+import com.cpbonnell.cards.PlayingCards.Ranks;
+import com.cpbonnell.cards.PlayingCards.Suits;
+import com.cpbonnell.cards.PokerHands.PokerHandClass;
+
+import java.util.Arrays;
+
 /**
- * Created by MYE7180 on 5/12/2017.
+ * Static functions for packing cards and poker hands into primitive values.
+ *
+ * <p>
+ *     A card is identified by its card number, an int from 0 to 51 equal to
+ *     rank.ordinal() * 4 + suit.ordinal(). For evaluation a card number is
+ *     expanded into a card mask with the layout
+ *     <code>xxxbbbbb bbbbbbbb cdhsrrrr xxpppppp</code>, where b is one bit
+ *     per rank, cdhs is one bit per suit, r is the rank ordinal and p is a
+ *     prime unique to the rank.
+ * </p>
+ * <p>
+ *     Hands are ranked into a single strength int. The hand class ordinal is
+ *     stored above STRENGTH_CLASS_SHIFT, and the ranks that break ties within
+ *     the class are stored below it as five 4-bit rank ordinals, most
+ *     significant first. A greater strength is always a better hand, so two
+ *     strengths may be compared directly.
+ * </p>
  */
 public abstract class BitmaskOperations {
 
+    public static final int NUMBER_OF_CARDS = 52;
+    public static final int STRENGTH_CLASS_SHIFT = 20;
+
+    private static final int[] PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41};
+    private static final Ranks[] RANKS = Ranks.values();
+    private static final Suits[] SUITS = Suits.values();
+    private static final int[] CARD_MASKS = new int[NUMBER_OF_CARDS];
+
+    // Lookup tables for the five card evaluator. Hands of five distinct ranks
+    // are indexed by their rank bits, all other hands are found by binary
+    // search on the product of their rank primes.
+    private static final int[] FLUSHES = new int[1 << 13];
+    private static final int[] UNIQUE_FIVE = new int[1 << 13];
+    private static final int[] PRODUCTS;
+    private static final int[] PRODUCT_STRENGTHS;
+
+    static {
+        for(int n = 0; n < NUMBER_OF_CARDS; n++){
+            int r = n >>> 2;
+            int s = n & 3;
+            CARD_MASKS[n] = (1 << (16 + r)) | (1 << (12 + s)) | (r << 8) | PRIMES[r];
+        }
+
+        // Count the multisets of five ranks with repeats first, so the
+        // product tables can be sized exactly. Up to five of a rank are
+        // allowed so that decks with duplicate cards can be evaluated.
+        int[] counts = new int[13];
+        int n = countMultisets(counts, 0, 5);
+        PRODUCTS = new int[n];
+        PRODUCT_STRENGTHS = new int[n];
+        fillTables(counts, 0, 5, new int[]{0});
+
+        // The product table must be sorted for the binary search
+        long[] pairs = new long[n];
+        for(int i = 0; i < n; i++){
+            pairs[i] = ((long) PRODUCTS[i] << 32) | (PRODUCT_STRENGTHS[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(pairs);
+        for(int i = 0; i < n; i++){
+            PRODUCTS[i] = (int) (pairs[i] >>> 32);
+            PRODUCT_STRENGTHS[i] = (int) pairs[i];
+        }
+    }
+
     // Make non-instantiable
     private BitmaskOperations() {
-        
+
     }
 
     // Functions relating to card number
-    
+
+    public static int cardNumber(Ranks r, Suits s){
+        return r.ordinal() * 4 + s.ordinal();
+    }
+
+    public static int cardNumber(IPlayingCard c){
+        return cardNumber(c.rank(), c.suit());
+    }
+
+    public static Ranks rankOf(int cardNumber){
+        return RANKS[cardNumber >>> 2];
+    }
+
+    public static Suits suitOf(int cardNumber){
+        return SUITS[cardNumber & 3];
+    }
+
+    public static int cardMask(int cardNumber){
+        return CARD_MASKS[cardNumber];
+    }
+
+    public static int cardMask(IPlayingCard c){
+        return CARD_MASKS[cardNumber(c)];
+    }
+
+
+    // Functions relating to hand strength
+
+    /**
+     * Ranks a five card hand given as card masks.
+     * <p>
+     *     The hand class of the result agrees with PokerHandClass.classifyHand.
+     *     No objects are allocated. A hand with five cards of one rank (only
+     *     possible in decks with duplicate cards) is ranked as four of a kind.
+     * </p>
+     * @param c1 Card mask of the first card, as returned by cardMask.
+     * @return The strength of the hand.
+     */
+    public static int evaluateFive(int c1, int c2, int c3, int c4, int c5){
+
+        int q = (c1 | c2 | c3 | c4 | c5) >>> 16;
+
+        // Five distinct ranks are either a flush, a straight or a high card hand.
+        // Flushes with repeated ranks are classified by their sets instead.
+        if(Integer.bitCount(q) == 5){
+            if((c1 & c2 & c3 & c4 & c5 & 0xF000) != 0){
+                return FLUSHES[q];
+            }
+            return UNIQUE_FIVE[q];
+        }
+
+        int product = (c1 & 0xFF) * (c2 & 0xFF) * (c3 & 0xFF) * (c4 & 0xFF) * (c5 & 0xFF);
+        return PRODUCT_STRENGTHS[Arrays.binarySearch(PRODUCTS, product)];
+    }
+
+    /**
+     * Ranks a five card hand given as card numbers.
+     * @param n1 Card number of the first card, as returned by cardNumber.
+     * @return The strength of the hand.
+     */
+    public static int evaluateFiveCards(int n1, int n2, int n3, int n4, int n5){
+        return evaluateFive(CARD_MASKS[n1], CARD_MASKS[n2], CARD_MASKS[n3], CARD_MASKS[n4], CARD_MASKS[n5]);
+    }
+
+    public static int handClassOrdinal(int strength){
+        return strength >>> STRENGTH_CLASS_SHIFT;
+    }
+
+    /**
+     * Ranks the best five card hand that can be made from a multiset of ranks.
+     * <p>
+     *     This is the slow but straightforward reference used to generate the
+     *     lookup tables. The rank counts are packed four bits per rank ordinal,
+     *     so a hand is built by adding 1L &lt;&lt; (4 * rank) for each card.
+     *     If flush is true every rank present is taken to be of one suit.
+     * </p>
+     * @param rankCounts The number of cards of each rank, four bits per rank.
+     * @param flush true if the ranks present all share one suit.
+     * @return The strength of the best five card hand.
+     */
+    public static int strengthOf(long rankCounts, boolean flush){
+
+        int present = 0;
+        for(int r = 0; r < 13; r++){
+            if(count(rankCounts, r) > 0) present |= 1 << r;
+        }
+        int straightTop = highestStraight(present);
+
+        if(flush){
+            if(straightTop >= 0) return strength(PokerHandClass.STRAIGHT_FLUSH, straightTop);
+            return packed(PokerHandClass.FLUSH, highestRanks(present, 5));
+        }
+
+        int quad = highestWithCount(rankCounts, 4, -1);
+        if(quad >= 0){
+            int kicker = highestWithCount(rankCounts, 1, quad);
+            return strength(PokerHandClass.FOUR_KIND, quad, kicker < 0 ? quad : kicker);
+        }
+
+        int trip = highestWithCount(rankCounts, 3, -1);
+        int pair = highestWithCount(rankCounts, 2, trip);
+        if(trip >= 0 && pair >= 0){
+            return strength(PokerHandClass.FULL_HOUSE, trip, pair);
+        }
+
+        if(straightTop >= 0) return strength(PokerHandClass.STRAIGHT, straightTop);
+
+        if(trip >= 0){
+            return strength(PokerHandClass.THREE_KIND, trip) | highestRanks(present & ~(1 << trip), 2) << 8;
+        }
+
+        if(pair >= 0){
+            int second = highestWithCount(rankCounts, 2, pair);
+            if(second >= 0){
+                int kicker = highestRanks(present & ~(1 << pair) & ~(1 << second), 1);
+                return strength(PokerHandClass.TWO_PAIR, pair, second, kicker);
+            }
+            return strength(PokerHandClass.ONE_PAIR, pair) | highestRanks(present & ~(1 << pair), 3) << 4;
+        }
+
+        return packed(PokerHandClass.HIGH_CARD, highestRanks(present, 5));
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    private static int count(long rankCounts, int rank){
+        return (int) (rankCounts >>> (4 * rank)) & 0xF;
+    }
+
+    // Highest rank, other than the excluded one, with at least the given count
+    private static int highestWithCount(long rankCounts, int minimum, int excluded){
+        for(int r = 12; r >= 0; r--){
+            if(r != excluded && count(rankCounts, r) >= minimum) return r;
+        }
+        return -1;
+    }
+
+    // Top rank of the highest run of five in the rank bits, counting A-2-3-4-5
+    // as a five high straight. Returns -1 if there is no straight.
+    private static int highestStraight(int present){
+        for(int top = 12; top >= 4; top--){
+            int run = 0x1F << (top - 4);
+            if((present & run) == run) return top;
+        }
+        int wheel = (1 << 12) | 0xF;
+        return (present & wheel) == wheel ? 3 : -1;
+    }
+
+    // Packs the n highest ranks in the bit set as nibbles, most significant first,
+    // aligned so that the last rank lands in the lowest nibble.
+    private static int highestRanks(int present, int n){
+        int result = 0;
+        for(int r = 12; r >= 0 && n > 0; r--){
+            if((present & (1 << r)) != 0){
+                result = (result << 4) | r;
+                n--;
+            }
+        }
+        return result << (4 * n);
+    }
+
+    private static int packed(PokerHandClass hclass, int packedRanks){
+        return (hclass.ordinal() << STRENGTH_CLASS_SHIFT) | packedRanks;
+    }
+
+    private static int strength(PokerHandClass hclass, int first){
+        return packed(hclass, first << 16);
+    }
+
+    private static int strength(PokerHandClass hclass, int first, int second){
+        return packed(hclass, first << 16 | second << 12);
+    }
+
+    private static int strength(PokerHandClass hclass, int first, int second, int third){
+        return packed(hclass, first << 16 | second << 12 | third << 8);
+    }
+
+
+    //==================== Table Generation ====================
+
+    private static int countMultisets(int[] counts, int rank, int remaining){
+        if(rank == 13){
+            return remaining == 0 && !allDistinct(counts) ? 1 : 0;
+        }
+        int total = 0;
+        for(int c = 0; c <= remaining; c++){
+            counts[rank] = c;
+            total += countMultisets(counts, rank + 1, remaining - c);
+        }
+        counts[rank] = 0;
+        return total;
+    }
+
+    private static void fillTables(int[] counts, int rank, int remaining, int[] next){
+        if(rank == 13){
+            if(remaining != 0) return;
+
+            long rankCounts = 0;
+            int product = 1;
+            int present = 0;
+            for(int r = 0; r < 13; r++){
+                rankCounts |= (long) counts[r] << (4 * r);
+                for(int i = 0; i < counts[r]; i++) product *= PRIMES[r];
+                if(counts[r] > 0) present |= 1 << r;
+            }
+
+            if(allDistinct(counts)){
+                UNIQUE_FIVE[present] = strengthOf(rankCounts, false);
+                FLUSHES[present] = strengthOf(rankCounts, true);
+            } else {
+                PRODUCTS[next[0]] = product;
+                PRODUCT_STRENGTHS[next[0]] = strengthOf(rankCounts, false);
+                next[0]++;
+            }
+            return;
+        }
+        for(int c = 0; c <= remaining; c++){
+            counts[rank] = c;
+            fillTables(counts, rank + 1, remaining - c, next);
+        }
+        counts[rank] = 0;
+    }
+
+    private static boolean allDistinct(int[] counts){
+        for(int c : counts){
+            if(c > 1) return false;
+        }
+        return true;
+    }
+
 }
@@ -0,0 +1,129 @@
+package com.cpbonnell.cards.Utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue for any number of producer and consumer threads.
+ *
+ * <p>
+ *     This is the array queue described by Dmitry Vyukov. Each cell of the
+ *     ring carries a sequence number that tells producers and consumers
+ *     whether the cell is free for the current lap, so a producer or a
+ *     consumer claims a cell with a single compare-and-set on the tail or
+ *     head counter and never waits on another thread. offer fails rather
+ *     than blocking when the buffer is full, leaving the choice of what to
+ *     do about it to the caller.
+ * </p>
+ *
+ * @param <T> The type of the elements held in the buffer.
+ */
+public class BoundedRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Creates a ring buffer.
+     * @param capacity The minimum number of elements the buffer can hold. It is
+     *                 rounded up to the next power of two.
+     */
+    public BoundedRingBuffer(int capacity){
+        if(capacity < 1 || capacity > (1 << 30)){
+            throw new IllegalArgumentException("Capacity must be from 1 to 2^30, not " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity) size <<= 1;
+
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for(int i = 0; i < size; i++){
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element to the tail of the buffer, if there is room.
+     * @param item The element to add, which may not be null.
+     * @return true if the element was added, false if the buffer was full.
+     */
+    public boolean offer(T item){
+        if(item == null) throw new NullPointerException("item");
+
+        long pos = this.tail.get();
+        for(;;){
+            int i = (int) pos & this.mask;
+            long diff = this.sequences.get(i) - pos;
+
+            if(diff == 0){
+                // The cell is free for this lap; claim it
+                if(this.tail.compareAndSet(pos, pos + 1)){
+                    this.items.lazySet(i, item);
+                    this.sequences.set(i, pos + 1);
+                    return true;
+                }
+                pos = this.tail.get();
+            } else if(diff < 0){
+                // The cell still holds an element from the previous lap
+                return false;
+            } else {
+                // Another producer claimed the cell first
+                pos = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the head of the buffer, if there is one.
+     * @return The element removed, or null if the buffer was empty.
+     */
+    public T poll(){
+        long pos = this.head.get();
+        for(;;){
+            int i = (int) pos & this.mask;
+            long diff = this.sequences.get(i) - (pos + 1);
+
+            if(diff == 0){
+                // The cell holds an element for this lap; claim it
+                if(this.head.compareAndSet(pos, pos + 1)){
+                    T item = this.items.get(i);
+                    this.items.lazySet(i, null);
+                    this.sequences.set(i, pos + this.mask + 1);
+                    return item;
+                }
+                pos = this.head.get();
+            } else if(diff < 0){
+                // Nothing has been written to the cell yet
+                return null;
+            } else {
+                // Another consumer claimed the cell first
+                pos = this.head.get();
+            }
+        }
+    }
+
+    /**
+     * The number of elements in the buffer. The value is only a snapshot when
+     * other threads are using the buffer.
+     * @return The number of elements in the buffer.
+     */
+    public int size(){
+        long size = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(size, this.capacity()));
+    }
+
+    public boolean isEmpty(){
+        return this.size() == 0;
+    }
+
+    public int capacity(){
+        return this.mask + 1;
+    }
+}
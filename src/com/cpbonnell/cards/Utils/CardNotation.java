@@ -0,0 +1,213 @@
+package com.cpbonnell.cards.Utils;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Static functions for writing and parsing the two character card notation.
+ *
+ * <p>
+ *     This is the notation of IPlayingCard.toChars: a rank character from
+ *     "234567890JQKA" (0 stands for TEN) followed by a suit character from
+ *     "CDHS", and a hand is its cards written one after another. Cards are
+ *     handled as card numbers (see BitmaskOperations.cardNumber), and all
+ *     the functions write into or read from arrays and buffers supplied by
+ *     the caller, so none of them allocate. Parsing is a table lookup per
+ *     character. It also accepts lower case letters and T for TEN, which
+ *     appear in hand logs from other sources.
+ * </p>
+ */
+public abstract class CardNotation {
+
+    public static final int CHARS_PER_CARD = 2;
+
+    private static final byte[] RANK_CHARS = {'2', '3', '4', '5', '6', '7', '8', '9', '0', 'J', 'Q', 'K', 'A'};
+    private static final byte[] SUIT_CHARS = {'C', 'D', 'H', 'S'};
+
+    // Rank and suit ordinals by character, -1 for characters that are neither
+    private static final byte[] RANK_OF = new byte[128];
+    private static final byte[] SUIT_OF = new byte[128];
+
+    static {
+        Arrays.fill(RANK_OF, (byte) -1);
+        Arrays.fill(SUIT_OF, (byte) -1);
+        for(int r = 0; r < RANK_CHARS.length; r++){
+            RANK_OF[RANK_CHARS[r]] = (byte) r;
+            RANK_OF[Character.toLowerCase(RANK_CHARS[r])] = (byte) r;
+        }
+        RANK_OF['T'] = 8;
+        RANK_OF['t'] = 8;
+        for(int s = 0; s < SUIT_CHARS.length; s++){
+            SUIT_OF[SUIT_CHARS[s]] = (byte) s;
+            SUIT_OF[Character.toLowerCase(SUIT_CHARS[s])] = (byte) s;
+        }
+    }
+
+    // Make non-instantiable
+    private CardNotation() {
+
+    }
+
+
+    //==================== Writing ====================
+
+    /**
+     * Writes a card as ASCII bytes.
+     * @param cardNumber The card number to write.
+     * @param out The array to write into.
+     * @param offset The index of the first byte to write.
+     * @return The index just after the bytes written.
+     */
+    public static int writeCard(int cardNumber, byte[] out, int offset){
+        out[offset] = RANK_CHARS[cardNumber >>> 2];
+        out[offset + 1] = SUIT_CHARS[cardNumber & 3];
+        return offset + CHARS_PER_CARD;
+    }
+
+    /**
+     * Writes a hand as ASCII bytes.
+     * @param cards An array of card numbers.
+     * @param from The index of the first card of the hand.
+     * @param count The number of cards in the hand.
+     * @param out The array to write into.
+     * @param offset The index of the first byte to write.
+     * @return The index just after the bytes written.
+     */
+    public static int writeHand(int[] cards, int from, int count, byte[] out, int offset){
+        for(int i = from; i < from + count; i++){
+            offset = writeCard(cards[i], out, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Writes a card at the position of a character buffer, advancing the position.
+     * @param cardNumber The card number to write.
+     * @param out The buffer to write into.
+     */
+    public static void writeCard(int cardNumber, CharBuffer out){
+        out.put((char) RANK_CHARS[cardNumber >>> 2]);
+        out.put((char) SUIT_CHARS[cardNumber & 3]);
+    }
+
+    /**
+     * Writes a hand at the position of a character buffer, advancing the position.
+     * @param cards An array of card numbers.
+     * @param from The index of the first card of the hand.
+     * @param count The number of cards in the hand.
+     * @param out The buffer to write into.
+     */
+    public static void writeHand(int[] cards, int from, int count, CharBuffer out){
+        for(int i = from; i < from + count; i++){
+            writeCard(cards[i], out);
+        }
+    }
+
+
+    //==================== Parsing ====================
+
+    /**
+     * Parses a card from ASCII bytes.
+     * @param in The array to read from.
+     * @param offset The index of the rank character.
+     * @return The card number, or -1 if the two bytes are not a card.
+     */
+    public static int parseCard(byte[] in, int offset){
+        return cardOf(in[offset], in[offset + 1]);
+    }
+
+    /**
+     * Parses a card from characters.
+     * @param in The characters to read from, such as a String or a CharBuffer.
+     * @param offset The index of the rank character.
+     * @return The card number, or -1 if the two characters are not a card.
+     */
+    public static int parseCard(CharSequence in, int offset){
+        return cardOf(in.charAt(offset), in.charAt(offset + 1));
+    }
+
+    /**
+     * Parses a hand from ASCII bytes.
+     * @param in The array to read from.
+     * @param offset The index of the first character of the hand.
+     * @param count The number of cards in the hand.
+     * @param cards Receives the card numbers.
+     * @param cardsOffset The index at which to store the first card number.
+     * @return true if the hand was parsed, false if it holds something that is not a card.
+     */
+    public static boolean parseHand(byte[] in, int offset, int count, int[] cards, int cardsOffset){
+        int bad = 0;
+        for(int i = 0; i < count; i++, offset += CHARS_PER_CARD){
+            int c = cardOf(in[offset], in[offset + 1]);
+            cards[cardsOffset + i] = c;
+            bad |= c;
+        }
+        return bad >= 0;
+    }
+
+    /**
+     * Parses a hand from characters.
+     * @param in The characters to read from, such as a String or a CharBuffer.
+     * @param offset The index of the first character of the hand.
+     * @param count The number of cards in the hand.
+     * @param cards Receives the card numbers.
+     * @param cardsOffset The index at which to store the first card number.
+     * @return true if the hand was parsed, false if it holds something that is not a card.
+     */
+    public static boolean parseHand(CharSequence in, int offset, int count, int[] cards, int cardsOffset){
+        int bad = 0;
+        for(int i = 0; i < count; i++, offset += CHARS_PER_CARD){
+            int c = cardOf(in.charAt(offset), in.charAt(offset + 1));
+            cards[cardsOffset + i] = c;
+            bad |= c;
+        }
+        return bad >= 0;
+    }
+
+    /**
+     * Parses one line of a text log holding a hand per line.
+     * <p>
+     *     The line must hold exactly the given number of cards, and end with
+     *     "\n" or "\r\n". To read a whole log, call this repeatedly with the
+     *     returned index until it returns -1, then carry any unparsed bytes
+     *     over to the next read.
+     * </p>
+     * @param in The array to read from.
+     * @param offset The index of the start of the line.
+     * @param limit The index just after the last valid byte of the array.
+     * @param count The number of cards on the line.
+     * @param cards Receives the card numbers.
+     * @param cardsOffset The index at which to store the first card number.
+     * @return The index of the start of the next line, or -1 if the line is
+     *         incomplete before the limit.
+     * @throws IllegalArgumentException If the line is complete but is not a hand.
+     */
+    public static int parseHandLine(byte[] in, int offset, int limit, int count, int[] cards, int cardsOffset){
+        int end = offset + count * CHARS_PER_CARD;
+        if(end >= limit){
+            return -1;
+        }
+        if(in[end] == '\r'){
+            end++;
+            if(end >= limit) return -1;
+        }
+        if(in[end] != '\n' || ! parseHand(in, offset, count, cards, cardsOffset)){
+            throw new IllegalArgumentException("Not a hand of " + count + " cards at index " + offset);
+        }
+        return end + 1;
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    // The card number of a rank and suit character, or -1. Characters are
+    // masked into the tables, and anything outside ASCII is rejected.
+    private static int cardOf(int rankChar, int suitChar){
+        int r = RANK_OF[rankChar & 127];
+        int s = SUIT_OF[suitChar & 127];
+        if(((rankChar | suitChar) & ~127) != 0 || (r | s) < 0){
+            return -1;
+        }
+        return (r << 2) | s;
+    }
+}
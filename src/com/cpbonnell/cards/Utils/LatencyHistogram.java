@@ -0,0 +1,164 @@
+package com.cpbonnell.cards.Utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread safe histogram of durations in nanoseconds, with log-linear buckets.
+ *
+ * <p>
+ *     Like an HDR histogram, each power of two is split into 16 linear
+ *     buckets, so any recorded value is known to within about 6%, and values
+ *     below 16 ns exactly. Durations of up to 2^40 ns, about 18 minutes, are
+ *     told apart; longer ones are counted in the last bucket. The buckets
+ *     are striped over several arrays picked by thread, so that threads
+ *     recording at the same time rarely write to the same memory, and
+ *     recording never allocates or locks.
+ * </p>
+ * <p>
+ *     Percentiles are reported as the highest value that falls in the same
+ *     bucket as the true percentile. Reading the histogram while values are
+ *     being recorded gives a result that is only approximately consistent.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    // The groups of buckets below 2^MAX_EXPONENT, and one bucket for everything above
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + 1;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(){
+        int n = Integer.highestOneBit(Math.min(8, Runtime.getRuntime().availableProcessors()));
+        this.stripes = new AtomicLongArray[n];
+        for(int i = 0; i < n; i++){
+            this.stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+        this.stripeMask = n - 1;
+    }
+
+    /**
+     * Records one duration.
+     * @param nanos The duration in nanoseconds. Negative values count as 0.
+     */
+    public void record(long nanos){
+        long v = Math.max(0, nanos);
+        int stripe = (int) Thread.currentThread().getId() & this.stripeMask;
+        this.stripes[stripe].getAndIncrement(bucketOf(v));
+        this.count.increment();
+        this.sum.add(v);
+        if(v > this.max.get()){
+            this.max.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    public long count(){
+        return this.count.sum();
+    }
+
+    public long max(){
+        return this.max.get();
+    }
+
+    /**
+     * The mean of the recorded durations.
+     * @return The mean in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public double mean(){
+        long n = this.count.sum();
+        return n == 0 ? 0 : (double) this.sum.sum() / n;
+    }
+
+    /**
+     * The duration below which a given percentage of the recorded durations fall.
+     * @param percentile The percentage, from 0 to 100.
+     * @return The duration in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long valueAtPercentile(double percentile){
+        if(percentile < 0 || percentile > 100){
+            throw new IllegalArgumentException("A percentile must be from 0 to 100, not " + percentile);
+        }
+
+        long[] totals = new long[BUCKETS];
+        long n = 0;
+        for(AtomicLongArray stripe : this.stripes){
+            for(int b = 0; b < BUCKETS; b++){
+                long c = stripe.get(b);
+                totals[b] += c;
+                n += c;
+            }
+        }
+        if(n == 0){
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for(int b = 0; b < BUCKETS; b++){
+            seen += totals[b];
+            if(seen >= rank){
+                return Math.min(highestValueOf(b), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    /**
+     * Forgets every recorded duration.
+     */
+    public void reset(){
+        for(AtomicLongArray stripe : this.stripes){
+            for(int b = 0; b < BUCKETS; b++){
+                stripe.set(b, 0);
+            }
+        }
+        this.count.reset();
+        this.sum.reset();
+        this.max.set(0);
+    }
+
+    @Override
+    public String toString(){
+        return String.format("count=%d mean=%.0fns p50=%dns p90=%dns p99=%dns max=%dns",
+                this.count(), this.mean(), this.valueAtPercentile(50), this.valueAtPercentile(90),
+                this.valueAtPercentile(99), this.max());
+    }
+
+
+    //==================== Private Helper Functions ====================
+
+    // Values below SUB_BUCKETS have a bucket each. Above that, the top bit
+    // picks a group of SUB_BUCKETS buckets and the next bits pick one of them.
+    private static int bucketOf(long v){
+        if(v < SUB_BUCKETS){
+            return (int) v;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(v), MAX_EXPONENT);
+        if(exponent == MAX_EXPONENT){
+            return BUCKETS - 1;
+        }
+        int sub = (int) (v >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long lowestValueOf(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private static long highestValueOf(int bucket){
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueOf(bucket + 1) - 1;
+    }
+}